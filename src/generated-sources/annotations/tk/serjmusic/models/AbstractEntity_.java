@@ -1,5 +1,6 @@
 package tk.serjmusic.models;
 
+import java.util.Date;
 import javax.annotation.Generated;
 import javax.persistence.metamodel.SingularAttribute;
 import javax.persistence.metamodel.StaticMetamodel;
@@ -9,6 +10,8 @@ import javax.persistence.metamodel.StaticMetamodel;
 public abstract class AbstractEntity_ {
 
 	public static volatile SingularAttribute<AbstractEntity, Integer> id;
+	public static volatile SingularAttribute<AbstractEntity, Integer> version;
+	public static volatile SingularAttribute<AbstractEntity, Date> updatedAt;
 
 }
 
@@ -12,10 +12,15 @@ public abstract class BlogEntry_ extends tk.serjmusic.models.AbstractEntity_ {
 
 	public static volatile SingularAttribute<BlogEntry, String> imageLink;
 	public static volatile SingularAttribute<BlogEntry, Date> dateCreated;
+	public static volatile SingularAttribute<BlogEntry, Date> lastCommentAt;
 	public static volatile ListAttribute<BlogEntry, BlogComment> comments;
 	public static volatile SingularAttribute<BlogEntry, User> author;
+	public static volatile SingularAttribute<BlogEntry, ContentFormat> contentFormat;
+	public static volatile SingularAttribute<BlogEntry, String> renderedHtml;
 	public static volatile SingularAttribute<BlogEntry, String> title;
+	public static volatile SingularAttribute<BlogEntry, String> excerpt;
 	public static volatile SingularAttribute<BlogEntry, String> content;
+	public static volatile SingularAttribute<BlogEntry, Integer> commentCount;
 
 }
 
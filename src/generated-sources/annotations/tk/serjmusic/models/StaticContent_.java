@@ -9,7 +9,9 @@ import javax.persistence.metamodel.StaticMetamodel;
 public abstract class StaticContent_ extends tk.serjmusic.models.AbstractEntity_ {
 
 	public static volatile SingularAttribute<StaticContent, String> contentDescription;
+	public static volatile SingularAttribute<StaticContent, ContentFormat> contentFormat;
 	public static volatile SingularAttribute<StaticContent, String> language;
+	public static volatile SingularAttribute<StaticContent, String> renderedHtml;
 	public static volatile SingularAttribute<StaticContent, String> content;
 
 }
@@ -0,0 +1,16 @@
+package tk.serjmusic.models;
+
+import javax.annotation.Generated;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+
+@Generated(value = "org.hibernate.jpamodelgen.JPAMetaModelEntityProcessor")
+@StaticMetamodel(UserAvatar.class)
+public abstract class UserAvatar_ extends tk.serjmusic.models.AbstractEntity_ {
+
+	public static volatile SingularAttribute<UserAvatar, byte[]> data;
+	public static volatile SingularAttribute<UserAvatar, String> contentType;
+	public static volatile SingularAttribute<UserAvatar, String> hash;
+
+}
+
@@ -12,7 +12,7 @@ public abstract class User_ extends tk.serjmusic.models.AbstractEntity_ {
 	public static volatile SingularAttribute<User, String> imageLink;
 	public static volatile SingularAttribute<User, String> password;
 	public static volatile SetAttribute<User, BlogComment> comments;
-	public static volatile SingularAttribute<User, byte[]> imageFile;
+	public static volatile SingularAttribute<User, String> avatarHash;
 	public static volatile SetAttribute<User, BlogEntry> blogs;
 	public static volatile SetAttribute<User, UserRole> roles;
 	public static volatile SingularAttribute<User, Boolean> isBanned;
@@ -32,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import tk.serjmusic.controllers.dto.BlogCommentDto;
 import tk.serjmusic.controllers.dto.asm.BlogCommentDtoAsm;
@@ -40,6 +41,7 @@ import tk.serjmusic.models.User;
 import tk.serjmusic.models.UserRole;
 import tk.serjmusic.services.BlogCommentService;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.SeekCursor;
 
 import java.util.List;
 
@@ -66,6 +68,12 @@ public class BlogCommentController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param request - current request, validated against the version of all comments
      * @return {@link ResponseEntity} with {@link List} of {@link BlogCommentDto}
      */
     @RequestMapping(method = RequestMethod.GET)
@@ -73,30 +81,47 @@ public class BlogCommentController {
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) 
             int pageNumber,
             @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE_TEXT) 
-            int pageSize) {
+            int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1)) {
             throw new IllegalArgumentException("pageNumber and pageSize should be > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize);
         }
-        List<BlogComment> comments = commentsService
-                .getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, pageNumber, pageSize);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, commentsService.getVersionOfAll())) {
+            return new ResponseEntity<List<BlogCommentDto>>(HttpStatus.NOT_MODIFIED);
+        }
+        List<BlogComment> comments = (seek == null)
+                ? commentsService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        pageNumber, pageSize)
+                : commentsService.getSeekPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        seek.getAfterId(), seek.getBeforeId(), pageSize);
         List<BlogCommentDto> commentDtoList = blogCommentDtoAsm.toResources(comments);
-        return new ResponseEntity<List<BlogCommentDto>>(commentDtoList, HttpStatus.OK);
+        return new ResponseEntity<List<BlogCommentDto>>(commentDtoList, 
+                SeekCursor.nextCursorHeaders(comments, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize), 
+                HttpStatus.OK);
     }
     
     /**
      * Get {@link BlogCommentDto} for its ID.
      * 
      * @param commentId - the ID of needed blog comment
+     * @param request - current request, validated against the version of the comment
      * @return - {@link ResponseEntity} with found {@link BlogCommentDto}
      */
     @RequestMapping(path = "/{commentId}", method = RequestMethod.GET)
     public ResponseEntity<BlogCommentDto> getCommentById(
-            @PathVariable("commentId") int commentId) {
+            @PathVariable("commentId") int commentId, WebRequest request) {
         if (commentId < 0) {
             throw new IllegalArgumentException("Comment id should be greater than 0," 
                     + " but have:" + commentId);
         }
+        if (ConditionalGet.isNotModified(request, commentsService.getVersionById(commentId))) {
+            return new ResponseEntity<BlogCommentDto>(HttpStatus.NOT_MODIFIED);
+        }
         BlogComment comment = commentsService.getById(commentId);
         BlogCommentDto commentDto = blogCommentDtoAsm.toResource(comment);
         return new ResponseEntity<BlogCommentDto>(commentDto, HttpStatus.OK);
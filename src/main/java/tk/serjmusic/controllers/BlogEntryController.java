@@ -28,7 +28,9 @@
 package tk.serjmusic.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -37,17 +39,24 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import tk.serjmusic.controllers.dto.BlogCommentDto;
 import tk.serjmusic.controllers.dto.BlogEntryDto;
 import tk.serjmusic.controllers.dto.asm.BlogCommentDtoAsm;
 import tk.serjmusic.controllers.dto.asm.BlogEntryDtoAsm;
+import tk.serjmusic.controllers.dto.asm.JsonFragmentAsm;
+import tk.serjmusic.controllers.push.CommentBroadcaster;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
 import tk.serjmusic.models.User;
+import tk.serjmusic.models.projections.BlogEntrySummary;
 import tk.serjmusic.services.BlogCommentService;
 import tk.serjmusic.services.BlogEntryService;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.SeekCursor;
+import tk.serjmusic.utils.cache.JsonFragmentCache;
 
 import java.util.Date;
 import java.util.List;
@@ -68,9 +77,15 @@ public class BlogEntryController {
     private BlogEntryService blogService;
     @Autowired
     private BlogCommentService commentService;
+    @Autowired
+    private CommentBroadcaster commentBroadcaster;
+    @Autowired
+    private JsonFragmentCache fragmentCache;
 
     /**
      * Get {@link ResponseEntity} with the paginated list of {@link BlogEntryDto} entities. 
+     * The list is built from {@link BlogEntrySummary} projections, so DTOs contain the excerpt 
+     * and no content, which is available for the concrete blog entry only.
      * For retrieving all blog entities please set {@code pageNumber = 1} and 
      * {@code pageSize = Integer.MAX_VALUE}.
      * If these parameters are missed, the default values are: {@code pageNumber = 1} and
@@ -78,20 +93,44 @@ public class BlogEntryController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
-     * @return {@link ResponseEntity} with {@link List} of {@link BlogEntryDto}
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param request - current request, validated against the version of all blog entries
+     * @return {@link ResponseEntity} with JSON array of {@link BlogEntryDto}, spliced from the
+     *      cached fragments of unchanged entries
      */
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<List<BlogEntryDto>> getPaginatedBlogs(
+    public ResponseEntity<byte[]> getPaginatedBlogs(
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
-            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize) {
+            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1)) {
             throw new IllegalArgumentException("pageNumber and pageSize should be > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize);
         }
-        List<BlogEntry> blogs = blogService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER,
-                pageNumber, pageSize);
-        List<BlogEntryDto> blogDtoList = blogDtoAsm.toResources(blogs);
-        return new ResponseEntity<List<BlogEntryDto>>(blogDtoList, HttpStatus.OK);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, blogService.getVersionOfAll())) {
+            return new ResponseEntity<byte[]>(HttpStatus.NOT_MODIFIED);
+        }
+        List<BlogEntrySummary> blogs = (seek == null)
+                ? blogService.getProjectionPaginatedAndOrdered(BlogEntrySummary.class, 
+                        R.DEFAULT_ASC_ID_SORT_ORDER, pageNumber, pageSize)
+                : blogService.getProjectionSeekPaginatedAndOrdered(BlogEntrySummary.class, 
+                        R.DEFAULT_ASC_ID_SORT_ORDER, seek.getAfterId(), seek.getBeforeId(), 
+                        pageSize);
+        byte[] blogDtoList = JsonFragmentAsm.toJsonArray(fragmentCache, BlogEntry.class, blogs, 
+                BlogEntrySummary::getId, BlogEntrySummary::getListedVersion, 
+                blogDtoAsm::toSummaryResource);
+        HttpHeaders headers = 
+                SeekCursor.nextCursorHeaders(blogs, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize);
+        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+        return new ResponseEntity<byte[]>(blogDtoList, headers, HttpStatus.OK);
     }
 
     /**
@@ -117,10 +156,7 @@ public class BlogEntryController {
         User author = null;
         if (principal instanceof User) {
             author = (User) principal;
-        } /*else {
-            author = blogDto.getAuthor()
-                    .overwriteEntity(userService.getById(blogDto.getAuthor().getUserId()));
-        }*/
+        }
         blog.setAuthor(author);
         blog = blogService.create(blog);
         return new ResponseEntity<BlogEntryDto>(blogDtoAsm.toResource(blog), HttpStatus.OK);
@@ -130,14 +166,19 @@ public class BlogEntryController {
      * Get {@link BlogEntry} for its ID.
      * 
      * @param blogId - the ID of needed blog entry
+     * @param request - current request, validated against the version of the blog entry
      * @return - {@link ResponseEntity} with found {@link User}
      */
     @RequestMapping(path = "/{blogId}", method = RequestMethod.GET)
-    public ResponseEntity<BlogEntryDto> getBlogById(@PathVariable("blogId") int blogId) {
+    public ResponseEntity<BlogEntryDto> getBlogById(@PathVariable("blogId") int blogId, 
+            WebRequest request) {
         if (blogId < 0) {
             throw new IllegalArgumentException(
                     "Blog ID should be greater than 0, but have:" + blogId);
         }
+        if (ConditionalGet.isNotModified(request, blogService.getVersionById(blogId))) {
+            return new ResponseEntity<BlogEntryDto>(HttpStatus.NOT_MODIFIED);
+        }
         BlogEntry blog = blogService.getById(blogId);
         return new ResponseEntity<BlogEntryDto>(blogDtoAsm.toResource(blog), HttpStatus.OK);
     }
@@ -159,6 +200,35 @@ public class BlogEntryController {
         return new ResponseEntity<BlogEntryDto>(blogDtoAsm.toResource(blog), HttpStatus.OK);
     }
 
+    /**
+     * Change {@link BlogEntry} with JSON Merge Patch: only fields given in the request are changed 
+     * and only changed columns are written. The request should have the {@code If-Match} header 
+     * with the ETag of the blog entry, the change fails with 412 status if it was changed since.
+     * 
+     * @param blogPatch - the {@link BlogEntryDto} with changed fields only
+     * @param blogId - the ID of the {@link BlogEntry} to be changed
+     * @param request - current request with the {@code If-Match} header
+     * @return {@link BlogEntryDto} of changed {@link BlogEntry} with its new ETag 
+     *      or 428 status if there is no {@code If-Match} header
+     */
+    @RequestMapping(path = "/{blogId}", method = RequestMethod.PATCH,
+            consumes = {R.MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BlogEntryDto> patchBlogById(@RequestBody BlogEntryDto blogPatch, 
+            @PathVariable("blogId") int blogId, WebRequest request) {
+        if (blogPatch == null) {
+            throw new IllegalArgumentException("Blog patch should not be null");
+        }
+        Integer version = ConditionalUpdate.getExpectedVersion(request, blogId);
+        if (version == null) {
+            return new ResponseEntity<BlogEntryDto>(HttpStatus.PRECONDITION_REQUIRED);
+        }
+        blogPatch.setBlogId(blogId);
+        BlogEntry blog = blogService.patch(blogId, version, blogPatch::overwriteEntity);
+        return new ResponseEntity<BlogEntryDto>(blogDtoAsm.toResource(blog), 
+                ConditionalUpdate.versionHeaders(blogService.getVersionById(blogId)), 
+                HttpStatus.OK);
+    }
+
     /**
      * Delete {@link BlogEntry} from persistent context.
      * 
@@ -171,7 +241,7 @@ public class BlogEntryController {
             throw new IllegalArgumentException(
                     "User id should be greater than 0," + " but have:" + blogId);
         }
-        blogService.delete(blogService.getById(blogId));
+        blogService.deleteById(blogId);
         return new ResponseEntity<BlogEntryDto>(HttpStatus.OK);
     }
     
@@ -182,24 +252,53 @@ public class BlogEntryController {
      * If these parameters are missed, the default values are: {@code pageNumber = 1} and
      * {@code pageSize = 10}.
      * 
+     * @param blogId - the ID of the blog entry
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param sinceId - the greatest comment ID known to the client. If it is given, only newer 
+     *      comments (at most {@value R#MAX_DELTA_SIZE}) are returned and an empty list means 
+     *      there is nothing new
+     * @param request - current request, validated against the version of all comments
      * @return {@link ResponseEntity} with {@link List} of {@link BlogCommentDto}
      */
     @RequestMapping(path = "/{blogId}/comments", method = RequestMethod.GET)
     public ResponseEntity<List<BlogCommentDto>> getPaginatedCommentsForBlog(
             @PathVariable("blogId") int blogId,
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
-            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize) {
+            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "sinceId", required = false) Integer sinceId, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1) || (blogId < 0)) {
             throw new IllegalArgumentException("pageNumber, pageSize should be > 0, blogId > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize 
                     + ", blogId=" + blogId);
         }
-        List<BlogComment> comments = blogService
-                .getPaginatedCommentsForBlogId(blogId, pageNumber, pageSize);
+        if (ConditionalGet.isNotModified(request, commentService.getVersionOfAll())) {
+            return new ResponseEntity<List<BlogCommentDto>>(HttpStatus.NOT_MODIFIED);
+        }
+        if (sinceId != null) {
+            List<BlogComment> comments = blogService.getNewCommentsForBlogId(blogId, sinceId, 
+                    Math.min(pageSize, R.MAX_DELTA_SIZE));
+            return new ResponseEntity<List<BlogCommentDto>>(
+                    new BlogCommentDtoAsm().toResources(comments), HttpStatus.OK);
+        }
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        List<BlogComment> comments = (seek == null)
+                ? blogService.getPaginatedCommentsForBlogId(blogId, pageNumber, pageSize)
+                : blogService.getSeekCommentsForBlogId(blogId, seek.getAfterId(), 
+                        seek.getBeforeId(), pageSize);
         List<BlogCommentDto> commentDtoList = new BlogCommentDtoAsm().toResources(comments);
-        return new ResponseEntity<List<BlogCommentDto>>(commentDtoList, HttpStatus.OK);
+        return new ResponseEntity<List<BlogCommentDto>>(commentDtoList, 
+                SeekCursor.nextCursorHeaders(comments, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize), 
+                HttpStatus.OK);
     }
     
     /**
@@ -225,8 +324,29 @@ public class BlogEntryController {
         comment.setAuthor(author);
         comment.setBlogEntry(blogService.getById(blogId));
         comment = commentService.create(comment);
-        return new ResponseEntity<BlogCommentDto>(new BlogCommentDtoAsm().toResource(comment),
-                HttpStatus.OK);
+        BlogCommentDto createdDto = new BlogCommentDtoAsm().toResource(comment);
+        // The service transaction is already committed here
+        commentBroadcaster.publish(blogId, createdDto);
+        return new ResponseEntity<BlogCommentDto>(createdDto, HttpStatus.OK);
+    }
+    
+    /**
+     * Subscribe to new comments of the blog entry. New comments are pushed as Server-Sent 
+     * Events named "comment" with the {@link BlogCommentDto} JSON as data. The client should
+     * request missed comments with {@code sinceId} after each (re)connection.
+     * 
+     * @param blogId - the id of blog entry
+     * @return {@link SseEmitter} of the subscription
+     */
+    @RequestMapping(path = "/{blogId}/comments/stream", method = RequestMethod.GET, 
+            produces = "text/event-stream")
+    public SseEmitter streamCommentsForBlog(@PathVariable("blogId") int blogId) {
+        if (blogId < 0) {
+            throw new IllegalArgumentException("Blog Entry ID should be >= 0"
+                    + " but have  blogId=" + blogId);
+        }
+        blogService.getById(blogId);
+        return commentBroadcaster.subscribe(blogId);
     }
 }
 
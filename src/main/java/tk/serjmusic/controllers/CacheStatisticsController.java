@@ -0,0 +1,65 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import tk.serjmusic.models.projections.CacheRegionStatistics;
+import tk.serjmusic.services.CacheStatisticsService;
+
+import java.util.List;
+
+/**
+ * The MVC controller for monitoring of the second level cache, available to admins only.
+ *
+ * @author Roman Kondakov
+ */
+
+@Controller
+@RequestMapping("api/v1/admin/caches")
+public class CacheStatisticsController {
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    /**
+     * Get {@link ResponseEntity} with hit/miss statistics and sizes of all cache regions.
+     * 
+     * @return {@link ResponseEntity} with {@link List} of {@link CacheRegionStatistics}
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<List<CacheRegionStatistics>> getCacheStatistics() {
+        return new ResponseEntity<List<CacheRegionStatistics>>(
+                cacheStatisticsService.getRegionStatistics(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers;
+
+import org.springframework.web.context.request.WebRequest;
+
+import tk.serjmusic.models.projections.EntityVersion;
+
+/**
+ * Validation of conditional GET requests against the version of requested entities. It is 
+ * done before entities are loaded and assembled into DTOs, so unchanged ones cost a version 
+ * lookup only.
+ *
+ * @author Roman Kondakov
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+        
+    }
+
+    /**
+     * Check {@code If-None-Match} and {@code If-Modified-Since} headers of the request. 
+     * {@code ETag} and {@code Last-Modified} (if it is known) of the version are set to the 
+     * response anyway.
+     *
+     * @param request current request
+     * @param version version of requested entities
+     * @return {@code true} if the response status is set to 304 and there should be no body
+     */
+    static boolean isNotModified(WebRequest request, EntityVersion version) {
+        // A negative time would match any If-Modified-Since
+        long lastModified = version.getLastModified();
+        return (lastModified < 0) ? request.checkNotModified(version.getETag())
+                : request.checkNotModified(version.getETag(), lastModified);
+    }
+}
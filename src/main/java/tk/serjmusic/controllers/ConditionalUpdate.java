@@ -0,0 +1,111 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import tk.serjmusic.models.projections.EntityVersion;
+import tk.serjmusic.services.exceptions.StaleVersionException;
+
+/**
+ * Validation of conditional partial updates. The {@code If-Match} header should have the 
+ * ETag of the changed entity, its own version is checked by the update itself instead of 
+ * locking the entity.
+ *
+ * @author Roman Kondakov
+ */
+final class ConditionalUpdate {
+
+    /**
+     * The version passed to services for {@code If-Match: *}.
+     */
+    static final int ANY_VERSION = -1;
+
+    private ConditionalUpdate() {
+        
+    }
+
+    /**
+     * Get the version of the entity which the changes of the request are based on. Only the 
+     * own version is taken from the ETag: other entities shown with the entity 
+     * {@literal (e.g. authors of blogs)} are not changed by the request.
+     *
+     * @param request current request
+     * @param id ID of the changed entity
+     * @return expected version, {@link #ANY_VERSION} or {@code null} if there is no 
+     *      {@code If-Match} header
+     * @throws StaleVersionException if there is no strong ETag of the entity in the header
+     */
+    static Integer getExpectedVersion(WebRequest request, int id) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null) {
+            return null;
+        }
+        String prefix = "\"" + id + ".";
+        for (String etag : ifMatch.split(",")) {
+            etag = etag.trim();
+            if ("*".equals(etag)) {
+                return ANY_VERSION;
+            }
+            // Weak ETags can't be used for updates
+            if (!etag.startsWith(prefix)) {
+                continue;
+            }
+            int end = prefix.length();
+            while ((end < etag.length()) && Character.isDigit(etag.charAt(end))) {
+                end++;
+            }
+            if (end > prefix.length()) {
+                try {
+                    return Integer.valueOf(etag.substring(prefix.length(), end));
+                } catch (NumberFormatException ex) {
+                    break;
+                }
+            }
+        }
+        throw new StaleVersionException("If-Match: " + ifMatch + " doesn't match entity id=" 
+                + id);
+    }
+
+    /**
+     * Get headers of the response to an update with the new version of the entity, so the 
+     * next update can be based on it without reading the entity again.
+     *
+     * @param version new version of the entity
+     * @return headers with {@code ETag} and {@code Last-Modified}
+     */
+    static HttpHeaders versionHeaders(EntityVersion version) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(version.getETag());
+        if (version.getLastModified() >= 0) {
+            headers.setLastModified(version.getLastModified());
+        }
+        return headers;
+    }
+}
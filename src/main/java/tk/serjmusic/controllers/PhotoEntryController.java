@@ -28,7 +28,9 @@
 package tk.serjmusic.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -36,12 +38,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import tk.serjmusic.controllers.dto.PhotoEntryDto;
+import tk.serjmusic.controllers.dto.asm.JsonFragmentAsm;
 import tk.serjmusic.controllers.dto.asm.PhotoEntryDtoAsm;
 import tk.serjmusic.models.PhotoEntry;
 import tk.serjmusic.services.PhotoEntryService;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.SeekCursor;
+import tk.serjmusic.utils.cache.JsonFragmentCache;
 
 import java.util.List;
 
@@ -59,6 +65,8 @@ public class PhotoEntryController {
 
     @Autowired
     private PhotoEntryService photoService;
+    @Autowired
+    private JsonFragmentCache fragmentCache;
 
     /**
      * Get {@link ResponseEntity} with the paginated list of {@link PhotoEntry} entities. 
@@ -69,20 +77,42 @@ public class PhotoEntryController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
-     * @return {@link ResponseEntity} with {@link List} of {@link PhotoEntry}
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param request - current request, validated against the version of all photo entries
+     * @return {@link ResponseEntity} with JSON array of {@link PhotoEntryDto}, spliced from the
+     *      cached fragments of unchanged entries
      */
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<List<PhotoEntryDto>> getPaginatedPhotos(
+    public ResponseEntity<byte[]> getPaginatedPhotos(
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
-            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize) {
+            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1)) {
             throw new IllegalArgumentException("pageNumber and pageSize should be > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize);
         }
-        List<PhotoEntry> photos = photoService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER,
-                pageNumber, pageSize);
-        List<PhotoEntryDto> photoDtoList = photoDtoAsm.toResources(photos);
-        return new ResponseEntity<List<PhotoEntryDto>>(photoDtoList, HttpStatus.OK);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, photoService.getVersionOfAll())) {
+            return new ResponseEntity<byte[]>(HttpStatus.NOT_MODIFIED);
+        }
+        List<PhotoEntry> photos = (seek == null)
+                ? photoService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        pageNumber, pageSize)
+                : photoService.getSeekPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        seek.getAfterId(), seek.getBeforeId(), pageSize);
+        byte[] photoDtoList = JsonFragmentAsm.toJsonArray(fragmentCache, PhotoEntry.class, photos, 
+                PhotoEntry::getId, PhotoEntry::getVersion, photoDtoAsm::toResource);
+        HttpHeaders headers = 
+                SeekCursor.nextCursorHeaders(photos, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize);
+        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+        return new ResponseEntity<byte[]>(photoDtoList, headers, HttpStatus.OK);
     }
 
     /**
@@ -105,14 +135,19 @@ public class PhotoEntryController {
      * Get {@link PhotoEntryDto} for the given ID.
      * 
      * @param photoId - the ID of needed Photo Entry
+     * @param request - current request, validated against the version of the photo entry
      * @return - {@link ResponseEntity} with found {@link PhotoEntry}
      */
     @RequestMapping(path = "/{photoId}", method = RequestMethod.GET)
-    public ResponseEntity<PhotoEntryDto> getPhotoById(@PathVariable("photoId") int photoId) {
+    public ResponseEntity<PhotoEntryDto> getPhotoById(@PathVariable("photoId") int photoId, 
+            WebRequest request) {
         if (photoId < 0) {
             throw new IllegalArgumentException(
                     "Photo id should be greater than 0," + " but have:" + photoId);
         }
+        if (ConditionalGet.isNotModified(request, photoService.getVersionById(photoId))) {
+            return new ResponseEntity<PhotoEntryDto>(HttpStatus.NOT_MODIFIED);
+        }
         PhotoEntry photo = photoService.getById(photoId);
         return new ResponseEntity<PhotoEntryDto>(photoDtoAsm.toResource(photo), HttpStatus.OK);
     }
@@ -134,6 +169,36 @@ public class PhotoEntryController {
         return new ResponseEntity<PhotoEntryDto>(photoDtoAsm.toResource(photo), HttpStatus.OK);
     }
 
+    /**
+     * Change {@link PhotoEntry} with JSON Merge Patch: only fields given in the request are 
+     * changed and only changed columns are written. The request should have the {@code If-Match} 
+     * header with the ETag of the photo entry, the change fails with 412 status if it was changed 
+     * since.
+     * 
+     * @param photoPatch - the {@link PhotoEntryDto} with changed fields only
+     * @param photoId - the ID of the {@link PhotoEntry} to be changed
+     * @param request - current request with the {@code If-Match} header
+     * @return {@link PhotoEntryDto} of changed {@link PhotoEntry} with its new ETag 
+     *      or 428 status if there is no {@code If-Match} header
+     */
+    @RequestMapping(path = "/{photoId}", method = RequestMethod.PATCH,
+            consumes = {R.MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<PhotoEntryDto> patchPhotoById(@RequestBody PhotoEntryDto photoPatch, 
+            @PathVariable("photoId") int photoId, WebRequest request) {
+        if (photoPatch == null) {
+            throw new IllegalArgumentException("Photo patch should not be null");
+        }
+        Integer version = ConditionalUpdate.getExpectedVersion(request, photoId);
+        if (version == null) {
+            return new ResponseEntity<PhotoEntryDto>(HttpStatus.PRECONDITION_REQUIRED);
+        }
+        photoPatch.setPhotoEntryId(photoId);
+        PhotoEntry photo = photoService.patch(photoId, version, photoPatch::overwriteEntity);
+        return new ResponseEntity<PhotoEntryDto>(photoDtoAsm.toResource(photo), 
+                ConditionalUpdate.versionHeaders(photoService.getVersionById(photoId)), 
+                HttpStatus.OK);
+    }
+
     /**
      * Delete {@link PhotoEntry} from the persistent context.
      * 
@@ -28,22 +28,31 @@
 package tk.serjmusic.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import tk.serjmusic.controllers.dto.StaticContentDto;
 import tk.serjmusic.controllers.dto.asm.StaticContentDtoAsm;
 import tk.serjmusic.models.StaticContent;
+import tk.serjmusic.models.projections.EntityVersion;
 import tk.serjmusic.services.StaticContentService;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.SeekCursor;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Locale.LanguageRange;
 
 /**
  * The MVC controller for {@link StaticContent} resources requests.
@@ -69,20 +78,39 @@ public class StaticContentController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param request - current request, validated against the version of all static contents
      * @return {@link ResponseEntity} with {@link List} of {@link StaticContent}
      */
     @RequestMapping(method = RequestMethod.GET)
     public ResponseEntity<List<StaticContentDto>> getPaginatedStatics(
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
-            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize) {
+            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1)) {
             throw new IllegalArgumentException("pageNumber and pageSize should be > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize);
         }
-        List<StaticContent> statics = staticService.getPaginatedAndOrdered(
-                R.DEFAULT_ASC_ID_SORT_ORDER, pageNumber, pageSize);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, staticService.getVersionOfAll())) {
+            return new ResponseEntity<List<StaticContentDto>>(HttpStatus.NOT_MODIFIED);
+        }
+        List<StaticContent> statics = (seek == null)
+                ? staticService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        pageNumber, pageSize)
+                : staticService.getSeekPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        seek.getAfterId(), seek.getBeforeId(), pageSize);
         List<StaticContentDto> staticDtoList = staticDtoAsm.toResources(statics);
-        return new ResponseEntity<List<StaticContentDto>>(staticDtoList, HttpStatus.OK);
+        return new ResponseEntity<List<StaticContentDto>>(staticDtoList, 
+                SeekCursor.nextCursorHeaders(statics, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize), 
+                HttpStatus.OK);
     }
 
     /**
@@ -104,21 +132,44 @@ public class StaticContentController {
     }
 
     /**
-     * Get {@link StaticContentDto} for the given ID.
+     * Get {@link StaticContentDto} for the given description in the language negotiated with 
+     * the {@code Accept-Language} header. The chosen language is returned in the 
+     * {@code Content-Language} header.
      * 
-     * @param description - the ID of needed Static Entry
+     * @param description - the description of needed Static Entry
+     * @param acceptLanguage - the {@code Accept-Language} header, a malformed one is ignored
+     * @param request - current request, validated against the version of the chosen content
      * @return - {@link ResponseEntity} with found {@link StaticContent}
      */
     @RequestMapping(path = "/{description}", method = RequestMethod.GET)
     public ResponseEntity<StaticContentDto> getStaticByDescription(
-            @PathVariable("description") String description) {
+            @PathVariable("description") String description,
+            @RequestHeader(name = HttpHeaders.ACCEPT_LANGUAGE, required = false) 
+            String acceptLanguage, WebRequest request) {
         if (description == null) {
             throw new IllegalArgumentException(
                     "Description should be not null");
         }
-        StaticContent staticContent = staticService.getStaticContentByDescription(description);
+        List<LanguageRange> languageRanges = Collections.emptyList();
+        if (acceptLanguage != null) {
+            try {
+                languageRanges = LanguageRange.parse(acceptLanguage);
+            } catch (IllegalArgumentException ex) {
+                languageRanges = Collections.emptyList();
+            }
+        }
+        StaticContent staticContent = staticService.getStaticContentByDescription(description, 
+                languageRanges);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_LANGUAGE, 
+                staticContent.getLanguage().toLowerCase(Locale.ROOT));
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+        // Contents are served from memory, so their version costs nothing
+        if (ConditionalGet.isNotModified(request, EntityVersion.of(staticContent))) {
+            return new ResponseEntity<StaticContentDto>(headers, HttpStatus.NOT_MODIFIED);
+        }
         return new ResponseEntity<StaticContentDto>(staticDtoAsm.toResource(staticContent),
-                HttpStatus.OK);
+                headers, HttpStatus.OK);
     }
 
     /**
@@ -139,6 +190,38 @@ public class StaticContentController {
                 staticDtoAsm.toResource(staticContent), HttpStatus.OK);
     }
 
+    /**
+     * Change {@link StaticContent} with JSON Merge Patch: only fields given in the request are 
+     * changed and only changed columns are written. The request should have the {@code If-Match} 
+     * header with the ETag of the static content, the change fails with 412 status if it was 
+     * changed since.
+     * 
+     * @param staticPatch - the {@link StaticContentDto} with changed fields only
+     * @param staticId - the ID of the {@link StaticContent} to be changed
+     * @param request - current request with the {@code If-Match} header
+     * @return {@link StaticContentDto} of changed {@link StaticContent} with its new ETag 
+     *      or 428 status if there is no {@code If-Match} header
+     */
+    @RequestMapping(path = "/{staticId}", method = RequestMethod.PATCH,
+            consumes = {R.MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StaticContentDto> patchStaticById(
+            @RequestBody StaticContentDto staticPatch, @PathVariable("staticId") int staticId, 
+            WebRequest request) {
+        if (staticPatch == null) {
+            throw new IllegalArgumentException("Static patch should not be null");
+        }
+        Integer version = ConditionalUpdate.getExpectedVersion(request, staticId);
+        if (version == null) {
+            return new ResponseEntity<StaticContentDto>(HttpStatus.PRECONDITION_REQUIRED);
+        }
+        staticPatch.setStaticContentId(staticId);
+        StaticContent staticContent = 
+                staticService.patch(staticId, version, staticPatch::overwriteEntity);
+        return new ResponseEntity<StaticContentDto>(staticDtoAsm.toResource(staticContent), 
+                ConditionalUpdate.versionHeaders(staticService.getVersionById(staticId)), 
+                HttpStatus.OK);
+    }
+
     /**
      * Delete {@link StaticContent} from the persistent context.
      * 
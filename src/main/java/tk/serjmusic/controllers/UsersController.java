@@ -25,6 +25,10 @@ package tk.serjmusic.controllers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -32,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import tk.serjmusic.controllers.dto.BlogCommentDto;
 import tk.serjmusic.controllers.dto.UserDto;
@@ -40,10 +45,17 @@ import tk.serjmusic.controllers.dto.asm.UserDtoAsm;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.User;
 import tk.serjmusic.models.UserRole;
+import tk.serjmusic.models.projections.AvatarContent;
+import tk.serjmusic.models.projections.EntityVersion;
+import tk.serjmusic.services.BlogCommentService;
+import tk.serjmusic.services.UserAvatarService;
 import tk.serjmusic.services.UserService;
+import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.SeekCursor;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The MVC controller for {@link User} resources requests.
@@ -60,6 +72,10 @@ public class UsersController {
     @Autowired
     private UserService userService;
     @Autowired
+    private UserAvatarService avatarService;
+    @Autowired
+    private BlogCommentService commentService;
+    @Autowired
     private PasswordEncoder passwordEncoder;
 
     /**
@@ -70,20 +86,39 @@ public class UsersController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param request - current request, validated against the version of all users
      * @return {@link ResponseEntity} with {@link List} of {@link User}
      */
     @RequestMapping(method = RequestMethod.GET)
     public ResponseEntity<List<UserDto>> getPaginatedUsers(
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
-            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize) {
+            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1)) {
             throw new IllegalArgumentException("pageNumber and pageSize should be > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize);
         }
-        List<User> users = userService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER,
-                pageNumber, pageSize);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, userService.getVersionOfAll())) {
+            return new ResponseEntity<List<UserDto>>(HttpStatus.NOT_MODIFIED);
+        }
+        List<User> users = (seek == null)
+                ? userService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        pageNumber, pageSize)
+                : userService.getSeekPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        seek.getAfterId(), seek.getBeforeId(), pageSize);
         List<UserDto> userDtoList = userDtoAsm.toResources(users);
-        return new ResponseEntity<List<UserDto>>(userDtoList, HttpStatus.OK);
+        return new ResponseEntity<List<UserDto>>(userDtoList, 
+                SeekCursor.nextCursorHeaders(users, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize), 
+                HttpStatus.OK);
     }
 
     /**
@@ -100,7 +135,8 @@ public class UsersController {
         User user = userDto.overwriteEntity(new User());
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.getRoles().add(UserRole.ROLE_USER);
-        if ((user.getImageLink() == null) && (user.getImageFile() == null)) {
+        storeAvatar(user, userDto);
+        if ((user.getImageLink() == null) && (user.getAvatarHash() == null)) {
             user.setImageLink(R.DUMMY_PICTURE);
         }
         user = userService.create(user);
@@ -111,14 +147,20 @@ public class UsersController {
      * Get {@link UserDto} for username.
      * 
      * @param username - the name of needed user
+     * @param request - current request, validated against the version of the user
      * @return - {@link ResponseEntity} with found {@link User}
      */
     @RequestMapping(path = "/{username}", method = RequestMethod.GET)
-    public ResponseEntity<UserDto> getUserById(@PathVariable("username") String username) {
+    public ResponseEntity<UserDto> getUserById(@PathVariable("username") String username, 
+            WebRequest request) {
         if (username == null) {
             throw new IllegalArgumentException("Username should not be null!");
         }
+        // Users are found by the cached natural ID, so the version is taken from the entity
         User user = userService.getUserByUsername(username);
+        if (ConditionalGet.isNotModified(request, EntityVersion.of(user))) {
+            return new ResponseEntity<UserDto>(HttpStatus.NOT_MODIFIED);
+        }
         return new ResponseEntity<UserDto>(userDtoAsm.toResource(user), HttpStatus.OK);
     }
 
@@ -134,8 +176,9 @@ public class UsersController {
         if (userDto == null) {
             throw new IllegalArgumentException("User should not be null");
         }
-        User user = userService
-                .update(userDto.overwriteEntity(userService.getById(userId)));
+        User user = userDto.overwriteEntity(userService.getById(userId));
+        storeAvatar(user, userDto);
+        user = userService.update(user);
         return new ResponseEntity<UserDto>(userDtoAsm.toResource(user), HttpStatus.OK);
     }
 
@@ -151,7 +194,7 @@ public class UsersController {
             throw new IllegalArgumentException(
                     "User id should be greater than 0," + " but have:" + userId);
         }
-        userService.delete(userService.getById(userId));
+        userService.deleteById(userId);
         return new ResponseEntity<UserDto>(HttpStatus.OK);
     }
 
@@ -162,22 +205,90 @@ public class UsersController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
      * @param userId - the ID of given {@link User}
+     * @param request - current request, validated against the version of all comments
      * @return {@link ResponseEntity} with {@link List} of {@link BlogComment}
      */
     @RequestMapping(path = "/{userId}/comments", method = RequestMethod.GET)
     public ResponseEntity<List<BlogCommentDto>> getPaginatedUserComments(
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
             @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
-            @PathVariable("userId") int userId) {
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @PathVariable("userId") int userId, WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1) || (userId < 1)) {
             throw new IllegalArgumentException(
                     "pageNumber, pageSize and userId should be > 0" + " but have pageNumber="
                             + pageNumber + ", pageSize=" + pageSize + ", userId" + userId);
         }
-        List<BlogComment> comments =
-                userService.getUserCommentsByUserId(userId, pageNumber, pageSize);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, commentService.getVersionOfAll())) {
+            return new ResponseEntity<List<BlogCommentDto>>(HttpStatus.NOT_MODIFIED);
+        }
+        List<BlogComment> comments = (seek == null)
+                ? userService.getUserCommentsByUserId(userId, pageNumber, pageSize)
+                : userService.getSeekUserCommentsByUserId(userId, seek.getAfterId(), 
+                        seek.getBeforeId(), pageSize);
         List<BlogCommentDto> userDtoList = new BlogCommentDtoAsm().toResources(comments);
-        return new ResponseEntity<List<BlogCommentDto>>(userDtoList, HttpStatus.OK);
+        return new ResponseEntity<List<BlogCommentDto>>(userDtoList, 
+                SeekCursor.nextCursorHeaders(comments, true, pageSize), HttpStatus.OK);
+    }
+
+    /**
+     * Get the avatar image of the {@link User}. The hash of the image is used as ETag and Range
+     * requests are supported. If the request has the actual hash as {@code v} parameter (the 
+     * {@code imageLink} of {@link UserDto} has it), the image is cached as immutable.
+     * 
+     * @param userId - the ID of given {@link User}
+     * @param version - the hash of the avatar known to the client
+     * @param request - current request
+     * @return {@link ResponseEntity} with the image
+     */
+    @RequestMapping(path = "/{userId}/avatar", method = RequestMethod.GET)
+    public ResponseEntity<Resource> getUserAvatar(@PathVariable("userId") int userId,
+            @RequestParam(name = "v", required = false) String version, WebRequest request) {
+        if (userId < 0) {
+            throw new IllegalArgumentException(
+                    "User id should be greater than 0," + " but have:" + userId);
+        }
+        String hash = userService.getById(userId).getAvatarHash();
+        if (hash == null) {
+            throw new CanNotFindException("User #" + userId + " has no avatar");
+        }
+        String cacheControl = hash.equals(version)
+                ? CacheControl.maxAge(R.AVATAR_MAX_AGE_SECONDS, TimeUnit.SECONDS).cachePublic()
+                        .getHeaderValue() + ", immutable"
+                : CacheControl.noCache().getHeaderValue();
+        String etag = "\"" + hash + "\"";
+        if (request.checkNotModified(etag)) {
+            // Don't load the image, the client already has it
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .eTag(etag)
+                    .body(null);
+        }
+        // The image is streamed from the database when the response is written
+        AvatarContent avatar = avatarService.getAvatarContentByHash(hash);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header("X-Content-Type-Options", "nosniff")
+                .eTag(etag)
+                .contentType(MediaType.parseMediaType(avatar.getContentType()))
+                .body(avatar);
+    }
+
+    /**
+     * Store uploaded image file as the {@link User} avatar.
+     */
+    private void storeAvatar(User user, UserDto userDto) {
+        if (userDto.getImageFile() != null) {
+            user.setAvatarHash(avatarService.store(userDto.getImageFile()).getHash());
+        }
     }
 }
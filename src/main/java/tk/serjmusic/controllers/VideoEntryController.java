@@ -29,6 +29,7 @@ package tk.serjmusic.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -36,12 +37,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import tk.serjmusic.controllers.dto.VideoEntryDto;
 import tk.serjmusic.controllers.dto.asm.VideoEntryDtoAsm;
 import tk.serjmusic.models.VideoEntry;
 import tk.serjmusic.services.VideoEntryService;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.SeekCursor;
 
 import java.util.List;
 
@@ -69,20 +72,39 @@ public class VideoEntryController {
      * 
      * @param pageNumber - the number of retrieving page
      * @param pageSize - the size of retrieving page
+     * @param afterId - exclusive lower ID bound for keyset pagination, {@code pageNumber} is 
+     *      ignored if any bound or cursor is given
+     * @param beforeId - exclusive upper ID bound for keyset pagination
+     * @param cursor - opaque cursor from the {@value R#NEXT_CURSOR_HEADER} header of previous 
+     *      response, takes precedence over the bounds
+     * @param request - current request, validated against the version of all video entries
      * @return {@link ResponseEntity} with {@link List} of {@link VideoEntry}
      */
     @RequestMapping(method = RequestMethod.GET)
     public ResponseEntity<List<VideoEntryDto>> getPaginatedVideos(
             @RequestParam(name = "pageNumber", defaultValue = R.DEFAULT_PAGE_NUMBER) int pageNumber,
-            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize) {
+            @RequestParam(name = "pageSize", defaultValue = R.DEFAULT_PAGE_SIZE) int pageSize,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            @RequestParam(name = "cursor", required = false) String cursor, 
+            WebRequest request) {
         if ((pageNumber < 1) || (pageSize < 1)) {
             throw new IllegalArgumentException("pageNumber and pageSize should be > 0"
                     + " but have pageNumber=" + pageNumber + ", pageSize=" + pageSize);
         }
-        List<VideoEntry> videos = videoService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER,
-                pageNumber, pageSize);
+        SeekCursor seek = SeekCursor.of(cursor, afterId, beforeId);
+        if (ConditionalGet.isNotModified(request, videoService.getVersionOfAll())) {
+            return new ResponseEntity<List<VideoEntryDto>>(HttpStatus.NOT_MODIFIED);
+        }
+        List<VideoEntry> videos = (seek == null)
+                ? videoService.getPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        pageNumber, pageSize)
+                : videoService.getSeekPaginatedAndOrdered(R.DEFAULT_ASC_ID_SORT_ORDER, 
+                        seek.getAfterId(), seek.getBeforeId(), pageSize);
         List<VideoEntryDto> videoDtoList = videoDtoAsm.toResources(videos);
-        return new ResponseEntity<List<VideoEntryDto>>(videoDtoList, HttpStatus.OK);
+        return new ResponseEntity<List<VideoEntryDto>>(videoDtoList, 
+                SeekCursor.nextCursorHeaders(videos, R.DEFAULT_ASC_ID_SORT_ORDER, pageSize), 
+                HttpStatus.OK);
     }
 
     /**
@@ -105,14 +127,19 @@ public class VideoEntryController {
      * Get {@link VideoEntryDto} for the given ID.
      * 
      * @param videoId - the ID of needed Video Entry
+     * @param request - current request, validated against the version of the video entry
      * @return - {@link ResponseEntity} with found {@link VideoEntry}
      */
     @RequestMapping(path = "/{videoId}", method = RequestMethod.GET)
-    public ResponseEntity<VideoEntryDto> getVideoById(@PathVariable("videoId") int videoId) {
+    public ResponseEntity<VideoEntryDto> getVideoById(@PathVariable("videoId") int videoId, 
+            WebRequest request) {
         if (videoId < 0) {
             throw new IllegalArgumentException(
                     "Video id should be greater than 0," + " but have:" + videoId);
         }
+        if (ConditionalGet.isNotModified(request, videoService.getVersionById(videoId))) {
+            return new ResponseEntity<VideoEntryDto>(HttpStatus.NOT_MODIFIED);
+        }
         VideoEntry video = videoService.getById(videoId);
         return new ResponseEntity<VideoEntryDto>(videoDtoAsm.toResource(video), HttpStatus.OK);
     }
@@ -134,6 +161,36 @@ public class VideoEntryController {
         return new ResponseEntity<VideoEntryDto>(videoDtoAsm.toResource(video), HttpStatus.OK);
     }
 
+    /**
+     * Change {@link VideoEntry} with JSON Merge Patch: only fields given in the request are 
+     * changed and only changed columns are written. The request should have the {@code If-Match} 
+     * header with the ETag of the video entry, the change fails with 412 status if it was changed 
+     * since.
+     * 
+     * @param videoPatch - the {@link VideoEntryDto} with changed fields only
+     * @param videoId - the ID of the {@link VideoEntry} to be changed
+     * @param request - current request with the {@code If-Match} header
+     * @return {@link VideoEntryDto} of changed {@link VideoEntry} with its new ETag 
+     *      or 428 status if there is no {@code If-Match} header
+     */
+    @RequestMapping(path = "/{videoId}", method = RequestMethod.PATCH,
+            consumes = {R.MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<VideoEntryDto> patchVideoById(@RequestBody VideoEntryDto videoPatch, 
+            @PathVariable("videoId") int videoId, WebRequest request) {
+        if (videoPatch == null) {
+            throw new IllegalArgumentException("Video patch should not be null");
+        }
+        Integer version = ConditionalUpdate.getExpectedVersion(request, videoId);
+        if (version == null) {
+            return new ResponseEntity<VideoEntryDto>(HttpStatus.PRECONDITION_REQUIRED);
+        }
+        videoPatch.setVideoEntryId(videoId);
+        VideoEntry video = videoService.patch(videoId, version, videoPatch::overwriteEntity);
+        return new ResponseEntity<VideoEntryDto>(videoDtoAsm.toResource(video), 
+                ConditionalUpdate.versionHeaders(videoService.getVersionById(videoId)), 
+                HttpStatus.OK);
+    }
+
     /**
      * Delete {@link VideoEntry} from the persistent context.
      * 
@@ -31,7 +31,6 @@ import org.springframework.hateoas.ResourceSupport;
 
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
-import tk.serjmusic.models.User;
 
 import java.util.Date;
 
@@ -46,11 +45,12 @@ public class BlogCommentDto extends ResourceSupport {
     private int commentId;
     private String content;
     private Date dateCreated;
-    private UserDto author;
+    private UserSummaryDto author;
     private BlogEntryDto blogEntry;
     
     /**
-     * Overwrite non null fields of JPA entity with an information from DTO.
+     * Overwrite non null fields of JPA entity with an information from DTO. The author is 
+     * never taken from DTO, it is assigned from the authenticated user.
      * 
      * @param blogComment - entity to be overwritten
      * @return overwritten entity
@@ -65,9 +65,6 @@ public class BlogCommentDto extends ResourceSupport {
         if (dateCreated != null) {
             blogComment.setDateCreated(dateCreated);
         }
-        if (author != null) {
-            blogComment.setAuthor(author.overwriteEntity(new User()));
-        }
         if (blogEntry != null) {
             blogComment.setBlogEntry(
                     blogEntry.overwriteEntity(new BlogEntry()));
@@ -134,7 +131,7 @@ public class BlogCommentDto extends ResourceSupport {
      *
      * @return the author
      */
-    public UserDto getAuthor() {
+    public UserSummaryDto getAuthor() {
         return author;
     }
     
@@ -143,7 +140,7 @@ public class BlogCommentDto extends ResourceSupport {
      *
      * @param author the author to set
      */
-    public void setAuthor(UserDto author) {
+    public void setAuthor(UserSummaryDto author) {
         this.author = author;
     }
     
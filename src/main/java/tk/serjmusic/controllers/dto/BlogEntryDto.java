@@ -30,7 +30,7 @@ package tk.serjmusic.controllers.dto;
 import org.springframework.hateoas.ResourceSupport;
 
 import tk.serjmusic.models.BlogEntry;
-import tk.serjmusic.models.User;
+import tk.serjmusic.models.ContentFormat;
 import tk.serjmusic.utils.logging.Loggable;
 
 import java.util.Date;
@@ -46,12 +46,18 @@ public class BlogEntryDto extends ResourceSupport {
     private int blogId;
     private String title;
     private String content;
+    private ContentFormat contentFormat;
+    private String renderedHtml;
+    private String excerpt;
     private String imageLink;
     private Date dateCreated;
-    private UserDto author;
+    private int commentCount;
+    private Date lastCommentAt;
+    private UserSummaryDto author;
     
     /**
-     * Overwrite non null fields of JPA entity with an information from DTO.
+     * Overwrite non null fields of JPA entity with an information from DTO. The author is 
+     * never taken from DTO, it is assigned from the authenticated user.
      * 
      * @param blogEntry - entity to be overwritten
      * @return overwritten entity
@@ -67,15 +73,16 @@ public class BlogEntryDto extends ResourceSupport {
         if (content != null) {
             blogEntry.setContent(content);
         }
+        if (contentFormat != null) {
+            blogEntry.setContentFormat(contentFormat);
+        }
+        // The rendered HTML is never taken from clients, it is rendered by the service
         if (imageLink != null) {
             blogEntry.setImageLink(imageLink);
         }
         if (dateCreated != null) {
             blogEntry.setDateCreated(dateCreated);
         }
-        if (author != null) {
-            blogEntry.setAuthor(author.overwriteEntity(new User()));
-        }
         return blogEntry;
     }
     
@@ -133,6 +140,40 @@ public class BlogEntryDto extends ResourceSupport {
         this.content = content;
     }
     
+    public ContentFormat getContentFormat() {
+        return contentFormat;
+    }
+    
+    public void setContentFormat(ContentFormat contentFormat) {
+        this.contentFormat = contentFormat;
+    }
+    
+    public String getRenderedHtml() {
+        return renderedHtml;
+    }
+    
+    public void setRenderedHtml(String renderedHtml) {
+        this.renderedHtml = renderedHtml;
+    }
+    
+    /**
+     * Blog excerpt getter. The excerpt is read only, it is derived from the content.
+     * 
+     * @return the excerpt
+     */
+    public String getExcerpt() {
+        return excerpt;
+    }
+    
+    /**
+     * Blog excerpt setter.
+     * 
+     * @param excerpt the excerpt to set
+     */
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+    
     /**
      * Blog image link getter.
      * 
@@ -169,12 +210,48 @@ public class BlogEntryDto extends ResourceSupport {
         this.dateCreated = dateCreated;
     }
     
+    /**
+     * Comment count getter. The count is read only, it is maintained by the server.
+     * 
+     * @return the commentCount
+     */
+    public int getCommentCount() {
+        return commentCount;
+    }
+    
+    /**
+     * Comment count setter.
+     * 
+     * @param commentCount the commentCount to set
+     */
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+    
+    /**
+     * Last comment date getter. The date is read only, it is maintained by the server.
+     * 
+     * @return the lastCommentAt
+     */
+    public Date getLastCommentAt() {
+        return lastCommentAt;
+    }
+    
+    /**
+     * Last comment date setter.
+     * 
+     * @param lastCommentAt the lastCommentAt to set
+     */
+    public void setLastCommentAt(Date lastCommentAt) {
+        this.lastCommentAt = lastCommentAt;
+    }
+    
     /**
      * Author getter.
      * 
      * @return the author
      */
-    public UserDto getAuthor() {
+    public UserSummaryDto getAuthor() {
         return author;
     }
     
@@ -183,7 +260,7 @@ public class BlogEntryDto extends ResourceSupport {
      * 
      * @param author the author to set
      */
-    public void setAuthor(UserDto author) {
+    public void setAuthor(UserSummaryDto author) {
         this.author = author;
     }
 
@@ -196,9 +273,14 @@ public class BlogEntryDto extends ResourceSupport {
         int result = super.hashCode();
         result = prime * result + ((author == null) ? 0 : author.hashCode());
         result = prime * result + blogId;
+        result = prime * result + commentCount;
         result = prime * result + ((content == null) ? 0 : content.hashCode());
+        result = prime * result + ((contentFormat == null) ? 0 : contentFormat.hashCode());
         result = prime * result + ((dateCreated == null) ? 0 : dateCreated.hashCode());
+        result = prime * result + ((excerpt == null) ? 0 : excerpt.hashCode());
         result = prime * result + ((imageLink == null) ? 0 : imageLink.hashCode());
+        result = prime * result + ((lastCommentAt == null) ? 0 : lastCommentAt.hashCode());
+        result = prime * result + ((renderedHtml == null) ? 0 : renderedHtml.hashCode());
         result = prime * result + ((title == null) ? 0 : title.hashCode());
         return result;
     }
@@ -228,6 +310,9 @@ public class BlogEntryDto extends ResourceSupport {
         if (blogId != other.blogId) {
             return false;
         }
+        if (commentCount != other.commentCount) {
+            return false;
+        }
         if (content == null) {
             if (other.content != null) {
                 return false;
@@ -235,6 +320,9 @@ public class BlogEntryDto extends ResourceSupport {
         } else if (!content.equals(other.content)) {
             return false;
         }
+        if (contentFormat != other.contentFormat) {
+            return false;
+        }
         if (dateCreated == null) {
             if (other.dateCreated != null) {
                 return false;
@@ -242,6 +330,13 @@ public class BlogEntryDto extends ResourceSupport {
         } else if (!dateCreated.equals(other.dateCreated)) {
             return false;
         }
+        if (excerpt == null) {
+            if (other.excerpt != null) {
+                return false;
+            }
+        } else if (!excerpt.equals(other.excerpt)) {
+            return false;
+        }
         if (imageLink == null) {
             if (other.imageLink != null) {
                 return false;
@@ -249,6 +344,20 @@ public class BlogEntryDto extends ResourceSupport {
         } else if (!imageLink.equals(other.imageLink)) {
             return false;
         }
+        if (lastCommentAt == null) {
+            if (other.lastCommentAt != null) {
+                return false;
+            }
+        } else if (!lastCommentAt.equals(other.lastCommentAt)) {
+            return false;
+        }
+        if (renderedHtml == null) {
+            if (other.renderedHtml != null) {
+                return false;
+            }
+        } else if (!renderedHtml.equals(other.renderedHtml)) {
+            return false;
+        }
         if (title == null) {
             if (other.title != null) {
                 return false;
@@ -265,7 +374,9 @@ public class BlogEntryDto extends ResourceSupport {
     @Override
     public String toString() {
         return "BlogEntryDto [blogId=" + blogId + ", title=" + title + ", content=" + content
-                + ", imageLink=" + imageLink + ", dateCreated=" + dateCreated 
+                + ", contentFormat=" + contentFormat + ", renderedHtml=" + renderedHtml
+                + ", excerpt=" + excerpt + ", imageLink=" + imageLink + ", dateCreated=" + dateCreated 
+                + ", commentCount=" + commentCount + ", lastCommentAt=" + lastCommentAt 
                 + ", author=" + author + "]";
     }
 }
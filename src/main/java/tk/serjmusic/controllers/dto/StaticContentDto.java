@@ -29,6 +29,7 @@ package tk.serjmusic.controllers.dto;
 
 import org.springframework.hateoas.ResourceSupport;
 
+import tk.serjmusic.models.ContentFormat;
 import tk.serjmusic.models.StaticContent;
 
 /**
@@ -42,6 +43,8 @@ public class StaticContentDto extends ResourceSupport {
     private String contentDescription;
     private String language;
     private String content;
+    private ContentFormat contentFormat;
+    private String renderedHtml;
     
     /**
      * Overwrite non null fields of JPA entity with an information from DTO.
@@ -62,6 +65,10 @@ public class StaticContentDto extends ResourceSupport {
         if (content != null) {
             staticContent.setContent(content);
         }
+        if (contentFormat != null) {
+            staticContent.setContentFormat(contentFormat);
+        }
+        // The rendered HTML is never taken from clients, it is rendered by the service
         return staticContent;
     }
     
@@ -137,6 +144,42 @@ public class StaticContentDto extends ResourceSupport {
         this.content = content;
     }
 
+    /**
+     * Getter for StaticContentDto contentFormat.
+     *
+     * @return the contentFormat
+     */
+    public ContentFormat getContentFormat() {
+        return contentFormat;
+    }
+
+    /**
+     * Setter for StaticContentDto contentFormat.
+     *
+     * @param contentFormat the contentFormat to set
+     */
+    public void setContentFormat(ContentFormat contentFormat) {
+        this.contentFormat = contentFormat;
+    }
+
+    /**
+     * Getter for StaticContentDto renderedHtml.
+     *
+     * @return the renderedHtml
+     */
+    public String getRenderedHtml() {
+        return renderedHtml;
+    }
+
+    /**
+     * Setter for StaticContentDto renderedHtml.
+     *
+     * @param renderedHtml the renderedHtml to set
+     */
+    public void setRenderedHtml(String renderedHtml) {
+        this.renderedHtml = renderedHtml;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
      */
@@ -145,9 +188,11 @@ public class StaticContentDto extends ResourceSupport {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((content == null) ? 0 : content.hashCode());
+        result = prime * result + ((contentFormat == null) ? 0 : contentFormat.hashCode());
         result = prime * result
                 + ((contentDescription == null) ? 0 : contentDescription.hashCode());
         result = prime * result + ((language == null) ? 0 : language.hashCode());
+        result = prime * result + ((renderedHtml == null) ? 0 : renderedHtml.hashCode());
         result = prime * result + staticContentId;
         return result;
     }
@@ -174,6 +219,9 @@ public class StaticContentDto extends ResourceSupport {
         } else if (!content.equals(other.content)) {
             return false;
         }
+        if (contentFormat != other.contentFormat) {
+            return false;
+        }
         if (contentDescription == null) {
             if (other.contentDescription != null) {
                 return false;
@@ -188,6 +236,13 @@ public class StaticContentDto extends ResourceSupport {
         } else if (!language.equals(other.language)) {
             return false;
         }
+        if (renderedHtml == null) {
+            if (other.renderedHtml != null) {
+                return false;
+            }
+        } else if (!renderedHtml.equals(other.renderedHtml)) {
+            return false;
+        }
         if (staticContentId != other.staticContentId) {
             return false;
         }
@@ -200,6 +255,7 @@ public class StaticContentDto extends ResourceSupport {
     @Override
     public String toString() {
         return "StaticContentDto [staticContentId=" + staticContentId + ", contentDescription="
-                + contentDescription + ", language=" + language + ", content=" + content + "]";
+                + contentDescription + ", language=" + language + ", content=" + content 
+                + ", contentFormat=" + contentFormat + ", renderedHtml=" + renderedHtml + "]";
     }
 }
@@ -78,9 +78,7 @@ public class UserDto extends ResourceSupport {
         if (imageLink != null) {
             user.setImageLink(imageLink);
         }
-        if (imageFile != null) {
-            user.setImageFile(imageFile);
-        }
+        // Uploaded image file is stored with the avatar service, not with the entity
         return user;
     }
     
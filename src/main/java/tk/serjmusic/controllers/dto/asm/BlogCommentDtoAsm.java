@@ -44,7 +44,7 @@ import tk.serjmusic.models.BlogComment;
  */
 public class BlogCommentDtoAsm extends ResourceAssemblerSupport<BlogComment, BlogCommentDto> {
     
-    private static final UserDtoAsm userDtoAsm = new UserDtoAsm();
+    private static final UserSummaryDtoAsm userSummaryDtoAsm = new UserSummaryDtoAsm();
     private static final BlogEntryDtoAsm blogDtoAsm = new BlogEntryDtoAsm();
     
     public BlogCommentDtoAsm() {
@@ -57,8 +57,8 @@ public class BlogCommentDtoAsm extends ResourceAssemblerSupport<BlogComment, Blo
     @Override
     public BlogCommentDto toResource(BlogComment comment) {
         BlogCommentDto commentDto = new BlogCommentDto();
-        commentDto.setAuthor(userDtoAsm.toResource(comment.getAuthor()));
-        commentDto.setBlogEntry(blogDtoAsm.toResource(comment.getBlogEntry()));
+        commentDto.setAuthor(userSummaryDtoAsm.toResource(comment.getAuthor()));
+        commentDto.setBlogEntry(blogDtoAsm.toSummaryResource(comment.getBlogEntry()));
         commentDto.setContent(comment.getContent());
         commentDto.setDateCreated(comment.getDateCreated());
         commentDto.setCommentId(comment.getId());
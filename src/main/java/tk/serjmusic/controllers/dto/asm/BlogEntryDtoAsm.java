@@ -36,6 +36,10 @@ import tk.serjmusic.controllers.BlogCommentController;
 import tk.serjmusic.controllers.BlogEntryController;
 import tk.serjmusic.controllers.dto.BlogEntryDto;
 import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.projections.BlogEntrySummary;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * DTO assembler for {@link BlogEntry} entity.
@@ -44,7 +48,7 @@ import tk.serjmusic.models.BlogEntry;
  */
 public class BlogEntryDtoAsm extends ResourceAssemblerSupport<BlogEntry, BlogEntryDto> {
     
-    private static final UserDtoAsm userDtoAsm = new UserDtoAsm();
+    private static final UserSummaryDtoAsm userSummaryDtoAsm = new UserSummaryDtoAsm();
 
     public BlogEntryDtoAsm() {
         super(BlogCommentController.class, BlogEntryDto.class);
@@ -55,21 +59,76 @@ public class BlogEntryDtoAsm extends ResourceAssemblerSupport<BlogEntry, BlogEnt
      */
     @Override
     public BlogEntryDto toResource(BlogEntry blogEntry) {
+        BlogEntryDto blogEntryDto = toSummaryResource(blogEntry);
+        blogEntryDto.setContent(blogEntry.getContent());
+        blogEntryDto.setRenderedHtml(blogEntry.getRenderedHtml());
+        return blogEntryDto;
+    }
+
+    /**
+     * Convert the blog entry to {@link BlogEntryDto} without content, e.g. to be nested in 
+     * comments.
+     * 
+     * @param blogEntry - the blog entry
+     * @return DTO with the excerpt instead of the content
+     */
+    public BlogEntryDto toSummaryResource(BlogEntry blogEntry) {
         BlogEntryDto blogEntryDto = new BlogEntryDto();
-        blogEntryDto.setAuthor(userDtoAsm.toResource(blogEntry.getAuthor()));
+        blogEntryDto.setAuthor(userSummaryDtoAsm.toResource(blogEntry.getAuthor()));
         blogEntryDto.setBlogId(blogEntry.getId());
-        blogEntryDto.setContent(blogEntry.getContent());
+        blogEntryDto.setContentFormat(blogEntry.getContentFormat());
+        blogEntryDto.setExcerpt(blogEntry.getExcerpt());
         blogEntryDto.setDateCreated(blogEntry.getDateCreated());
+        blogEntryDto.setCommentCount(blogEntry.getCommentCount());
+        blogEntryDto.setLastCommentAt(blogEntry.getLastCommentAt());
         blogEntryDto.setImageLink(blogEntry.getImageLink());
         blogEntryDto.setTitle(blogEntry.getTitle());
-        Link self = linkTo(BlogEntryController.class).slash(blogEntry.getId()).withSelfRel();
+        addLinks(blogEntryDto, blogEntry.getId());
+        return blogEntryDto;
+    }
+
+    /**
+     * Convert the listing projection to {@link BlogEntryDto} without content.
+     * 
+     * @param summary - the listing projection of blog entry
+     * @return DTO with the excerpt instead of the content
+     */
+    public BlogEntryDto toSummaryResource(BlogEntrySummary summary) {
+        BlogEntryDto blogEntryDto = new BlogEntryDto();
+        blogEntryDto.setAuthor(userSummaryDtoAsm.toResource(summary.getAuthorId(), 
+                summary.getAuthorUsername(), summary.getAuthorImageLink(), 
+                summary.getAuthorAvatarHash()));
+        blogEntryDto.setBlogId(summary.getId());
+        blogEntryDto.setExcerpt(summary.getExcerpt());
+        blogEntryDto.setDateCreated(summary.getDateCreated());
+        blogEntryDto.setCommentCount(summary.getCommentCount());
+        blogEntryDto.setLastCommentAt(summary.getLastCommentAt());
+        blogEntryDto.setImageLink(summary.getImageLink());
+        blogEntryDto.setTitle(summary.getTitle());
+        addLinks(blogEntryDto, summary.getId());
+        return blogEntryDto;
+    }
+
+    /**
+     * Convert the listing projections to list of {@link BlogEntryDto} without content.
+     * 
+     * @param summaries - the listing projections of blog entries
+     * @return list of DTOs
+     */
+    public List<BlogEntryDto> toSummaryResources(List<BlogEntrySummary> summaries) {
+        List<BlogEntryDto> result = new ArrayList<>(summaries.size());
+        summaries.forEach(summary -> result.add(toSummaryResource(summary)));
+        return result;
+    }
+
+    private void addLinks(BlogEntryDto blogEntryDto, int blogId) {
+        Link self = linkTo(BlogEntryController.class).slash(blogId).withSelfRel();
         Link allBlogEntries = linkTo(BlogEntryController.class).withRel("blogEntries");
         Link comments = linkTo(BlogEntryController.class)
-                .slash(blogEntry.getId())
+                .slash(blogId)
                 .slash("comments")
                 .withRel("comments");
         blogEntryDto.add(self, allBlogEntries, comments);
-        return blogEntryDto;
     }
 
 }
@@ -0,0 +1,96 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers.dto.asm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import tk.serjmusic.utils.cache.JsonFragmentCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Assembler of JSON list responses from the fragments of {@link JsonFragmentCache}. DTOs are 
+ * built and serialized only for entities without a fragment of the listed version. Fragments 
+ * are serialized with the same defaults as the MVC message converter uses.
+ *
+ * @author Roman Kondakov
+ */
+public class JsonFragmentAsm {
+
+    private static final ObjectWriter jsonWriter = 
+            Jackson2ObjectMapperBuilder.json().build().writer();
+
+    private JsonFragmentAsm() {
+        
+    }
+
+    /**
+     * Assemble the JSON array of DTOs. Fragments are reused while the version of the source 
+     * is the same, so it must change with everything the DTO shows, e.g. with the author of a 
+     * blog entry. Links of DTOs are absolute, so fragments are bound to the base URI of the 
+     * request as well.
+     *
+     * @param fragmentCache cache of fragments
+     * @param entityType type of listed entities
+     * @param sources listed entities or their projections
+     * @param idOf ID of the source
+     * @param versionOf version of the listed state of the source
+     * @param toResource assembler of the source DTO
+     * @return JSON array
+     */
+    public static <S> byte[] toJsonArray(JsonFragmentCache fragmentCache, Class<?> entityType, 
+            List<S> sources, ToIntFunction<S> idOf, ToLongFunction<S> versionOf, 
+            Function<S, ?> toResource) {
+        String baseUri = ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+        List<byte[]> fragments = new ArrayList<>(sources.size());
+        for (S source : sources) {
+            fragments.add(fragmentCache.get(entityType, idOf.applyAsInt(source), 
+                    versionOf.applyAsLong(source), baseUri, 
+                    () -> toJson(toResource.apply(source))));
+        }
+        return JsonFragmentCache.toJsonArray(fragments);
+    }
+
+    private static byte[] toJson(Object dto) {
+        try {
+            return jsonWriter.writeValueAsBytes(dto);
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " 
+                    + ex.getMessage(), ex);
+        }
+    }
+}
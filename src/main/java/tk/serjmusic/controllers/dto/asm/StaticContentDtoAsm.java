@@ -55,6 +55,8 @@ public class StaticContentDtoAsm
     public StaticContentDto toResource(StaticContent staticContent) {
         StaticContentDto staticContentDto = new StaticContentDto();
         staticContentDto.setContent(staticContent.getContent());
+        staticContentDto.setContentFormat(staticContent.getContentFormat());
+        staticContentDto.setRenderedHtml(staticContent.getRenderedHtml());
         staticContentDto.setContentDescription(staticContent.getContentDescription());
         staticContentDto.setLanguage(staticContent.getLanguage());
         staticContentDto.setStaticContentId(staticContent.getId());
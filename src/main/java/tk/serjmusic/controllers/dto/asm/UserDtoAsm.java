@@ -61,8 +61,7 @@ public class UserDtoAsm extends ResourceAssemblerSupport<User, UserDto> {
         userDto.setPassword(user.getPassword());
         userDto.setEmail(user.getEmail());
         userDto.setBanned(user.isBanned());
-        userDto.setImageLink(user.getImageLink());
-        userDto.setImageFile(user.getImageFile());
+        userDto.setImageLink(imageLinkFor(user));
         Set<String> roles = new HashSet<>();
         user.getRoles().forEach(role -> roles.add(role.toString()));
         userDto.setRoles(roles);
@@ -73,4 +72,31 @@ public class UserDtoAsm extends ResourceAssemblerSupport<User, UserDto> {
         return userDto;
     }
 
+    /**
+     * Get the avatar link for the user. Stored avatars are linked with their hash as a version, 
+     * so the link changes with the avatar and clients may cache the image forever.
+     * 
+     * @param user - the user
+     * @return the avatar link
+     */
+    static String imageLinkFor(User user) {
+        return imageLinkFor(user.getId(), user.getAvatarHash(), user.getImageLink());
+    }
+
+    /**
+     * Get the avatar link for the user selected as separate columns.
+     * 
+     * @param userId - the user ID
+     * @param avatarHash - the hash of stored avatar or null
+     * @param imageLink - the external image link
+     * @return the avatar link
+     */
+    static String imageLinkFor(int userId, String avatarHash, String imageLink) {
+        if (avatarHash != null) {
+            return linkTo(UsersController.class).slash(userId)
+                    .slash("avatar").toUri().toString() + "?v=" + avatarHash;
+        }
+        return imageLink;
+    }
+
 }
@@ -0,0 +1,78 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers.dto.asm;
+
+import tk.serjmusic.controllers.dto.UserSummaryDto;
+import tk.serjmusic.models.User;
+
+/**
+ * DTO assembler for the compact {@link UserSummaryDto} representation of {@link User} entity.
+ *
+ * @author Roman Kondakov
+ */
+public class UserSummaryDtoAsm {
+
+    /**
+     * Convert {@link User} entity to the {@link UserSummaryDto}.
+     * 
+     * @param user - the user to be converted
+     * @return summary DTO or null if user is null
+     */
+    public UserSummaryDto toResource(User user) {
+        if (user == null) {
+            return null;
+        }
+        UserSummaryDto summaryDto = new UserSummaryDto();
+        summaryDto.setUserId(user.getId());
+        summaryDto.setUsername(user.getUsername());
+        summaryDto.setImageLink(UserDtoAsm.imageLinkFor(user));
+        return summaryDto;
+    }
+
+    /**
+     * Build {@link UserSummaryDto} from the user columns selected by a projection query.
+     * 
+     * @param userId - the user ID or null if there is no user
+     * @param username - the username
+     * @param imageLink - the external image link
+     * @param avatarHash - the hash of stored avatar or null
+     * @return summary DTO or null if userId is null
+     */
+    public UserSummaryDto toResource(Integer userId, String username, String imageLink, 
+            String avatarHash) {
+        if (userId == null) {
+            return null;
+        }
+        UserSummaryDto summaryDto = new UserSummaryDto();
+        summaryDto.setUserId(userId);
+        summaryDto.setUsername(username);
+        summaryDto.setImageLink(UserDtoAsm.imageLinkFor(userId, avatarHash, imageLink));
+        return summaryDto;
+    }
+
+}
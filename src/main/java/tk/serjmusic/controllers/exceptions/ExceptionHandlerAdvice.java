@@ -28,6 +28,7 @@
 package tk.serjmusic.controllers.exceptions;
 
 import org.apache.log4j.Logger;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +38,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import tk.serjmusic.services.exceptions.AlreadyExistsException;
 import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.services.exceptions.StaleVersionException;
 
 /**
  * The exception handler for controllers.
@@ -93,6 +95,33 @@ public class ExceptionHandlerAdvice {
                 HttpStatus.CONFLICT);
     }
     
+    /**
+     * Handler for {@link StaleVersionException}.
+     * 
+     * @param ex StaleVersionException
+     * @return PRECONDITION_FAILED status
+     */
+    @ExceptionHandler
+    public ResponseEntity<String> handleException(StaleVersionException ex) {
+        logger.info("Entity version doesn't match ", ex);
+        return new ResponseEntity<String>(toErrorMessage(ex), responseHeaders,
+                HttpStatus.PRECONDITION_FAILED);
+    }
+    
+    /**
+     * Handler for {@link OptimisticLockingFailureException}, which occurs on commit when the
+     * entity was changed by a concurrent transaction.
+     * 
+     * @param ex OptimisticLockingFailureException
+     * @return CONFLICT status
+     */
+    @ExceptionHandler
+    public ResponseEntity<String> handleException(OptimisticLockingFailureException ex) {
+        logger.info("Entity is changed concurrently ", ex);
+        return new ResponseEntity<String>(toErrorMessage(ex), responseHeaders,
+                HttpStatus.CONFLICT);
+    }
+    
     /**
      * Handler for {@link PersistentLayerProblemsException}.
      * 
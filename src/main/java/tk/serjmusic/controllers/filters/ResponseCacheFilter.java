@@ -0,0 +1,372 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers.filters;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import tk.serjmusic.utils.R;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Cache of serialized JSON responses to anonymous GET requests of blogs, photos, videos and 
+ * static pages. It stands before the security filter chain, so a cached response is written 
+ * without the security checks, the transaction, DTO assembly and serialization. Responses 
+ * are kept in the {@value R#RESPONSE_CACHE_REGION} region with bounded heap size, large ones 
+ * are gzipped once when they are cached.
+ * 
+ * <p>Responses of a resource are cached under its current generation. A successful POST, PUT,
+ * PATCH or DELETE of the resource, or of the resource shown with it {@literal (e.g. comments and 
+ * authors of blogs)}, starts a new generation after the response is done, i.e. after the 
+ * commit. Responses read before that are cached under the old generation and never used.
+ * 
+ * <p>A cached response is answered with 304 if the {@code If-None-Match} header of the 
+ * request has its ETag. The gzipped body is a different representation, so it is served with 
+ * its own ETag which has the {@value #GZIP_ETAG_SUFFIX} suffix.
+ * 
+ * <p>Requests with credentials or with a session are passed through, as well as event 
+ * streams and other methods than GET and the write ones. The filter is disabled if there is 
+ * no {@value R#RESPONSE_CACHE_REGION} region.
+ *
+ * @author Roman Kondakov
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String RESOURCES_PATH = "/api/v1/resources/";
+    private static final String BLOGS = "blogs";
+    private static final Set<String> CACHED_RESOURCES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(BLOGS, "photo", "video", "static")));
+    private static final Set<String> NOT_CACHED_HEADERS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("content-type", "content-length", "content-encoding", 
+                    "transfer-encoding", "date")));
+    private static final Set<String> WRITE_METHODS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("POST", "PUT", "PATCH", "DELETE")));
+    private static final String EVENT_STREAM = "text/event-stream";
+    private static final String GZIP = "gzip";
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private Ehcache cache;
+
+    public ResponseCacheFilter() {
+        
+    }
+
+    ResponseCacheFilter(Ehcache cache) {
+        this.cache = cache;
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.web.filter.GenericFilterBean#initFilterBean()
+     */
+    @Override
+    protected void initFilterBean() throws ServletException {
+        // The cache manager is started by the root application context before filters
+        CacheManager cacheManager = CacheManager.getCacheManager(R.CACHE_MANAGER_NAME);
+        cache = (cacheManager == null) ? null 
+                : cacheManager.getEhcache(R.RESPONSE_CACHE_REGION);
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.web.filter.OncePerRequestFilter#doFilterInternal(
+     * javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, 
+     * javax.servlet.FilterChain)
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        String resource = resourceOf(request);
+        if ((cache == null) || (resource == null)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            String invalidated = invalidatedResource(resource, request.getMethod());
+            if ((invalidated != null) && (response.getStatus() >= 200) 
+                    && (response.getStatus() < 300)) {
+                generation(invalidated).incrementAndGet();
+            }
+            return;
+        }
+        // HEAD and OPTIONS are answered to anyone, so they are passed through and don't start 
+        // new generations
+        if (!"GET".equals(request.getMethod()) 
+                || !CACHED_RESOURCES.contains(resource) || !isAnonymous(request) 
+                || isEventStream(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = resource + ":" + generation(resource).get() + ":" + request.getRequestURI() 
+                + "?" + request.getQueryString() + ":" 
+                + request.getHeader(HttpHeaders.ACCEPT_LANGUAGE);
+        Element element = cache.get(key);
+        if (element != null) {
+            CachedResponse cached = (CachedResponse) element.getObjectValue();
+            if (cached.isNotModified(request)) {
+                cached.writeHeaders(request, response, HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            cached.writeHeaders(request, response, HttpServletResponse.SC_OK);
+            cached.writeBody(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        CachedResponse cached = request.isAsyncStarted() ? null : CachedResponse.of(wrapper);
+        if (cached == null) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        cache.put(new Element(key, cached));
+        // Headers are already set on the response, only the body is buffered
+        cached.writeBody(request, response);
+    }
+
+    /**
+     * Get the resource of the request, e.g. {@code blogs} for 
+     * {@code /api/v1/resources/blogs/1/comments}.
+     * 
+     * @param request HTTP request
+     * @return resource name or {@code null} if it is not a resource request
+     */
+    private static String resourceOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(RESOURCES_PATH)) {
+            return null;
+        }
+        int end = path.indexOf('/', RESOURCES_PATH.length());
+        return path.substring(RESOURCES_PATH.length(), (end < 0) ? path.length() : end);
+    }
+
+    /**
+     * Get the cached resource which responses are changed by a write request.
+     * 
+     * @param resource written resource
+     * @param method request method
+     * @return cached resource or {@code null} if cached responses are not changed
+     */
+    private static String invalidatedResource(String resource, String method) {
+        switch (resource) {
+            case "comments":
+                return BLOGS;
+            case "users":
+                // New users are not shown with blogs, changed and removed ones are
+                return "POST".equals(method) ? null : BLOGS;
+            default:
+                return CACHED_RESOURCES.contains(resource) ? resource : null;
+        }
+    }
+
+    private AtomicLong generation(String resource) {
+        return generations.computeIfAbsent(resource, name -> new AtomicLong());
+    }
+
+    private static boolean isAnonymous(HttpServletRequest request) {
+        return (request.getHeader(HttpHeaders.AUTHORIZATION) == null) 
+                && (request.getRequestedSessionId() == null);
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.getRequestURI().endsWith("/stream") || ((accept != null) 
+                && accept.contains(EVENT_STREAM));
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split("\\s*;\\s*");
+            if (GZIP.equalsIgnoreCase(parameters[0])) {
+                return (parameters.length == 1) || !parameters[1].matches("[qQ]=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Successful JSON response with its headers and the body, the body is gzipped as well if 
+     * it is large enough.
+     */
+    private static final class CachedResponse implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String contentType;
+        private final LinkedHashMap<String, ArrayList<String>> headers;
+        private final String etag;
+        private final String gzippedEtag;
+        private final byte[] body;
+        private final byte[] gzippedBody;
+
+        private CachedResponse(String contentType, LinkedHashMap<String, ArrayList<String>> headers,
+                String etag, byte[] body, byte[] gzippedBody) {
+            this.contentType = contentType;
+            this.headers = headers;
+            this.etag = etag;
+            this.gzippedEtag = ((etag == null) || (gzippedBody == null)) ? null 
+                    : gzippedEtag(etag);
+            this.body = body;
+            this.gzippedBody = gzippedBody;
+        }
+
+        /**
+         * Get the cacheable copy of the response.
+         * 
+         * @param response finished response
+         * @return copy of the response or {@code null} if it must not be cached
+         */
+        private static CachedResponse of(ContentCachingResponseWrapper response) 
+                throws IOException {
+            String contentType = response.getContentType();
+            if ((response.getStatusCode() != HttpServletResponse.SC_OK) || (contentType == null) 
+                    || !contentType.startsWith(MediaType.APPLICATION_JSON_VALUE) 
+                    || response.containsHeader(HttpHeaders.SET_COOKIE)) {
+                return null;
+            }
+            LinkedHashMap<String, ArrayList<String>> headers = new LinkedHashMap<>();
+            for (String name : response.getHeaderNames()) {
+                if (!NOT_CACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.putIfAbsent(name, new ArrayList<>(response.getHeaders(name)));
+                }
+            }
+            byte[] body = response.getContentAsByteArray();
+            byte[] gzippedBody = null;
+            if (body.length >= GZIP_MIN_SIZE) {
+                ByteArrayOutputStream gzipped = new ByteArrayOutputStream(body.length / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                    gzip.write(body);
+                }
+                gzippedBody = gzipped.toByteArray();
+            }
+            return new CachedResponse(contentType, headers, response.getHeader(HttpHeaders.ETAG), 
+                    body, gzippedBody);
+        }
+
+        /**
+         * Check whether the client has the response, i.e. whether the ETag of the response 
+         * matches the {@code If-None-Match} header of the request.
+         * 
+         * @param request HTTP request
+         * @return {@code true} if the response is not modified
+         */
+        private boolean isNotModified(HttpServletRequest request) {
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if ((etag == null) || (ifNoneMatch == null)) {
+                return false;
+            }
+            String selected = selectedEtag(request);
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                // Comparison of If-None-Match is weak
+                if (tag.equals("*") || tag.equals(selected) || tag.equals("W/" + selected)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the ETag of the representation which is served to the request.
+         */
+        private String selectedEtag(HttpServletRequest request) {
+            return ((gzippedEtag != null) && acceptsGzip(request)) ? gzippedEtag : etag;
+        }
+
+        private void writeHeaders(HttpServletRequest request, HttpServletResponse response, 
+                int status) {
+            response.setStatus(status);
+            if (status == HttpServletResponse.SC_OK) {
+                response.setContentType(contentType);
+            } else if (gzippedBody != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            headers.forEach((name, values) -> values.forEach(
+                value -> response.addHeader(name, value)));
+            if (gzippedEtag != null) {
+                response.setHeader(HttpHeaders.ETAG, selectedEtag(request));
+            }
+        }
+
+        private void writeBody(HttpServletRequest request, HttpServletResponse response) 
+                throws IOException {
+            byte[] content = body;
+            if (gzippedBody != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                if (acceptsGzip(request)) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                    if (gzippedEtag != null) {
+                        response.setHeader(HttpHeaders.ETAG, gzippedEtag);
+                    }
+                    content = gzippedBody;
+                }
+            }
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
+        }
+
+        /**
+         * Put the suffix inside the quotes of the strong or weak ETag.
+         */
+        private static String gzippedEtag(String etag) {
+            int end = etag.lastIndexOf('"');
+            return (end > 0) ? etag.substring(0, end) + GZIP_ETAG_SUFFIX + etag.substring(end) 
+                    : etag + GZIP_ETAG_SUFFIX;
+        }
+    }
+}
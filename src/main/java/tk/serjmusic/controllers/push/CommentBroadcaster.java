@@ -0,0 +1,332 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.controllers.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.log4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import tk.serjmusic.controllers.dto.BlogCommentDto;
+import tk.serjmusic.utils.R;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Pushes new blog comments to the subscribed clients with Server-Sent Events. Subscribers are 
+ * held as async requests, so an idle subscriber doesn't occupy a container thread. Each comment
+ * is serialized to JSON once and the same payload is queued to all subscribers of the blog 
+ * entry.
+ * 
+ * <p>Servlet writes block while the client doesn't read, so every subscriber has its own 
+ * bounded queue which is written by a pool of writer threads, one write of a subscriber at 
+ * a time. A subscriber whose queue overflows or whose write lasts longer than 
+ * {@link R#SSE_WRITE_TIMEOUT_MILLIS} is dropped and gets no more events, the client reconnects 
+ * and catches up. The scheduler thread only queues heartbeats and looks for stalled writes.
+ *
+ * @author Roman Kondakov
+ */
+@Component
+public class CommentBroadcaster {
+
+    private static final Logger logger = Logger.getLogger(CommentBroadcaster.class);
+    private static final String COMMENT_EVENT = "comment";
+
+    private final ConcurrentMap<Integer, Set<Subscriber>> subscribers = 
+            new ConcurrentHashMap<>();
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ScheduledExecutorService scheduler = 
+            Executors.newSingleThreadScheduledExecutor(daemonThreads("comment-broadcaster"));
+    private final ExecutorService writers = Executors.newFixedThreadPool(R.SSE_WRITER_THREADS,
+            daemonThreads("comment-broadcaster-writer"));
+
+    /**
+     * Constructor schedules heartbeats which keep idle connections open behind proxies and
+     * release the subscribers which have gone away, and the check of stalled writes.
+     */
+    public CommentBroadcaster() {
+        scheduler.scheduleWithFixedDelay(this::heartbeat, R.SSE_HEARTBEAT_SECONDS, 
+                R.SSE_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::dropStalled, R.SSE_WRITE_TIMEOUT_MILLIS, 
+                R.SSE_WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribe a client to new comments of the blog entry.
+     * 
+     * @param blogId the ID of the blog entry
+     * @return the emitter to be returned from the controller method
+     */
+    public SseEmitter subscribe(int blogId) {
+        SseEmitter emitter = new SseEmitter(R.SSE_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(blogId, emitter);
+        // Added within the map operation, so the set can't be removed by unsubscribe meanwhile
+        subscribers.compute(blogId, (id, blogSubscribers) -> {
+            Set<Subscriber> result = (blogSubscribers != null) ? blogSubscribers 
+                    : Collections.newSetFromMap(new ConcurrentHashMap<Subscriber, Boolean>());
+            result.add(subscriber);
+            return result;
+        });
+        Runnable unsubscribe = () -> unsubscribe(subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        return emitter;
+    }
+
+    /**
+     * Push the comment to all subscribers of its blog entry. Should be called after 
+     * the comment is committed.
+     * 
+     * @param blogId the ID of the blog entry
+     * @param comment the DTO of the new comment
+     * @return the future which is done when the comment is written or dropped for every 
+     *         subscriber
+     */
+    public Future<?> publish(int blogId, BlogCommentDto comment) {
+        String json;
+        try {
+            json = jsonMapper.writeValueAsString(comment);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Can not serialize comment " + comment, ex);
+        }
+        String eventId = String.valueOf(comment.getCommentId());
+        Set<Subscriber> blogSubscribers = subscribers.get(blogId);
+        if (blogSubscribers == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(blogSubscribers.size());
+        for (Subscriber subscriber : blogSubscribers) {
+            // Event builders are not reusable, but building one from the ready JSON is cheap
+            deliveries.add(subscriber.offer(() -> SseEmitter.event()
+                    .id(eventId)
+                    .name(COMMENT_EVENT)
+                    .data(json, MediaType.APPLICATION_JSON)));
+        }
+        return CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Count the subscribers of the blog entry.
+     * 
+     * @param blogId the ID of the blog entry
+     * @return number of subscribers
+     */
+    public int countSubscribers(int blogId) {
+        Set<Subscriber> blogSubscribers = subscribers.get(blogId);
+        return (blogSubscribers == null) ? 0 : blogSubscribers.size();
+    }
+
+    private void heartbeat() {
+        for (Set<Subscriber> blogSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : blogSubscribers) {
+                // Any pending event keeps the connection open as well
+                if (subscriber.isIdle()) {
+                    subscriber.offer(() -> SseEmitter.event().comment(""));
+                }
+            }
+        }
+    }
+
+    private void dropStalled() {
+        long now = System.currentTimeMillis();
+        for (Set<Subscriber> blogSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : blogSubscribers) {
+                if (subscriber.isStalled(now)) {
+                    subscriber.drop(new IOException("Write has timed out"));
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.blogId, (id, blogSubscribers) -> {
+            blogSubscribers.remove(subscriber);
+            return blogSubscribers.isEmpty() ? null : blogSubscribers;
+        });
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Stop the background threads and complete all subscriptions.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        writers.shutdownNow();
+        for (Set<Subscriber> blogSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : blogSubscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * The queue of events of one subscriber. It is drained by one writer task at a time, so 
+     * events are written in order.
+     */
+    private final class Subscriber implements Runnable {
+        private final int blogId;
+        private final SseEmitter emitter;
+        private final Queue<PendingEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        private volatile long writeStartedAt;
+
+        private Subscriber(int blogId, SseEmitter emitter) {
+            this.blogId = blogId;
+            this.emitter = emitter;
+        }
+
+        private CompletableFuture<Void> offer(Supplier<SseEventBuilder> event) {
+            PendingEvent pendingEvent = new PendingEvent(event);
+            if (pendingCount.incrementAndGet() > R.SSE_MAX_PENDING_EVENTS) {
+                pendingCount.decrementAndGet();
+                drop(new IOException("Subscriber doesn't read events"));
+                pendingEvent.done.complete(null);
+                return pendingEvent.done;
+            }
+            pending.add(pendingEvent);
+            if (dropped.get()) {
+                release();
+            } else if (draining.compareAndSet(false, true)) {
+                writers.execute(this);
+            }
+            return pendingEvent.done;
+        }
+
+        @Override
+        public void run() {
+            PendingEvent next;
+            while (!dropped.get() && ((next = pending.poll()) != null)) {
+                pendingCount.decrementAndGet();
+                writeStartedAt = System.currentTimeMillis();
+                try {
+                    emitter.send(next.event.get());
+                } catch (IOException | IllegalStateException ex) {
+                    // The client has gone away or the request is already completed
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Can not push to subscriber of blog " + blogId, ex);
+                    }
+                    drop(ex);
+                } finally {
+                    writeStartedAt = 0;
+                    next.done.complete(null);
+                }
+            }
+            if (dropped.get()) {
+                // The emitter is completed by the writer, it waits for the stalled write
+                emitter.completeWithError(new IOException("Subscriber is dropped"));
+                release();
+                return;
+            }
+            draining.set(false);
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                writers.execute(this);
+            }
+        }
+
+        private boolean isIdle() {
+            return !draining.get() && (pendingCount.get() == 0);
+        }
+
+        private boolean isStalled(long now) {
+            long startedAt = writeStartedAt;
+            return (startedAt != 0) && (now - startedAt > R.SSE_WRITE_TIMEOUT_MILLIS);
+        }
+
+        /**
+         * Stop queueing events to the subscriber. The emitter is completed by the writer task
+         * if it is running, a stalled write holds the emitter lock.
+         */
+        private void drop(Exception reason) {
+            if (!dropped.compareAndSet(false, true)) {
+                return;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Subscriber of blog " + blogId + " is dropped: " 
+                        + reason.getMessage());
+            }
+            unsubscribe(this);
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this);
+            }
+            release();
+        }
+
+        private void release() {
+            PendingEvent next;
+            while ((next = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                next.done.complete(null);
+            }
+        }
+    }
+
+    private static final class PendingEvent {
+        private final Supplier<SseEventBuilder> event;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingEvent(Supplier<SseEventBuilder> event) {
+            this.event = event;
+        }
+    }
+}
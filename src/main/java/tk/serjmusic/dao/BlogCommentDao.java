@@ -28,6 +28,10 @@
 package tk.serjmusic.dao;
 
 import tk.serjmusic.models.BlogComment;
+import tk.serjmusic.models.projections.KeysetChunk;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * DAO interface for {@link BlogComment} entity.
@@ -36,4 +40,28 @@ import tk.serjmusic.models.BlogComment;
  */
 public interface BlogCommentDao extends GenericDao<BlogComment> {
 
+    /**
+     * Get IDs of blog entries the comments belong to.
+     * 
+     * @param commentIds IDs of comments
+     * @return distinct blog entry IDs, empty if there are no such comments
+     */
+    public List<Integer> findBlogIdsByCommentIds(Collection<Integer> commentIds);
+
+    /**
+     * Get IDs of blog entries commented by the users.
+     * 
+     * @param authorIds IDs of comment authors
+     * @return distinct blog entry IDs, empty if the users have no comments
+     */
+    public List<Integer> findBlogIdsByAuthorIds(Collection<Integer> authorIds);
+
+    /**
+     * Compress a chunk of large contents of comments which were stored before the 
+     * compression was introduced. Contents stored later are compressed when they are written.
+     * 
+     * @param afterId the chunk starts after this ID
+     * @return the chunk with the number of compressed comments
+     */
+    public KeysetChunk compressStoredContent(int afterId);
 }
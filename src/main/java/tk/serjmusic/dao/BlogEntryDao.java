@@ -29,7 +29,10 @@ package tk.serjmusic.dao;
 
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.projections.KeysetChunk;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -51,4 +54,62 @@ public interface BlogEntryDao extends GenericDao<BlogEntry> {
     public List<BlogComment> findPaginatedCommentsForBlogId(int blogId, 
             int pageNumber, int pageSize);
 
+    /**
+     * Get comments associated with required blog entry using keyset pagination. Comments are
+     * ordered by ID in the {@link tk.serjmusic.utils.R#DEFAULT_ASC_ID_SORT_ORDER} order.
+     * 
+     * @param blogId required blog entry ID
+     * @param afterId exclusive lower bound of comment IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of comment IDs or {@code null} if not bounded
+     * @param pageSize size of each page
+     * @return list of comments
+     */
+    public List<BlogComment> findSeekCommentsForBlogId(int blogId, Integer afterId,
+            Integer beforeId, int pageSize);
+
+    /**
+     * Account a new comment of the blog entry: increment its comment count and move its last 
+     * comment date forward. The blog entry row stays locked until the end of the transaction,
+     * so concurrent comments are not lost.
+     * 
+     * @param blogId required blog entry ID
+     * @param dateCreated creation date of the new comment
+     * @return {@code false} if there is no such blog entry
+     */
+    public boolean registerNewComment(int blogId, Date dateCreated);
+
+    /**
+     * Recompute comment counts and last comment dates of the blog entries from their comments.
+     * 
+     * @param blogIds IDs of blog entries to be recomputed
+     * @return number of updated blog entries
+     */
+    public int recountComments(Collection<Integer> blogIds);
+
+    /**
+     * Recompute comment counts and last comment dates of all blog entries.
+     * 
+     * @return number of updated blog entries
+     */
+    public int recountAllComments();
+
+    /**
+     * Compress a chunk of large contents of blog entries which were stored before the 
+     * compression was introduced. Contents stored later are compressed when they are written.
+     * 
+     * @param afterId the chunk starts after this ID
+     * @return the chunk with the number of compressed blog entries
+     */
+    public KeysetChunk compressStoredContent(int afterId);
+
+    /**
+     * Find a chunk of blog entries which were stored before the rendering was introduced, 
+     * i.e. have no rendered HTML. The chunk holds at most 
+     * {@link tk.serjmusic.utils.R#CONTENT_RENDERING_BATCH_SIZE} blog entries ordered by ID.
+     * 
+     * @param afterId the chunk starts after this ID
+     * @return blog entries without rendered HTML
+     */
+    public List<BlogEntry> findNotRendered(int afterId);
+
 }
@@ -29,7 +29,9 @@ package tk.serjmusic.dao;
 
 import tk.serjmusic.dao.impl.AbstractGenericDao;
 import tk.serjmusic.models.AbstractEntity;
+import tk.serjmusic.models.projections.EntityVersion;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -72,6 +74,44 @@ public interface GenericDao<T extends AbstractEntity> {
      */
     public void remove(T t);
     
+    /**
+     * Persist new entities. The persistence context is flushed and cleared every 
+     * {@link tk.serjmusic.utils.R#BULK_FLUSH_SIZE} entities, so memory stays flat and inserts 
+     * are sent in JDBC batches. Any entity managed before the call becomes detached.
+     * 
+     * @param entities - new entities
+     */
+    public void persistAll(Collection<T> entities);
+    
+    /**
+     * Merge (update) entities, flushing and clearing the persistence context in chunks like 
+     * {@link #persistAll(Collection)} does.
+     * 
+     * @param entities - entities to be merged
+     * @return merged entities in the same order, they are detached after the call
+     */
+    public List<T> mergeAll(Collection<T> entities);
+    
+    /**
+     * Remove entity by its ID with set-based DELETE statements like 
+     * {@link #removeAllById(Collection)} does.
+     * 
+     * @param id - ID of entity to be removed
+     * @return {@code true} if the entity was removed, {@code false} if there is no such entity
+     */
+    public boolean removeById(int id);
+    
+    /**
+     * Remove entities by their IDs with set-based DELETE statements. Rows are never loaded, 
+     * so no lifecycle callbacks happen. Instead of cascades the DAO removes dependent rows 
+     * in dependency order first. The second level cache regions of affected entities and 
+     * collections are evicted.
+     * 
+     * @param ids - IDs of entities to be removed
+     * @return number of removed entities
+     */
+    public int removeAllById(Collection<Integer> ids);
+    
     /**
      * Retrieve all entities of specified type from the persistence context.
      * 
@@ -86,6 +126,22 @@ public interface GenericDao<T extends AbstractEntity> {
      */
     public int countAll();
     
+    /**
+     * Get the version of entity without loading the entity.
+     * 
+     * @param id the id of entity
+     * @return version of the entity or {@code null} if there is no entity with such id
+     */
+    public EntityVersion findVersion(int id);
+    
+    /**
+     * Get the version of all entities of specified type, it is changed by any insert, update 
+     * or removal.
+     * 
+     * @return version of all entities
+     */
+    public EntityVersion findVersionOfAll();
+    
     /**
      * Retrieve up to {@code maxResults} entities beginning with {@code firstResult}
      * from the all entities which fit to given criteria.
@@ -97,5 +153,48 @@ public interface GenericDao<T extends AbstractEntity> {
      */
     public List<T> findPaginatedAndOrdered(boolean ascOrderById, int pageNumber, int pageSize);
     
+    /**
+     * Retrieve up to {@code pageSize} entities which IDs lie strictly after {@code afterId}
+     * and/or strictly before {@code beforeId} (keyset pagination). Unlike 
+     * {@link #findPaginatedAndOrdered(boolean, int, int)} it doesn't scan skipped rows, so a deep
+     * page costs the same as the first one.
+     * 
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param afterId exclusive lower bound of IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of IDs or {@code null} if not bounded
+     * @param pageSize size of data page
+     * @return list of entities fit to criteria
+     */
+    public List<T> findSeekPaginatedAndOrdered(boolean ascOrderById, Integer afterId, 
+            Integer beforeId, int pageSize);
+    
+    /**
+     * The same as {@link #findPaginatedAndOrdered(boolean, int, int)} but selects only 
+     * listing columns into the read-only projection instead of hydrating entities.
+     * 
+     * @param projectionType the projection class supported by the DAO
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param pageNumber number of page to be returned (pages starts with 1)
+     * @param pageSize size of data page
+     * @return list of projections fit to criteria
+     * @throws IllegalArgumentException if the projection is not supported by the DAO
+     */
+    public <P> List<P> findProjectionPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, int pageNumber, int pageSize);
+    
+    /**
+     * The same as {@link #findSeekPaginatedAndOrdered(boolean, Integer, Integer, int)} but 
+     * selects only listing columns into the read-only projection instead of hydrating entities.
+     * 
+     * @param projectionType the projection class supported by the DAO
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param afterId exclusive lower bound of IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of IDs or {@code null} if not bounded
+     * @param pageSize size of data page
+     * @return list of projections fit to criteria
+     * @throws IllegalArgumentException if the projection is not supported by the DAO
+     */
+    public <P> List<P> findProjectionSeekPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, Integer afterId, Integer beforeId, int pageSize);
     
 }
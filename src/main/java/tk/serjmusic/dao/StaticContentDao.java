@@ -28,6 +28,9 @@
 package tk.serjmusic.dao;
 
 import tk.serjmusic.models.StaticContent;
+import tk.serjmusic.models.projections.KeysetChunk;
+
+import java.util.List;
 
 /**
  * DAO interface for {@link StaticContent} entity.
@@ -37,10 +40,30 @@ import tk.serjmusic.models.StaticContent;
 public interface StaticContentDao extends GenericDao<StaticContent> {
     
     /**
-     * Retrieve static content by it's description.
+     * Retrieve static content by it's description. If there are contents in several languages
+     * the first stored one is returned.
      * 
      * @param description description of static content for lookup
      * @return found {@link StaticContent}
      */
     public StaticContent findStaticContentByDescription(String description);
+
+    /**
+     * Compress a chunk of large contents of static contents which were stored before the 
+     * compression was introduced. Contents stored later are compressed when they are written.
+     * 
+     * @param afterId the chunk starts after this ID
+     * @return the chunk with the number of compressed static contents
+     */
+    public KeysetChunk compressStoredContent(int afterId);
+
+    /**
+     * Find a chunk of static contents which were stored before the rendering was introduced, 
+     * i.e. have no rendered HTML. The chunk holds at most 
+     * {@link tk.serjmusic.utils.R#CONTENT_RENDERING_BATCH_SIZE} static contents ordered by ID.
+     * 
+     * @param afterId the chunk starts after this ID
+     * @return static contents without rendered HTML
+     */
+    public List<StaticContent> findNotRendered(int afterId);
 }
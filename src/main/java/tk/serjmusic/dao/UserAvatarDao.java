@@ -0,0 +1,56 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.dao;
+
+import tk.serjmusic.models.UserAvatar;
+import tk.serjmusic.models.projections.AvatarContent;
+
+/**
+ * DAO interface for {@link UserAvatar} entity.
+ *
+ * @author Roman Kondakov
+ */
+public interface UserAvatarDao extends GenericDao<UserAvatar> {
+
+    /**
+     * Retrieve avatar by the hash of its content.
+     * 
+     * @param hash hex SHA-256 hash of the avatar content
+     * @return found {@link UserAvatar}
+     */
+    public UserAvatar findAvatarByHash(String hash);
+
+    /**
+     * Retrieve the image of the avatar as a stream resource, only the content type and the 
+     * length are read at once.
+     * 
+     * @param hash hex SHA-256 hash of the avatar content
+     * @return found {@link AvatarContent} or {@code null} if there is no such avatar
+     */
+    public AvatarContent findAvatarContentByHash(String hash);
+}
@@ -32,6 +32,7 @@ import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.User;
 
 import java.util.List;
+import java.util.SortedMap;
 
 /**
  * DAO interface for {@link User} entity.
@@ -41,7 +42,8 @@ import java.util.List;
 public interface UserDao extends GenericDao<User> {
     
     /**
-     * Retrieve user by his name.
+     * Retrieve user by his name. The name is the natural ID of user, so it is resolved through 
+     * the natural ID cache, which is not invalidated by registration of other users.
      * 
      * @param username user's name for lookup
      * @return found user
@@ -66,4 +68,27 @@ public interface UserDao extends GenericDao<User> {
      */
     public List<BlogComment> findUserCommentsByUserId(int id, int pageNumber, int pageSize);
 
+    /**
+     * Retrieve user's comments in ascend ID order using keyset pagination.
+     * 
+     * @param id id of requested user
+     * @param afterId exclusive lower bound of comment IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of comment IDs or {@code null} if not bounded
+     * @param pageSize size of each page
+     * @return list of user's comments
+     */
+    public List<BlogComment> findSeekUserCommentsByUserId(int id, Integer afterId, 
+            Integer beforeId, int pageSize);
+
+    /**
+     * Retrieve a chunk of avatar images stored in the {@code image_file} column of users by 
+     * the schema before the avatar table. Only users without an avatar in the avatar table 
+     * are read, so images moved once are not read again.
+     * 
+     * @param afterId the chunk starts after this user ID
+     * @return up to {@link tk.serjmusic.utils.R#AVATAR_MIGRATION_BATCH_SIZE} images by user ID 
+     *         in the ascend order, it is empty if there is no such column
+     */
+    public SortedMap<Integer, byte[]> findLegacyAvatars(int afterId);
+
 }
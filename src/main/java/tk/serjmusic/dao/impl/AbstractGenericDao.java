@@ -23,24 +23,46 @@
 package tk.serjmusic.dao.impl;
 
 import org.apache.log4j.Logger;
+import org.hibernate.Session;
 
 import tk.serjmusic.dao.GenericDao;
 import tk.serjmusic.models.AbstractEntity;
 import tk.serjmusic.models.AbstractEntity_;
+import tk.serjmusic.models.projections.EntityVersion;
+import tk.serjmusic.models.projections.KeysetChunk;
+import tk.serjmusic.utils.CompressedText;
 import tk.serjmusic.utils.R;
 import tk.serjmusic.utils.logging.Loggable;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.SingularAttribute;
 
 /**
  * A JPA implementation of {@link GenericDao}.
@@ -51,7 +73,10 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
 
     private EntityManager entityManager;
     protected final Class<T> genericType;
+    private final Set<String> namedQueries = ConcurrentHashMap.newKeySet();
     private static final Logger logger = Logger.getLogger(AbstractGenericDao.class);
+    protected static final String AFTER_ID = "afterId";
+    protected static final String BEFORE_ID = "beforeId";
     
     /**
      * Constructor resolves a generic type of DAO subclass.
@@ -90,6 +115,10 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
         T result = null;
         try {
             result = entityManager.find(genericType, id);
+            if (result != null) {
+                loadReferences(Collections.singletonList(result));
+                loadLazyAttributes(result);
+            }
         } catch (NoResultException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("No results for find " + genericType + "id: " + id, ex);
@@ -107,7 +136,10 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
     @Loggable
     @Override
     public T merge(T t) {
-        return entityManager.merge(t);
+        T result = entityManager.merge(t);
+        loadReferences(Collections.singletonList(result));
+        loadLazyAttributes(result);
+        return result;
     }
 
     /*
@@ -121,6 +153,89 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
         entityManager.remove(entityManager.contains(t) ? t : entityManager.merge(t));
     }
 
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#persistAll(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public void persistAll(Collection<T> entities) {
+        int count = 0;
+        for (T t : entities) {
+            entityManager.persist(t);
+            if (++count % R.BULK_FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#mergeAll(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public List<T> mergeAll(Collection<T> entities) {
+        List<T> result = new ArrayList<>(entities.size());
+        int chunkStart = 0;
+        for (T t : entities) {
+            result.add(entityManager.merge(t));
+            if (result.size() % R.BULK_FLUSH_SIZE == 0) {
+                loadReferences(result.subList(chunkStart, result.size()));
+                chunkStart = result.size();
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        loadReferences(result.subList(chunkStart, result.size()));
+        entityManager.flush();
+        entityManager.clear();
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#removeAllById(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public int removeAllById(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        int result = 0;
+        for (int start = 0; start < idList.size(); start += R.BULK_DELETE_CHUNK_SIZE) {
+            List<Integer> chunk = idList.subList(start, 
+                    Math.min(start + R.BULK_DELETE_CHUNK_SIZE, idList.size()));
+            removeDependentsById(chunk);
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaDelete<T> cd = cb.createCriteriaDelete(genericType);
+            Root<T> from = cd.from(genericType);
+            cd.where(from.get(AbstractEntity_.id).in(chunk));
+            result += entityManager.createQuery(cd).executeUpdate();
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#removeById(int)
+     */
+    @Loggable
+    @Override
+    public boolean removeById(int id) {
+        return removeAllById(Collections.singletonList(id)) > 0;
+    }
+
+    /**
+     * Remove rows which depend on entities to be removed by {@link #removeAllById(Collection)},
+     * i.e. everything which is cascaded on remove or referenced by foreign keys, and invalidate
+     * application caches derived from them. DAOs of entities with dependents must override 
+     * this method, the default one removes nothing.
+     *
+     * @param ids IDs of entities to be removed
+     */
+    protected void removeDependentsById(List<Integer> ids) {
+        
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -131,13 +246,15 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
     public List<T> findAll() {
         List<T> result = null;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(genericType);
-            Root<T> from = cq.from(genericType);
-            cq.select(from);
-            TypedQuery<T> typedQuery = entityManager.createQuery(cq);
+            TypedQuery<T> typedQuery = namedQuery("findAll", genericType, cb -> {
+                CriteriaQuery<T> cq = cb.createQuery(genericType);
+                Root<T> from = cq.from(genericType);
+                return cq.select(from);
+            });
+            withListGraph(typedQuery, genericType);
             typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
             result = typedQuery.getResultList(); 
+            loadReferences(result);
         } catch (NoResultException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("No results for findAll " + genericType , ex);
@@ -161,11 +278,11 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
     public int countAll() {
         int result;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
-            Root<T> from = cq.from(genericType);
-            cq.select(cb.count(from));
-            TypedQuery<Long> typedQuery = entityManager.createQuery(cq);
+            TypedQuery<Long> typedQuery = namedQuery("countAll", Long.class, cb -> {
+                CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+                Root<T> from = cq.from(genericType);
+                return cq.select(cb.count(from));
+            });
             typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
             result = (int) (long) typedQuery.getSingleResult();
         } catch (NoResultException ex) {
@@ -178,6 +295,58 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
         
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.GenericDao#findVersion(int)
+     */
+    @Loggable
+    @Override
+    public EntityVersion findVersion(int id) {
+        EntityVersion result;
+        try {
+            TypedQuery<EntityVersion> typedQuery = namedQuery("findVersion", 
+                    EntityVersion.class, cb -> {
+                    CriteriaQuery<EntityVersion> cq = cb.createQuery(EntityVersion.class);
+                    Root<T> from = cq.from(genericType);
+                    return cq.select(cb.construct(EntityVersion.class, 
+                            from.get(AbstractEntity_.id), from.get(AbstractEntity_.version), 
+                            from.get(AbstractEntity_.updatedAt)))
+                            .where(cb.equal(from.get(AbstractEntity_.id), 
+                                    cb.parameter(Integer.class, "id")));
+                });
+            typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
+            result = typedQuery.setParameter("id", id).getSingleResult();
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findVersion " + genericType + "id: " + id, ex);
+            }
+            result = null;
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.GenericDao#findVersionOfAll()
+     */
+    @Loggable
+    @Override
+    public EntityVersion findVersionOfAll() {
+        // An aggregate query returns a row even for an empty table
+        TypedQuery<EntityVersion> typedQuery = namedQuery("findVersionOfAll", 
+                EntityVersion.class, cb -> {
+                CriteriaQuery<EntityVersion> cq = cb.createQuery(EntityVersion.class);
+                Root<T> from = cq.from(genericType);
+                return cq.select(cb.construct(EntityVersion.class, cb.count(from), 
+                        cb.max(from.get(AbstractEntity_.id)), 
+                        cb.sumAsLong(from.get(AbstractEntity_.version))));
+            });
+        typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
+        return typedQuery.getSingleResult();
+    }
+
     /* (non-Javadoc)
      * @see tk.serjmusic.dao.GenericDao#findPaginatedAndOrdered(boolean, int, int)
      */
@@ -186,17 +355,20 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
     public List<T> findPaginatedAndOrdered(boolean ascOrderById, int pageNumber, int pageSize) {
         List<T> result = null;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(genericType);
-            Root<T> from = cq.from(genericType);
-            Order order = ascOrderById ? cb.asc(from.get(AbstractEntity_.id)) 
-                                       : cb.desc(from.get(AbstractEntity_.id));
-            cq.orderBy(order);
-            TypedQuery<T> typedQuery = entityManager.createQuery(cq);
+            String name = "findPaginated" + (ascOrderById ? "Asc" : "Desc");
+            TypedQuery<T> typedQuery = namedQuery(name, genericType, cb -> {
+                CriteriaQuery<T> cq = cb.createQuery(genericType);
+                Root<T> from = cq.from(genericType);
+                Order order = ascOrderById ? cb.asc(from.get(AbstractEntity_.id)) 
+                                           : cb.desc(from.get(AbstractEntity_.id));
+                return cq.select(from).orderBy(order);
+            });
+            withListGraph(typedQuery, genericType);
             int startPosition = (pageNumber - 1) * pageSize;
             typedQuery.setFirstResult(startPosition).setMaxResults(pageSize);
             typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
             result =  typedQuery.getResultList();
+            loadReferences(result);
             logger.debug("result: " + result);
         } catch (NoResultException ex) {
             if (logger.isDebugEnabled()) {
@@ -211,4 +383,418 @@ public abstract class AbstractGenericDao<T extends AbstractEntity> implements Ge
         }
         return result;
     }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#findSeekPaginatedAndOrdered(boolean, java.lang.Integer, 
+     * java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public List<T> findSeekPaginatedAndOrdered(boolean ascOrderById, Integer afterId, 
+            Integer beforeId, int pageSize) {
+        List<T> result = null;
+        try {
+            TypedQuery<T> typedQuery = namedQuery(
+                    seekQueryName("findSeek", ascOrderById, afterId, beforeId), genericType, 
+                cb -> {
+                    CriteriaQuery<T> cq = cb.createQuery(genericType);
+                    Root<T> from = cq.from(genericType);
+                    applySeek(cb, cq.select(from), from.get(AbstractEntity_.id), 
+                            new ArrayList<Predicate>(), ascOrderById, 
+                            seekParameter(cb, AFTER_ID, afterId), 
+                            seekParameter(cb, BEFORE_ID, beforeId));
+                    return cq;
+                });
+            withListGraph(typedQuery, genericType);
+            boolean reversed = bindSeek(typedQuery, ascOrderById, afterId, beforeId);
+            typedQuery.setMaxResults(pageSize);
+            typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
+            result = seekResult(typedQuery.getResultList(), reversed);
+            loadReferences(result);
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findSeekPaginatedAndOrdered " + genericType 
+                        + "; Id asc order: " + ascOrderById + "; after id: " + afterId
+                        + "; before id: " + beforeId + "; page size: " + pageSize, ex);
+            }
+            result = null;
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#findProjectionPaginatedAndOrdered(java.lang.Class, 
+     * boolean, int, int)
+     */
+    @Loggable
+    @Override
+    public <P> List<P> findProjectionPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, int pageNumber, int pageSize) {
+        List<P> result = null;
+        try {
+            String name = "findPaginated" + projectionType.getSimpleName() 
+                    + (ascOrderById ? "Asc" : "Desc");
+            TypedQuery<P> typedQuery = namedQuery(name, projectionType, cb -> {
+                CriteriaQuery<P> cq = cb.createQuery(projectionType);
+                Root<T> from = cq.from(genericType);
+                cq.select(cb.construct(projectionType, 
+                        selectProjection(cb, from, projectionType)));
+                Order order = ascOrderById ? cb.asc(from.get(AbstractEntity_.id)) 
+                                           : cb.desc(from.get(AbstractEntity_.id));
+                return cq.orderBy(order);
+            });
+            int startPosition = (pageNumber - 1) * pageSize;
+            typedQuery.setFirstResult(startPosition).setMaxResults(pageSize);
+            typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
+            result = typedQuery.getResultList();
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findProjectionPaginatedAndOrdered " + projectionType
+                        + "; Id asc order: " + ascOrderById + "; page number: " + pageNumber
+                        + "; page size: " + pageSize, ex);
+            }
+            result = null;
+        }
+        if ((result != null) && (result.isEmpty())) {
+            result = null;
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.GenericDao#findProjectionSeekPaginatedAndOrdered(java.lang.Class, 
+     * boolean, java.lang.Integer, java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public <P> List<P> findProjectionSeekPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, Integer afterId, Integer beforeId, int pageSize) {
+        List<P> result = null;
+        try {
+            String name = seekQueryName("findSeek" + projectionType.getSimpleName(), 
+                    ascOrderById, afterId, beforeId);
+            TypedQuery<P> typedQuery = namedQuery(name, projectionType, cb -> {
+                CriteriaQuery<P> cq = cb.createQuery(projectionType);
+                Root<T> from = cq.from(genericType);
+                cq.select(cb.construct(projectionType, 
+                        selectProjection(cb, from, projectionType)));
+                applySeek(cb, cq, from.get(AbstractEntity_.id), new ArrayList<Predicate>(), 
+                        ascOrderById, seekParameter(cb, AFTER_ID, afterId), 
+                        seekParameter(cb, BEFORE_ID, beforeId));
+                return cq;
+            });
+            boolean reversed = bindSeek(typedQuery, ascOrderById, afterId, beforeId);
+            typedQuery.setMaxResults(pageSize);
+            typedQuery.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
+            result = seekResult(typedQuery.getResultList(), reversed);
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findProjectionSeekPaginatedAndOrdered " 
+                        + projectionType + "; Id asc order: " + ascOrderById + "; after id: " 
+                        + afterId + "; before id: " + beforeId + "; page size: " + pageSize, ex);
+            }
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Get a query which is defined once per entity type. The definition is built, compiled and
+     * registered as a named query on the first call only, further calls just create the query 
+     * from the compiled definition, so only parameters should be bound. Definitions must use 
+     * parameters instead of argument values.
+     *
+     * @param name query name, unique within the DAO
+     * @param resultType type of the query result
+     * @param definition criteria query definition
+     * @return new query created from the named one
+     */
+    protected <Q> TypedQuery<Q> namedQuery(String name, Class<Q> resultType, 
+            Function<CriteriaBuilder, CriteriaQuery<Q>> definition) {
+        String queryName = getClass().getSimpleName() + "." + name;
+        if (!namedQueries.contains(queryName)) {
+            CriteriaQuery<Q> cq = definition.apply(entityManager.getCriteriaBuilder());
+            entityManager.getEntityManagerFactory()
+                    .addNamedQuery(queryName, entityManager.createQuery(cq));
+            namedQueries.add(queryName);
+        }
+        return entityManager.createNamedQuery(queryName, resultType);
+    }
+
+    /**
+     * Load entities in the order of IDs. Entities from the second level cache are taken from it,
+     * the rest are read with a single {@code IN (...)} query.
+     *
+     * @param type entity type
+     * @param ids IDs of entities
+     * @return entities in the order of IDs or {@code null} if some of them do not exist anymore
+     */
+    protected <E extends AbstractEntity> List<E> findAllInOrder(Class<E> type, int[] ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<Integer> misses = new ArrayList<>();
+        for (int id : ids) {
+            if (!cache.contains(type, id)) {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            entityManager.unwrap(Session.class).byMultipleIds(type).multiLoad(misses);
+        }
+        List<E> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            E entity = entityManager.find(type, id);
+            if (entity == null) {
+                return null;
+            }
+            result.add(entity);
+        }
+        return result;
+    }
+
+    /**
+     * Load lazy references of the entities which are shown with them, e.g. authors, with 
+     * a constant number of statements. It is called for entities returned by finders and 
+     * merges, because references can't be loaded after the transaction. DAOs of entities with 
+     * lazy references must override this method, the default one loads nothing.
+     *
+     * @param entities found or merged entities
+     */
+    protected void loadReferences(List<? extends T> entities) {
+        
+    }
+
+    /**
+     * Load lazy basic attributes of the entity which are shown with a single entity only, e.g. 
+     * the content of blog entries. Attributes are lazy if entities are enhanced, lists don't 
+     * read them at all. It is called for entities returned by {@link #find(int)} and merges, 
+     * the default one loads nothing.
+     *
+     * @param entity found or merged entity
+     */
+    protected void loadLazyAttributes(T entity) {
+        
+    }
+
+    /**
+     * Compress a chunk of large plain values of a text column which were stored before the 
+     * compression was introduced, see {@link CompressedText}. Up to 
+     * {@link R#TEXT_COMPRESSION_BATCH_SIZE} rows after the given ID are read and updated by a 
+     * JDBC batch bypassing Hibernate: texts of entities don't change, so their versions and 
+     * cached states stay valid. A row updated concurrently keeps its plain value.
+     *
+     * @param table table name
+     * @param column text column name
+     * @param excerptColumn column of the excerpt which is filled if it is null, because the 
+     *        compressed text can't be cut by SQL, or null if the table has no excerpts
+     * @param excerptOf excerpt of the text, or null if the table has no excerpts
+     * @param afterId the chunk starts after this ID
+     * @return the chunk with the number of compressed rows
+     */
+    protected KeysetChunk compressTextColumn(String table, String column, String excerptColumn, 
+            Function<String, String> excerptOf, int afterId) {
+        String select = "SELECT id, version, " + column + " FROM " + table 
+                + " WHERE id > ? AND LENGTH(" + column + ") > ? AND " + column + " NOT LIKE ?" 
+                + " ORDER BY id";
+        String update = "UPDATE " + table + " SET " + column + " = ?" 
+                + ((excerptColumn == null) ? "" 
+                        : ", " + excerptColumn + " = COALESCE(" + excerptColumn + ", ?)")
+                + " WHERE id = ? AND version = ?";
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            int updated = 0;
+            int lastId = afterId;
+            int rows = 0;
+            try (PreparedStatement query = connection.prepareStatement(select);
+                    PreparedStatement statement = connection.prepareStatement(update)) {
+                query.setMaxRows(R.TEXT_COMPRESSION_BATCH_SIZE);
+                query.setInt(1, afterId);
+                query.setInt(2, R.COMPRESSED_TEXT_THRESHOLD);
+                query.setString(3, R.COMPRESSED_TEXT_PREFIX + "%");
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows++;
+                        lastId = resultSet.getInt(1);
+                        String text = resultSet.getString(3);
+                        String value = CompressedText.compress(text);
+                        if (!CompressedText.isCompressed(value)) {
+                            continue;
+                        }
+                        int index = 1;
+                        statement.setString(index++, value);
+                        if (excerptColumn != null) {
+                            statement.setString(index++, excerptOf.apply(text));
+                        }
+                        statement.setInt(index++, lastId);
+                        statement.setInt(index, resultSet.getInt(2));
+                        statement.addBatch();
+                    }
+                }
+                for (int count : statement.executeBatch()) {
+                    if ((count > 0) || (count == Statement.SUCCESS_NO_INFO)) {
+                        updated++;
+                    }
+                }
+            }
+            return new KeysetChunk(lastId, updated, rows < R.TEXT_COMPRESSION_BATCH_SIZE);
+        });
+    }
+
+    /**
+     * Find a chunk of entities whose attribute is not set yet, ordered by ID. Entities are 
+     * managed, so values set by the caller are written when the transaction commits.
+     *
+     * @param name query name, unique within the DAO
+     * @param attribute the attribute which is null for entities of the chunk
+     * @param afterId the chunk starts after this ID
+     * @param chunkSize maximum number of entities in the chunk
+     * @return entities of the chunk
+     */
+    protected List<T> findChunkWithoutValue(String name, 
+            SingularAttribute<? super T, ?> attribute, int afterId, int chunkSize) {
+        return namedQuery(name, genericType, cb -> {
+            CriteriaQuery<T> cq = cb.createQuery(genericType);
+            Root<T> from = cq.from(genericType);
+            return cq.select(from).where(
+                    cb.greaterThan(from.get(AbstractEntity_.id), 
+                            cb.parameter(Integer.class, AFTER_ID)), 
+                    cb.isNull(from.get(attribute)))
+                    .orderBy(cb.asc(from.get(AbstractEntity_.id)));
+        }).setParameter(AFTER_ID, afterId).setMaxResults(chunkSize).getResultList();
+    }
+
+    /**
+     * Apply the "list" named entity graph of the entity to the list query if the entity 
+     * declares one, so associations shown with each row are fetched by the same statement 
+     * instead of a statement per row. Graphs should contain single valued associations only, 
+     * a fetched collection would make Hibernate paginate in memory.
+     *
+     * @param query list query
+     * @param entityType type of entities selected by the query
+     * @return the same query
+     */
+    protected <Q> TypedQuery<Q> withListGraph(TypedQuery<Q> query, Class<?> entityType) {
+        String graphName = entityType.getSimpleName() + R.LIST_ENTITY_GRAPH_SUFFIX;
+        for (EntityGraph<?> graph : entityManager.getEntityGraphs(entityType)) {
+            if (graphName.equals(graph.getName())) {
+                query.setHint(R.LOAD_GRAPH_HINT_NAME, graph);
+                break;
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Columns of the listing projection in order of its constructor arguments. DAOs which 
+     * support projections should override this method, the default one supports none.
+     *
+     * @param cb criteria builder
+     * @param from query root
+     * @param projectionType requested projection class
+     * @return selections for the projection constructor
+     * @throws IllegalArgumentException if the projection is not supported
+     */
+    protected Selection<?>[] selectProjection(CriteriaBuilder cb, Root<T> from, 
+            Class<?> projectionType) {
+        throw new IllegalArgumentException("Projection " + projectionType 
+                + " is not supported for " + genericType);
+    }
+
+    /**
+     * Add keyset bounds and ID order to the query. When the only bound lies on the opposite 
+     * side of the requested order (e.g. {@code afterId} with descending order) the query is 
+     * ordered the other way round, so the page adjacent to the bound is retrieved. Such 
+     * a result must be reversed with {@link #seekResult(List, boolean)}.
+     *
+     * @param cb criteria builder
+     * @param cq query to be restricted and ordered
+     * @param id path to the ID attribute
+     * @param predicates other restrictions of the query, bounds are added to them
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param afterId exclusive lower bound of IDs or {@code null}
+     * @param beforeId exclusive upper bound of IDs or {@code null}
+     * @return {@code true} if the query result must be reversed
+     */
+    protected static boolean applySeek(CriteriaBuilder cb, CriteriaQuery<?> cq, 
+            Path<Integer> id, List<Predicate> predicates, boolean ascOrderById, 
+            Expression<Integer> afterId, Expression<Integer> beforeId) {
+        if (afterId != null) {
+            predicates.add(cb.greaterThan(id, afterId));
+        }
+        if (beforeId != null) {
+            predicates.add(cb.lessThan(id, beforeId));
+        }
+        boolean reversed = (afterId == null) != (beforeId == null) 
+                && (ascOrderById ? beforeId != null : afterId != null);
+        boolean asc = reversed ? !ascOrderById : ascOrderById;
+        cq.where(predicates.toArray(new Predicate[predicates.size()]));
+        cq.orderBy(asc ? cb.asc(id) : cb.desc(id));
+        return reversed;
+    }
+
+    /**
+     * Name of the keyset query variant. Variants differ in order and in present bounds.
+     *
+     * @param prefix name prefix
+     * @param ascOrderById whether the ascend ID order is requested
+     * @param afterId exclusive lower bound of IDs or {@code null}
+     * @param beforeId exclusive upper bound of IDs or {@code null}
+     * @return query name
+     */
+    protected static String seekQueryName(String prefix, boolean ascOrderById, Integer afterId, 
+            Integer beforeId) {
+        return prefix + (ascOrderById ? "Asc" : "Desc") + ((afterId != null) ? "After" : "") 
+                + ((beforeId != null) ? "Before" : "");
+    }
+
+    /**
+     * Parameter of keyset query definition for a bound if it is present.
+     *
+     * @param cb criteria builder
+     * @param name parameter name
+     * @param bound bound value or {@code null}
+     * @return parameter or {@code null} if there is no bound
+     */
+    protected static ParameterExpression<Integer> seekParameter(CriteriaBuilder cb, String name,
+            Integer bound) {
+        return (bound == null) ? null : cb.parameter(Integer.class, name);
+    }
+
+    /**
+     * Bind bounds to the keyset query defined with {@link #seekParameter(CriteriaBuilder, 
+     * String, Integer)} parameters.
+     *
+     * @param query keyset query
+     * @param ascOrderById whether the ascend ID order is requested
+     * @param afterId exclusive lower bound of IDs or {@code null}
+     * @param beforeId exclusive upper bound of IDs or {@code null}
+     * @return {@code true} if the query result must be reversed
+     */
+    protected static boolean bindSeek(TypedQuery<?> query, boolean ascOrderById, 
+            Integer afterId, Integer beforeId) {
+        if (afterId != null) {
+            query.setParameter(AFTER_ID, afterId);
+        }
+        if (beforeId != null) {
+            query.setParameter(BEFORE_ID, beforeId);
+        }
+        return (afterId == null) != (beforeId == null) 
+                && (ascOrderById ? beforeId != null : afterId != null);
+    }
+
+    /**
+     * Bring the result of keyset query back to the requested order.
+     *
+     * @param result query result
+     * @param reversed whether the query was run in the reversed order
+     * @return ordered result or {@code null} if it is empty
+     */
+    protected static <E> List<E> seekResult(List<E> result, boolean reversed) {
+        if ((result == null) || (result.isEmpty())) {
+            return null;
+        }
+        if (reversed) {
+            result = new ArrayList<>(result);
+            Collections.reverse(result);
+        }
+        return result;
+    }
 }
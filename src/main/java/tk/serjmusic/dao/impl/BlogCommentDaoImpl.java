@@ -27,14 +27,31 @@
 
 package tk.serjmusic.dao.impl;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import tk.serjmusic.dao.BlogCommentDao;
+import tk.serjmusic.models.AbstractEntity_;
 import tk.serjmusic.models.BlogComment;
+import tk.serjmusic.models.BlogComment_;
+import tk.serjmusic.models.projections.KeysetChunk;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
 
 /**
  * JPA implementation of {@link BlogCommentDao}.
@@ -46,10 +63,90 @@ public class BlogCommentDaoImpl extends AbstractGenericDao<BlogComment> implemen
     
     @PersistenceContext
     private EntityManager entityManager;
+
+    @Autowired
+    private CommentIdIndex commentIds;
     
     @PostConstruct
     private void init() {
         setEntityManager(entityManager);
     }
-    
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#removeDependentsById(java.util.List)
+     */
+    @Override
+    protected void removeDependentsById(List<Integer> ids) {
+        // Bulk delete bypasses the entity listeners, so removed comments are taken out of the 
+        // comment ID index here
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<BlogComment> from = cq.from(BlogComment.class);
+        cq.multiselect(from.get(AbstractEntity_.id),
+                from.get(BlogComment_.blogEntry).get(AbstractEntity_.id),
+                from.get(BlogComment_.author).get(AbstractEntity_.id))
+          .where(from.get(AbstractEntity_.id).in(ids));
+        commentIds.removed(entityManager, entityManager.createQuery(cq).getResultList());
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#loadReferences(java.util.List)
+     */
+    @Override
+    protected void loadReferences(List<? extends BlogComment> entities) {
+        new UserBatchLoader(entityManager).addCommentAuthors(entities).load();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogCommentDao#findBlogIdsByCommentIds(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public List<Integer> findBlogIdsByCommentIds(Collection<Integer> commentIds) {
+        return findBlogIdsWhere(comment -> comment.get(AbstractEntity_.id), commentIds);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogCommentDao#findBlogIdsByAuthorIds(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public List<Integer> findBlogIdsByAuthorIds(Collection<Integer> authorIds) {
+        return findBlogIdsWhere(
+            comment -> comment.get(BlogComment_.author).get(AbstractEntity_.id), authorIds);
+    }
+
+    private List<Integer> findBlogIdsWhere(Function<Root<BlogComment>, Path<Integer>> key, 
+            Collection<Integer> values) {
+        List<Integer> valueList = new ArrayList<>(values);
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int start = 0; start < valueList.size(); start += R.BULK_DELETE_CHUNK_SIZE) {
+            List<Integer> chunk = valueList.subList(start, 
+                    Math.min(start + R.BULK_DELETE_CHUNK_SIZE, valueList.size()));
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+            Root<BlogComment> from = cq.from(BlogComment.class);
+            // The foreign key is compared and selected, so the blog entries are not joined
+            cq.select(from.get(BlogComment_.blogEntry).get(AbstractEntity_.id))
+              .where(key.apply(from).in(chunk))
+              .distinct(true);
+            result.addAll(entityManager.createQuery(cq).getResultList());
+        }
+        return new ArrayList<>(result);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogCommentDao#compressStoredContent(int)
+     */
+    @Loggable
+    @Override
+    public KeysetChunk compressStoredContent(int afterId) {
+        return compressTextColumn("blog_comments", "content", null, null, afterId);
+    }
 }
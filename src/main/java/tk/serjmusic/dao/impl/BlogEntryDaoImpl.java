@@ -23,29 +23,46 @@
 package tk.serjmusic.dao.impl;
 
 import org.apache.log4j.Logger;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import tk.serjmusic.dao.BlogEntryDao;
+import tk.serjmusic.dao.impl.CommentIdIndex.Owner;
 import tk.serjmusic.models.AbstractEntity_;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogComment_;
 import tk.serjmusic.models.BlogEntry;
 import tk.serjmusic.models.BlogEntry_;
+import tk.serjmusic.models.User;
+import tk.serjmusic.models.User_;
+import tk.serjmusic.models.projections.BlogEntrySummary;
+import tk.serjmusic.models.projections.KeysetChunk;
+import tk.serjmusic.utils.HtmlExcerpt;
 import tk.serjmusic.utils.R;
 import tk.serjmusic.utils.logging.Loggable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 
 /**
  * JPA implementation of {@link BlogEntryDao}.
@@ -56,15 +73,101 @@ import javax.persistence.criteria.Root;
 public class BlogEntryDaoImpl extends AbstractGenericDao<BlogEntry> implements BlogEntryDao {
     
     private static final Logger logger = Logger.getLogger(BlogEntryDaoImpl.class);
+    private static final String BLOG_ID = "blogId";
+    
+    private static final String RECOUNT_COMMENTS_SQL = "UPDATE blog_entries SET "
+            + "version = version + 1, updated_at = CURRENT_TIMESTAMP, "
+            + "comment_count = (SELECT COUNT(*) FROM blog_comments c "
+            + "WHERE c.blog_entry_id = blog_entries.id), "
+            + "last_comment_at = (SELECT MAX(c.date_created) FROM blog_comments c "
+            + "WHERE c.blog_entry_id = blog_entries.id)";
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private CommentIdIndex commentIds;
+
     @PostConstruct
     private void init() {
         setEntityManager(entityManager);
     }
 
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#removeDependentsById(java.util.List)
+     */
+    @Override
+    protected void removeDependentsById(List<Integer> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        // Bulk delete bypasses the entity listeners, so comment ID indexes of the blog entries 
+        // and of the comment authors are dropped here
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<BlogComment> comment = cq.from(BlogComment.class);
+        cq.multiselect(comment.get(BlogComment_.blogEntry).get(AbstractEntity_.id),
+                comment.get(BlogComment_.author).get(AbstractEntity_.id))
+          .where(comment.get(BlogComment_.blogEntry).get(AbstractEntity_.id).in(ids))
+          .distinct(true);
+        List<Object[]> owners = entityManager.createQuery(cq).getResultList();
+        
+        CriteriaDelete<BlogComment> cd = cb.createCriteriaDelete(BlogComment.class);
+        Root<BlogComment> from = cd.from(BlogComment.class);
+        cd.where(from.get(BlogComment_.blogEntry).get(AbstractEntity_.id).in(ids));
+        entityManager.createQuery(cd).executeUpdate();
+        commentIds.invalidate(entityManager, owners);
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#loadReferences(java.util.List)
+     */
+    @Override
+    protected void loadReferences(List<? extends BlogEntry> entities) {
+        UserBatchLoader loader = new UserBatchLoader(entityManager);
+        entities.forEach(blogEntry -> loader.add(blogEntry.getAuthor()));
+        loader.load();
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#loadLazyAttributes(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Override
+    protected void loadLazyAttributes(BlogEntry blogEntry) {
+        // The getter of an enhanced entry loads the "content" group
+        blogEntry.getContent();
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#selectProjection(
+     * javax.persistence.criteria.CriteriaBuilder, javax.persistence.criteria.Root, 
+     * java.lang.Class)
+     */
+    @Override
+    protected Selection<?>[] selectProjection(CriteriaBuilder cb, Root<BlogEntry> from, 
+            Class<?> projectionType) {
+        if (!BlogEntrySummary.class.equals(projectionType)) {
+            return super.selectProjection(cb, from, projectionType);
+        }
+        Join<BlogEntry, User> author = from.join(BlogEntry_.author, JoinType.LEFT);
+        // Entries stored before excerpts were introduced fall back to a content prefix, the 
+        // compression job fills excerpts of entries it compresses
+        return new Selection<?>[] {
+            from.get(AbstractEntity_.id),
+            from.get(AbstractEntity_.version),
+            from.get(BlogEntry_.title),
+            cb.coalesce(from.get(BlogEntry_.excerpt), 
+                    cb.substring(from.get(BlogEntry_.content), 1, 4 * R.BLOG_EXCERPT_LENGTH)),
+            from.get(BlogEntry_.imageLink),
+            from.get(BlogEntry_.dateCreated),
+            from.get(BlogEntry_.commentCount),
+            from.get(BlogEntry_.lastCommentAt),
+            author.get(AbstractEntity_.id),
+            author.get(AbstractEntity_.version),
+            author.get(User_.username),
+            author.get(User_.imageLink),
+            author.get(User_.avatarHash)
+        };
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -76,22 +179,31 @@ public class BlogEntryDaoImpl extends AbstractGenericDao<BlogEntry> implements B
             int pageSize) {
         List<BlogComment> result = null;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<BlogComment> cq = cb.createQuery(BlogComment.class);
-            Root<BlogComment> blogCommentRoot = cq.from(BlogComment.class);
-            Join<BlogComment, BlogEntry> u = blogCommentRoot.join(BlogComment_.blogEntry);
-            cq.select(blogCommentRoot).where(cb.equal(u.get(BlogEntry_.id), blogId));
-            cq.distinct(true);
-            Order order = R.DEFAULT_ASC_ID_SORT_ORDER 
-                    ? cb.asc(blogCommentRoot.get(AbstractEntity_.id)) 
-                    : cb.desc(blogCommentRoot.get(AbstractEntity_.id));
-            cq.orderBy(order);
-            TypedQuery<BlogComment> tq = entityManager.createQuery(cq);
-            tq.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
-            int startPosition = (pageNumber - 1) * pageSize;
+            int[] ids = commentIds.get(Owner.BLOG, blogId, () -> findCommentIds(blogId));
+            result = (ids == null) ? null : findAllInOrder(BlogComment.class, 
+                    CommentIdIndex.page(ids, R.DEFAULT_ASC_ID_SORT_ORDER, pageNumber, pageSize));
+            if (result == null) {
+                TypedQuery<BlogComment> tq = namedQuery("findPaginatedCommentsForBlogId", 
+                        BlogComment.class, cb -> {
+                        CriteriaQuery<BlogComment> cq = cb.createQuery(BlogComment.class);
+                        Root<BlogComment> blogCommentRoot = cq.from(BlogComment.class);
+                        Join<BlogComment, BlogEntry> u = 
+                                blogCommentRoot.join(BlogComment_.blogEntry);
+                        cq.select(blogCommentRoot).where(cb.equal(u.get(BlogEntry_.id), 
+                                cb.parameter(Integer.class, BLOG_ID)));
+                        cq.distinct(true);
+                        Order order = R.DEFAULT_ASC_ID_SORT_ORDER 
+                                ? cb.asc(blogCommentRoot.get(AbstractEntity_.id)) 
+                                : cb.desc(blogCommentRoot.get(AbstractEntity_.id));
+                        return cq.orderBy(order);
+                    });
+                withListGraph(tq, BlogComment.class).setParameter(BLOG_ID, blogId);
+                int startPosition = (pageNumber - 1) * pageSize;
             
-            tq.setFirstResult(startPosition).setMaxResults(pageSize);
-            result = tq.getResultList();
+                tq.setFirstResult(startPosition).setMaxResults(pageSize);
+                result = tq.getResultList();
+            }
+            new UserBatchLoader(entityManager).addCommentAuthors(result).load();
         } catch (NoResultException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("No results for findPaginatedCommentsForBlogId, id: " 
@@ -105,4 +217,160 @@ public class BlogEntryDaoImpl extends AbstractGenericDao<BlogEntry> implements B
         return result;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogEntryDao#findSeekCommentsForBlogId(int, java.lang.Integer, 
+     * java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public List<BlogComment> findSeekCommentsForBlogId(int blogId, Integer afterId,
+            Integer beforeId, int pageSize) {
+        List<BlogComment> result = null;
+        try {
+            int[] ids = commentIds.get(Owner.BLOG, blogId, () -> findCommentIds(blogId));
+            result = (ids == null) ? null : findAllInOrder(BlogComment.class, CommentIdIndex.seek(
+                    ids, R.DEFAULT_ASC_ID_SORT_ORDER, afterId, beforeId, pageSize));
+            if (result == null) {
+                String name = seekQueryName("findSeekCommentsForBlogId", 
+                        R.DEFAULT_ASC_ID_SORT_ORDER, afterId, beforeId);
+                TypedQuery<BlogComment> tq = namedQuery(name, BlogComment.class, cb -> {
+                    CriteriaQuery<BlogComment> cq = cb.createQuery(BlogComment.class);
+                    Root<BlogComment> blogCommentRoot = cq.from(BlogComment.class);
+                    cq.select(blogCommentRoot);
+                    List<Predicate> predicates = new ArrayList<>();
+                    // Compare the foreign key only, so the (blog_entry_id, id) index covers 
+                    // the query
+                    predicates.add(cb.equal(blogCommentRoot.get(BlogComment_.blogEntry)
+                            .get(BlogEntry_.id), cb.parameter(Integer.class, BLOG_ID)));
+                    applySeek(cb, cq, blogCommentRoot.get(AbstractEntity_.id), predicates, 
+                            R.DEFAULT_ASC_ID_SORT_ORDER, seekParameter(cb, AFTER_ID, afterId), 
+                            seekParameter(cb, BEFORE_ID, beforeId));
+                    return cq;
+                });
+                withListGraph(tq, BlogComment.class).setParameter(BLOG_ID, blogId);
+                boolean reversed = bindSeek(tq, R.DEFAULT_ASC_ID_SORT_ORDER, afterId, beforeId);
+                tq.setMaxResults(pageSize);
+                result = seekResult(tq.getResultList(), reversed);
+            }
+            new UserBatchLoader(entityManager).addCommentAuthors(result).load();
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findSeekCommentsForBlogId, id: " + blogId 
+                        + "; afterId: " + afterId + "; beforeId: " + beforeId 
+                        + "; pageSize: " + pageSize, ex);
+            }
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Read IDs of comments of the blog entry for the comment ID index.
+     *
+     * @param blogId the id of {@link BlogEntry}
+     * @return IDs of comments in the ascend order
+     */
+    private List<Integer> findCommentIds(int blogId) {
+        return namedQuery("findCommentIdsForBlogId", Integer.class, cb -> {
+            CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+            Root<BlogComment> from = cq.from(BlogComment.class);
+            Path<Integer> id = from.get(AbstractEntity_.id);
+            return cq.select(id).where(cb.equal(from.get(BlogComment_.blogEntry)
+                    .get(BlogEntry_.id), cb.parameter(Integer.class, BLOG_ID))).orderBy(cb.asc(id));
+        }).setParameter(BLOG_ID, blogId).getResultList();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogEntryDao#registerNewComment(int, java.util.Date)
+     */
+    @Loggable
+    @Override
+    public boolean registerNewComment(int blogId, Date dateCreated) {
+        // Unlike a bulk update, changing the managed entity evicts only this entry 
+        // from the second level cache
+        BlogEntry blogEntry = entityManager.find(BlogEntry.class, blogId, 
+                LockModeType.PESSIMISTIC_WRITE);
+        if (blogEntry == null) {
+            return false;
+        }
+        blogEntry.setCommentCount(blogEntry.getCommentCount() + 1);
+        Date lastCommentAt = blogEntry.getLastCommentAt();
+        if ((dateCreated != null) 
+                && ((lastCommentAt == null) || lastCommentAt.before(dateCreated))) {
+            blogEntry.setLastCommentAt(dateCreated);
+        }
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogEntryDao#recountComments(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public int recountComments(Collection<Integer> blogIds) {
+        List<Integer> idList = new ArrayList<>(blogIds);
+        int result = 0;
+        for (int start = 0; start < idList.size(); start += R.BULK_DELETE_CHUNK_SIZE) {
+            List<Integer> chunk = idList.subList(start, 
+                    Math.min(start + R.BULK_DELETE_CHUNK_SIZE, idList.size()));
+            result += createRecountQuery(" WHERE id IN (:ids)")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogEntryDao#recountAllComments()
+     */
+    @Loggable
+    @Override
+    public int recountAllComments() {
+        return createRecountQuery("").executeUpdate();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogEntryDao#compressStoredContent(int)
+     */
+    @Loggable
+    @Override
+    public KeysetChunk compressStoredContent(int afterId) {
+        // Compressed contents are not cut by the listing projection, their excerpts are filled
+        return compressTextColumn("blog_entries", "content", "excerpt", 
+                content -> HtmlExcerpt.of(content, R.BLOG_EXCERPT_LENGTH), afterId);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.BlogEntryDao#findNotRendered(int)
+     */
+    @Loggable
+    @Override
+    public List<BlogEntry> findNotRendered(int afterId) {
+        return findChunkWithoutValue("findNotRendered", BlogEntry_.renderedHtml, afterId, 
+                R.CONTENT_RENDERING_BATCH_SIZE);
+    }
+
+    /**
+     * Create the native recount statement. The correlated subqueries need the outer table 
+     * name which JPQL bulk updates don't render, and the synchronized entity limits the cache 
+     * eviction to the blog entries region.
+     */
+    @SuppressWarnings("rawtypes")
+    private NativeQuery createRecountQuery(String where) {
+        return entityManager.createNativeQuery(RECOUNT_COMMENTS_SQL + where)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(BlogEntry.class);
+    }
 }
@@ -0,0 +1,397 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.dao.impl;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+import tk.serjmusic.models.AbstractEntity;
+import tk.serjmusic.models.BlogComment;
+import tk.serjmusic.utils.R;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+/**
+ * In-memory index of comment IDs of a blog entry or of an author, held as sorted primitive 
+ * {@code int} arrays, so a page of comments is a slice of the array and the comments themselves
+ * are taken from the second level cache. The index of an owner is read from the database once 
+ * and then it is updated when comments are added or removed, the blog entry and the author of 
+ * a comment are never changed.
+ * 
+ * <p>Every owner has a generation, an index is valid for the generation it is tagged with only.
+ * A change of comments starts a new generation when it is flushed, so no index is used while
+ * the change is not committed. After the commit the change is applied to the index read 
+ * before the flush or after it and the index is tagged with a new generation. Other indexes, 
+ * e.g. read before a concurrent change, are dropped. Entries expire in time, so a missed 
+ * update can not live long.
+ * 
+ * <p>The index is disabled if there is no {@value R#COMMENT_ID_INDEX_CACHE_REGION} region, 
+ * e.g. when the second level cache is turned off.
+ *
+ * @author Roman Kondakov
+ */
+@Component
+class CommentIdIndex {
+
+    /**
+     * Owner of indexed comments.
+     */
+    enum Owner {
+        BLOG, AUTHOR
+    }
+
+    private static final String GENERATION_SUFFIX = ":generation";
+
+    private final AtomicLong generations = new AtomicLong();
+    private Ehcache cache;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    CommentIdIndex() {
+        
+    }
+
+    CommentIdIndex(Ehcache cache) {
+        this.cache = cache;
+    }
+
+    @PostConstruct
+    private void init() {
+        // The cache manager is started together with the entity manager factory
+        CacheManager cacheManager = CacheManager.getCacheManager(R.CACHE_MANAGER_NAME);
+        cache = (cacheManager == null) ? null 
+                : cacheManager.getEhcache(R.COMMENT_ID_INDEX_CACHE_REGION);
+        if (cache != null) {
+            EventListenerRegistry registry = entityManagerFactory
+                    .unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            Updater updater = new Updater();
+            registry.appendListeners(EventType.POST_INSERT, updater);
+            registry.appendListeners(EventType.POST_DELETE, updater);
+        }
+    }
+
+    /**
+     * Get sorted comment IDs of the owner.
+     *
+     * @param owner kind of the owner
+     * @param ownerId ID of the blog entry or of the author
+     * @param loader loader of comment IDs of the owner in the ascend order
+     * @return comment IDs in the ascend order or {@code null} if the index is disabled
+     */
+    int[] get(Owner owner, int ownerId, Supplier<List<Integer>> loader) {
+        if (cache == null) {
+            return null;
+        }
+        String key = key(owner, ownerId);
+        long generation = generation(key);
+        Element element = cache.get(key);
+        if ((element != null) && (((Ids) element.getObjectValue()).generation == generation)) {
+            return ((Ids) element.getObjectValue()).ids;
+        }
+        int[] ids = loader.get().stream().mapToInt(Integer::intValue).toArray();
+        cache.put(new Element(key, new Ids(generation, ids)));
+        return ids;
+    }
+
+    /**
+     * Register comments removed by a bulk delete of the current transaction.
+     *
+     * @param entityManager entity manager of the current transaction
+     * @param comments triples of comment ID, blog entry ID and author ID
+     */
+    void removed(EntityManager entityManager, List<Object[]> comments) {
+        if (cache != null) {
+            EventSource session = entityManager.unwrap(EventSource.class);
+            for (Object[] comment : comments) {
+                change(session, (Integer) comment[0], (Integer) comment[1], 
+                        (Integer) comment[2], false);
+            }
+        }
+    }
+
+    /**
+     * Drop indexes of the blog entries and authors now and after the completion of the current 
+     * transaction. It is meant for rare bulk changes, e.g. removal of blog entries or users, 
+     * indexes of other owners are kept.
+     *
+     * @param entityManager entity manager of the current transaction
+     * @param owners pairs of blog entry ID and author ID of changed comments
+     */
+    void invalidate(EntityManager entityManager, List<Object[]> owners) {
+        if ((cache != null) && !owners.isEmpty()) {
+            Set<String> keys = new HashSet<>();
+            for (Object[] owner : owners) {
+                keys.add(key(Owner.BLOG, (Integer) owner[0]));
+                keys.add(key(Owner.AUTHOR, (Integer) owner[1]));
+            }
+            keys.remove(null);
+            drop(keys);
+            entityManager.unwrap(EventSource.class).getActionQueue()
+                    .registerProcess((success, session) -> drop(keys));
+        }
+    }
+
+    /**
+     * Page of IDs in the requested order.
+     *
+     * @param ids IDs in the ascend order
+     * @param ascOrderById whether the ascend ID order is requested
+     * @param pageNumber the number of page (pagination starts with 1)
+     * @param pageSize size of each page
+     * @return IDs of the page
+     */
+    static int[] page(int[] ids, boolean ascOrderById, int pageNumber, int pageSize) {
+        long skipped = (long) (pageNumber - 1) * pageSize;
+        int from = (int) Math.min(skipped, ids.length);
+        int to = (int) Math.min(skipped + pageSize, ids.length);
+        return ascOrderById ? Arrays.copyOfRange(ids, from, to) 
+                : reversed(ids, ids.length - to, ids.length - from);
+    }
+
+    /**
+     * Keyset page of IDs in the requested order, it is the same as the page selected by a query 
+     * built with {@link AbstractGenericDao#applySeek}.
+     *
+     * @param ids IDs in the ascend order
+     * @param ascOrderById whether the ascend ID order is requested
+     * @param afterId exclusive lower bound of IDs or {@code null}
+     * @param beforeId exclusive upper bound of IDs or {@code null}
+     * @param pageSize size of each page
+     * @return IDs of the page
+     */
+    static int[] seek(int[] ids, boolean ascOrderById, Integer afterId, Integer beforeId, 
+            int pageSize) {
+        int low = (afterId == null) ? 0 : insertionPoint(ids, afterId + 1L);
+        int high = (beforeId == null) ? ids.length : insertionPoint(ids, beforeId);
+        high = Math.max(low, high);
+        boolean reversed = (afterId == null) != (beforeId == null) 
+                && (ascOrderById ? beforeId != null : afterId != null);
+        int from;
+        int to;
+        if (ascOrderById != reversed) {
+            from = low;
+            to = Math.min(high, low + pageSize);
+        } else {
+            from = Math.max(low, high - pageSize);
+            to = high;
+        }
+        return ascOrderById ? Arrays.copyOfRange(ids, from, to) : reversed(ids, from, to);
+    }
+
+    private void change(EventSource session, int commentId, Integer blogId, Integer authorId,
+            boolean added) {
+        String[] keys = {key(Owner.BLOG, blogId), key(Owner.AUTHOR, authorId)};
+        // Nobody uses the index until the change is committed
+        long[][] flushed = renew(keys, commentId, added, null);
+        session.getActionQueue().registerProcess(
+            (success, s) -> renew(keys, commentId, added, success ? flushed : null));
+    }
+
+    /**
+     * Start new generations of the owners and apply the committed change to their indexes.
+     *
+     * @param keys keys of the owners, {@code null} for a missing owner
+     * @param commentId ID of the changed comment
+     * @param added whether the comment is added or removed
+     * @param flushed generations before and after the flush of the change or {@code null} if 
+     *     the change is not committed yet or it is rolled back
+     * @return generations before and after the renewal
+     */
+    private synchronized long[][] renew(String[] keys, int commentId, boolean added, 
+            long[][] flushed) {
+        long[][] result = new long[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                continue;
+            }
+            long previous = generation(keys[i]);
+            long generation = generations.incrementAndGet();
+            cache.put(new Element(keys[i] + GENERATION_SUFFIX, generation));
+            result[i] = new long[] {previous, generation};
+            Element element = (flushed == null) ? null : cache.get(keys[i]);
+            if (element == null) {
+                continue;
+            }
+            // Indexes read after the flush or before it, if nothing has changed since then
+            long tag = ((Ids) element.getObjectValue()).generation;
+            if ((tag == previous) || ((tag == flushed[i][0]) && (previous == flushed[i][1]))) {
+                int[] ids = ((Ids) element.getObjectValue()).ids;
+                cache.replace(element, new Element(keys[i], new Ids(generation, 
+                        added ? with(ids, commentId) : without(ids, commentId))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Start new generations of the owners and drop their indexes.
+     *
+     * @param keys keys of the owners
+     */
+    private synchronized void drop(Collection<String> keys) {
+        for (String key : keys) {
+            cache.put(new Element(key + GENERATION_SUFFIX, generations.incrementAndGet()));
+            cache.remove(key);
+        }
+    }
+
+    private long generation(String key) {
+        Element generation = cache.get(key + GENERATION_SUFFIX);
+        if (generation == null) {
+            // A fresh generation, so indexes of an evicted generation can not be used again
+            Element created = new Element(key + GENERATION_SUFFIX, generations.incrementAndGet());
+            generation = cache.putIfAbsent(created);
+            generation = (generation == null) ? created : generation;
+        }
+        return (Long) generation.getObjectValue();
+    }
+
+    private static String key(Owner owner, Integer ownerId) {
+        return (ownerId == null) ? null : owner + ":" + ownerId;
+    }
+
+    private static int insertionPoint(int[] ids, long id) {
+        if (id > Integer.MAX_VALUE) {
+            return ids.length;
+        }
+        int index = Arrays.binarySearch(ids, (int) id);
+        return (index >= 0) ? index : -index - 1;
+    }
+
+    private static int[] with(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        index = -index - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        result[index] = id;
+        System.arraycopy(ids, index, result, index + 1, ids.length - index);
+        return result;
+    }
+
+    private static int[] without(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return result;
+    }
+
+    private static int[] reversed(int[] ids, int from, int to) {
+        int[] result = new int[to - from];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[to - 1 - i];
+        }
+        return result;
+    }
+
+    private static Integer idOf(AbstractEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        // The identifier of a lazy reference is read without its initialization
+        return (entity instanceof HibernateProxy) 
+                ? (Integer) ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier()
+                : entity.getId();
+    }
+
+    /**
+     * Sorted comment IDs of the owner's generation. Arrays are never changed once cached.
+     */
+    private static final class Ids {
+        private final long generation;
+        private final int[] ids;
+
+        private Ids(long generation, int[] ids) {
+            this.generation = generation;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Updates the index with added and removed comments.
+     */
+    private class Updater implements PostInsertEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            onChange(event.getEntity(), event.getSession(), true);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            onChange(event.getEntity(), event.getSession(), false);
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+
+        private void onChange(Object entity, EventSource session, boolean added) {
+            if (entity instanceof BlogComment) {
+                BlogComment comment = (BlogComment) entity;
+                change(session, comment.getId(), idOf(comment.getBlogEntry()), 
+                        idOf(comment.getAuthor()), added);
+            }
+        }
+    }
+}
@@ -31,16 +31,20 @@ import org.apache.log4j.Logger;
 import org.springframework.stereotype.Repository;
 
 import tk.serjmusic.dao.StaticContentDao;
+import tk.serjmusic.models.AbstractEntity_;
 import tk.serjmusic.models.StaticContent;
 import tk.serjmusic.models.StaticContent_;
+import tk.serjmusic.models.projections.KeysetChunk;
 import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.util.List;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
-import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
@@ -54,6 +58,7 @@ public class StaticContentDaoImpl extends AbstractGenericDao<StaticContent>
         implements StaticContentDao {
     
     private static final Logger logger = Logger.getLogger(StaticContentDaoImpl.class);
+    private static final String DESCRIPTION = "description";
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -70,12 +75,16 @@ public class StaticContentDaoImpl extends AbstractGenericDao<StaticContent>
     public StaticContent findStaticContentByDescription(String description) {
         StaticContent result = null;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<StaticContent> cq = cb.createQuery(StaticContent.class);
-            Root<StaticContent> from = cq.from(StaticContent.class);
-            cq.select(from)
-                    .where(cb.equal(from.get(StaticContent_.contentDescription), description));
-            TypedQuery<StaticContent> tq = entityManager.createQuery(cq);
+            TypedQuery<StaticContent> tq = namedQuery("findStaticContentByDescription", 
+                    StaticContent.class, cb -> {
+                    CriteriaQuery<StaticContent> cq = cb.createQuery(StaticContent.class);
+                    Root<StaticContent> from = cq.from(StaticContent.class);
+                    return cq.select(from).where(cb.equal(
+                            from.get(StaticContent_.contentDescription), 
+                            cb.parameter(String.class, DESCRIPTION)))
+                            .orderBy(cb.asc(from.get(AbstractEntity_.id)));
+                });
+            tq.setParameter(DESCRIPTION, description).setMaxResults(1);
             tq.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
             result = tq.getSingleResult();
         } catch (NoResultException ex) {
@@ -86,4 +95,27 @@ public class StaticContentDaoImpl extends AbstractGenericDao<StaticContent>
         }
         return result;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.StaticContentDao#compressStoredContent(int)
+     */
+    @Loggable
+    @Override
+    public KeysetChunk compressStoredContent(int afterId) {
+        return compressTextColumn("static_content", "content", null, null, afterId);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.StaticContentDao#findNotRendered(int)
+     */
+    @Loggable
+    @Override
+    public List<StaticContent> findNotRendered(int afterId) {
+        return findChunkWithoutValue("findNotRendered", StaticContent_.renderedHtml, afterId, 
+                R.CONTENT_RENDERING_BATCH_SIZE);
+    }
 }
@@ -0,0 +1,181 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.dao.impl;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import tk.serjmusic.dao.UserAvatarDao;
+import tk.serjmusic.models.UserAvatar;
+import tk.serjmusic.models.UserAvatar_;
+import tk.serjmusic.models.projections.AvatarContent;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.sql.DataSource;
+
+/**
+ * JPA implementation of {@link UserAvatarDao}.
+ *
+ * @author Roman Kondakov
+ */
+@Repository
+public class UserAvatarDaoImpl extends AbstractGenericDao<UserAvatar> implements UserAvatarDao {
+
+    private static final Logger logger = Logger.getLogger(UserAvatarDaoImpl.class);
+    private static final String HASH = "hash";
+    private static final String SELECT_CONTENT_SQL = 
+            "SELECT content_type, LENGTH(data) FROM user_avatars WHERE hash = ?";
+    private static final String SELECT_DATA_SQL = "SELECT data FROM user_avatars WHERE hash = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PostConstruct
+    private void init() {
+        setEntityManager(entityManager);
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.UserAvatarDao#findAvatarByHash(java.lang.String)
+     */
+    @Loggable
+    @Override
+    public UserAvatar findAvatarByHash(String hash) {
+        UserAvatar result = null;
+        try {
+            TypedQuery<UserAvatar> tq = namedQuery("findAvatarByHash", UserAvatar.class, cb -> {
+                CriteriaQuery<UserAvatar> cq = cb.createQuery(UserAvatar.class);
+                Root<UserAvatar> from = cq.from(UserAvatar.class);
+                return cq.select(from).where(cb.equal(from.get(UserAvatar_.hash), 
+                        cb.parameter(String.class, HASH)));
+            });
+            // Avatars are not cached: the content is only read by the avatar resource, 
+            // and it is cached by HTTP clients for good
+            result = tq.setParameter(HASH, hash).getSingleResult();
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findAvatarByHash " + hash, ex);
+            }
+            result = null;
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.UserAvatarDao#findAvatarContentByHash(java.lang.String)
+     */
+    @Loggable
+    @Override
+    public AvatarContent findAvatarContentByHash(String hash) {
+        List<?> rows = entityManager.createNativeQuery(SELECT_CONTENT_SQL)
+                .setParameter(1, hash)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return new AvatarContent(hash, (String) row[0], ((Number) row[1]).longValue(), 
+                () -> openData(hash));
+    }
+
+    /**
+     * Open the stream of the avatar image. The resource is written after the transaction of 
+     * the request is finished, so the stream has its own connection, which is closed together
+     * with the stream.
+     */
+    private InputStream openData(String hash) throws IOException {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            PreparedStatement statement = connection.prepareStatement(SELECT_DATA_SQL);
+            statement.setString(1, hash);
+            ResultSet resultSet = statement.executeQuery();
+            if (resultSet.next()) {
+                return new ConnectionInputStream(resultSet.getBinaryStream(1), connection);
+            }
+        } catch (SQLException ex) {
+            close(connection);
+            throw new IOException("Can not read avatar " + hash, ex);
+        }
+        close(connection);
+        throw new FileNotFoundException("Avatar " + hash + " is removed");
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            logger.warn("Can not close connection", ex);
+        }
+    }
+
+    /**
+     * Stream of a JDBC result which closes the connection of the result at the end.
+     */
+    private static final class ConnectionInputStream extends FilterInputStream {
+        private final Connection connection;
+
+        private ConnectionInputStream(InputStream in, Connection connection) {
+            super(in);
+            this.connection = connection;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                UserAvatarDaoImpl.close(connection);
+            }
+        }
+    }
+}
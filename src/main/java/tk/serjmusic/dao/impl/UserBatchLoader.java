@@ -0,0 +1,117 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.dao.impl;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.proxy.HibernateProxy;
+
+import tk.serjmusic.models.BlogComment;
+import tk.serjmusic.models.User;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+
+/**
+ * Batch loader of lazy {@link User} references, e.g. authors of a page of comments. References
+ * are collected first and then loaded together: users cached in the second level cache are 
+ * taken from it, the rest are read with a single {@code IN (...)} query. The persistence 
+ * context is the identity map, so every collected proxy is initialized without a statement of
+ * its own. A loader is meant to be used for one list and thrown away.
+ *
+ * @author Roman Kondakov
+ */
+final class UserBatchLoader {
+
+    private final EntityManager entityManager;
+    private final Map<Serializable, User> references = new LinkedHashMap<>();
+
+    UserBatchLoader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Collect the user reference if it is not loaded yet.
+     *
+     * @param user user reference, may be {@code null}
+     * @return this loader
+     */
+    UserBatchLoader add(User user) {
+        if ((user != null) && !Hibernate.isInitialized(user)) {
+            references.putIfAbsent(
+                    ((HibernateProxy) user).getHibernateLazyInitializer().getIdentifier(), user);
+        }
+        return this;
+    }
+
+    /**
+     * Collect authors of the comments and authors of their blog entries.
+     *
+     * @param comments comments, may be {@code null}
+     * @return this loader
+     */
+    UserBatchLoader addCommentAuthors(Collection<? extends BlogComment> comments) {
+        if (comments != null) {
+            for (BlogComment comment : comments) {
+                add(comment.getAuthor());
+                if (comment.getBlogEntry() != null) {
+                    add(comment.getBlogEntry().getAuthor());
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Load all collected users.
+     */
+    void load() {
+        if (references.isEmpty()) {
+            return;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<Serializable> misses = new ArrayList<>();
+        references.forEach((id, user) -> {
+            if (!cache.contains(User.class, id)) {
+                misses.add(id);
+            }
+        });
+        if (!misses.isEmpty()) {
+            entityManager.unwrap(Session.class).byMultipleIds(User.class).multiLoad(misses);
+        }
+        references.values().forEach(Hibernate::initialize);
+        references.clear();
+    }
+}
@@ -23,27 +23,47 @@
 package tk.serjmusic.dao.impl;
 
 import org.apache.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import tk.serjmusic.dao.BlogCommentDao;
+import tk.serjmusic.dao.BlogEntryDao;
 import tk.serjmusic.dao.UserDao;
+import tk.serjmusic.dao.impl.CommentIdIndex.Owner;
 import tk.serjmusic.models.BlogComment;
+import tk.serjmusic.models.AbstractEntity_;
 import tk.serjmusic.models.BlogComment_;
+import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.BlogEntry_;
 import tk.serjmusic.models.User;
 import tk.serjmusic.models.User_;
 import tk.serjmusic.utils.R;
 import tk.serjmusic.utils.logging.Loggable;
 
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
 /**
  * JPA implementation of {@link UserDao}.
@@ -54,15 +74,85 @@ import javax.persistence.criteria.Root;
 public class UserDaoImpl extends AbstractGenericDao<User> implements UserDao {
 
     private static final Logger logger = Logger.getLogger(UserDaoImpl.class);
+    private static final String EMAIL = "email";
+    private static final String USER_ID = "userId";
+    private static final String SELECT_LEGACY_AVATARS_SQL = "SELECT id, image_file FROM users "
+            + "WHERE id > ? AND image_file IS NOT NULL AND avatar_hash IS NULL ORDER BY id";
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private BlogCommentDao commentDao;
+
+    @Autowired
+    private BlogEntryDao blogDao;
+
+    @Autowired
+    private CommentIdIndex commentIds;
+
     @PostConstruct
     private void init() {
         setEntityManager(entityManager);
     }
 
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.impl.AbstractGenericDao#removeDependentsById(java.util.List)
+     */
+    @Override
+    protected void removeDependentsById(List<Integer> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        List<Integer> commentedBlogIds = commentDao.findBlogIdsByAuthorIds(ids);
+        
+        // comments written by users and comments to their blogs, bulk delete bypasses the 
+        // entity listeners, so comment ID indexes of their owners are dropped here
+        CriteriaQuery<Object[]> ownersQuery = cb.createQuery(Object[].class);
+        Root<BlogComment> owner = ownersQuery.from(BlogComment.class);
+        ownersQuery.multiselect(owner.get(BlogComment_.blogEntry).get(AbstractEntity_.id),
+                owner.get(BlogComment_.author).get(AbstractEntity_.id))
+                   .where(commentsOfUsers(cb, ownersQuery, owner, ids))
+                   .distinct(true);
+        List<Object[]> owners = entityManager.createQuery(ownersQuery).getResultList();
+        
+        CriteriaDelete<BlogComment> commentsDelete = cb.createCriteriaDelete(BlogComment.class);
+        Root<BlogComment> comment = commentsDelete.from(BlogComment.class);
+        commentsDelete.where(commentsOfUsers(cb, commentsDelete, comment, ids));
+        entityManager.createQuery(commentsDelete).executeUpdate();
+        commentIds.invalidate(entityManager, owners);
+        
+        // blogs
+        CriteriaDelete<BlogEntry> blogsDelete = cb.createCriteriaDelete(BlogEntry.class);
+        Root<BlogEntry> blogs = blogsDelete.from(BlogEntry.class);
+        blogsDelete.where(blogs.get(BlogEntry_.author).get(AbstractEntity_.id).in(ids));
+        entityManager.createQuery(blogsDelete).executeUpdate();
+        
+        // comment counts of other users blogs which were commented by removed users
+        if (!commentedBlogIds.isEmpty()) {
+            blogDao.recountComments(commentedBlogIds);
+        }
+        
+        // roles are an element collection which can't be deleted with JPQL, the query space 
+        // limits the cache eviction to the roles collection region
+        entityManager.createNativeQuery("DELETE FROM roles WHERE user_id IN (:ids)")
+                .setParameter("ids", ids)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("roles")
+                .executeUpdate();
+    }
+
+    /**
+     * Restriction of comments written by the users or commented on their blog entries.
+     */
+    private static Predicate commentsOfUsers(CriteriaBuilder cb, CommonAbstractCriteria query,
+            Root<BlogComment> comment, List<Integer> ids) {
+        Subquery<Integer> blogsOfUsers = query.subquery(Integer.class);
+        Root<BlogEntry> blog = blogsOfUsers.from(BlogEntry.class);
+        blogsOfUsers.select(blog.get(AbstractEntity_.id))
+                    .where(blog.get(BlogEntry_.author).get(AbstractEntity_.id).in(ids));
+        return cb.or(comment.get(BlogComment_.author).get(AbstractEntity_.id).in(ids),
+                comment.get(BlogComment_.blogEntry).get(AbstractEntity_.id).in(blogsOfUsers));
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -71,22 +161,12 @@ public class UserDaoImpl extends AbstractGenericDao<User> implements UserDao {
     @Loggable
     @Override
     public User findUserByUsername(String username) {
-        User result = null;
-        try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<User> cq = cb.createQuery(User.class);
-            Root<User> from = cq.from(User.class);
-            cq.select(from).where(cb.equal(from.get(User_.username), username));
-            TypedQuery<User> tq = entityManager.createQuery(cq);
-            tq.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
-            result = tq.getSingleResult();
-        } catch (NoResultException ex) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("No results for getUserByUsername " + username, ex);
-            }
-            result = null;
+        if (username == null) {
+            return null;
         }
-        return result;
+        // Unlike the query cache, the natural ID cache is not invalidated by writes to users
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class)
+                .load(username);
     }
 
     /*
@@ -99,11 +179,13 @@ public class UserDaoImpl extends AbstractGenericDao<User> implements UserDao {
     public User findUserByEmail(String email) {
         User result = null;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<User> cq = cb.createQuery(User.class);
-            Root<User> from = cq.from(User.class);
-            cq.select(from).where(cb.equal(from.get(User_.email), email));
-            TypedQuery<User> tq = entityManager.createQuery(cq);
+            TypedQuery<User> tq = namedQuery("findUserByEmail", User.class, cb -> {
+                CriteriaQuery<User> cq = cb.createQuery(User.class);
+                Root<User> from = cq.from(User.class);
+                return cq.select(from).where(cb.equal(from.get(User_.email), 
+                        cb.parameter(String.class, EMAIL)));
+            });
+            tq.setParameter(EMAIL, email);
             tq.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
             result = tq.getSingleResult();
         } catch (NoResultException ex) {
@@ -125,18 +207,26 @@ public class UserDaoImpl extends AbstractGenericDao<User> implements UserDao {
     public List<BlogComment> findUserCommentsByUserId(int id, int pageNumber, int pageSize) {
         List<BlogComment> result = null;
         try {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<BlogComment> cq = cb.createQuery(BlogComment.class);
-            Root<BlogComment> blogCommentRoot = cq.from(BlogComment.class);
-            Join<BlogComment, User> u = blogCommentRoot.join(BlogComment_.author);
-            cq.select(blogCommentRoot).where(cb.equal(u.get(User_.id), id));
-            cq.orderBy(cb.asc(blogCommentRoot.get(BlogComment_.id)));
-            cq.distinct(true);
-            TypedQuery<BlogComment> tq = entityManager.createQuery(cq);
-            int startPosition = (pageNumber - 1) * pageSize;
-            tq.setFirstResult(startPosition).setMaxResults(pageSize);
-            tq.setHint(R.HIBERNATE_QUERY_CACHE_NAME, true);
-            result = tq.getResultList();
+            int[] ids = commentIds.get(Owner.AUTHOR, id, () -> findCommentIds(id));
+            result = (ids == null) ? null : findAllInOrder(BlogComment.class, 
+                    CommentIdIndex.page(ids, true, pageNumber, pageSize));
+            if (result == null) {
+                TypedQuery<BlogComment> tq = namedQuery("findUserCommentsByUserId", 
+                        BlogComment.class, cb -> {
+                        CriteriaQuery<BlogComment> cq = cb.createQuery(BlogComment.class);
+                        Root<BlogComment> blogCommentRoot = cq.from(BlogComment.class);
+                        Join<BlogComment, User> u = blogCommentRoot.join(BlogComment_.author);
+                        cq.select(blogCommentRoot).where(cb.equal(u.get(User_.id), 
+                                cb.parameter(Integer.class, USER_ID)));
+                        cq.orderBy(cb.asc(blogCommentRoot.get(BlogComment_.id)));
+                        return cq.distinct(true);
+                    });
+                withListGraph(tq, BlogComment.class).setParameter(USER_ID, id);
+                int startPosition = (pageNumber - 1) * pageSize;
+                tq.setFirstResult(startPosition).setMaxResults(pageSize);
+                result = tq.getResultList();
+            }
+            new UserBatchLoader(entityManager).addCommentAuthors(result).load();
         } catch (NoResultException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("No results for findUserCommentsByUserId, id: " + id + "; pageNumber:"
@@ -149,4 +239,102 @@ public class UserDaoImpl extends AbstractGenericDao<User> implements UserDao {
         }
         return result;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.dao.UserDao#findSeekUserCommentsByUserId(int, java.lang.Integer, 
+     * java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public List<BlogComment> findSeekUserCommentsByUserId(int id, Integer afterId, 
+            Integer beforeId, int pageSize) {
+        List<BlogComment> result = null;
+        try {
+            int[] ids = commentIds.get(Owner.AUTHOR, id, () -> findCommentIds(id));
+            result = (ids == null) ? null : findAllInOrder(BlogComment.class, 
+                    CommentIdIndex.seek(ids, true, afterId, beforeId, pageSize));
+            if (result == null) {
+                String name = seekQueryName("findSeekUserCommentsByUserId", true, 
+                        afterId, beforeId);
+                TypedQuery<BlogComment> tq = namedQuery(name, BlogComment.class, cb -> {
+                    CriteriaQuery<BlogComment> cq = cb.createQuery(BlogComment.class);
+                    Root<BlogComment> blogCommentRoot = cq.from(BlogComment.class);
+                    cq.select(blogCommentRoot);
+                    List<Predicate> predicates = new ArrayList<>();
+                    // Compare the foreign key only, so the (author_id, id) index covers 
+                    // the query
+                    predicates.add(cb.equal(
+                            blogCommentRoot.get(BlogComment_.author).get(User_.id), 
+                            cb.parameter(Integer.class, USER_ID)));
+                    applySeek(cb, cq, blogCommentRoot.get(BlogComment_.id), predicates, true, 
+                            seekParameter(cb, AFTER_ID, afterId), 
+                            seekParameter(cb, BEFORE_ID, beforeId));
+                    return cq;
+                });
+                withListGraph(tq, BlogComment.class).setParameter(USER_ID, id);
+                boolean reversed = bindSeek(tq, true, afterId, beforeId);
+                tq.setMaxResults(pageSize);
+                result = seekResult(tq.getResultList(), reversed);
+            }
+            new UserBatchLoader(entityManager).addCommentAuthors(result).load();
+        } catch (NoResultException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No results for findSeekUserCommentsByUserId, id: " + id 
+                        + "; afterId: " + afterId + "; beforeId: " + beforeId 
+                        + "; pageSize: " + pageSize, ex);
+            }
+            result = null;
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.dao.UserDao#findLegacyAvatars(int)
+     */
+    @Loggable
+    @Override
+    public SortedMap<Integer, byte[]> findLegacyAvatars(int afterId) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            SortedMap<Integer, byte[]> result = new TreeMap<>();
+            // The column is not mapped anymore, databases created later don't have it
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.storesUpperCaseIdentifiers()
+                    ? metaData.getColumns(null, null, "USERS", "IMAGE_FILE")
+                    : metaData.getColumns(null, null, "users", "image_file")) {
+                if (!columns.next()) {
+                    return result;
+                }
+            }
+            try (PreparedStatement query = 
+                    connection.prepareStatement(SELECT_LEGACY_AVATARS_SQL)) {
+                query.setMaxRows(R.AVATAR_MIGRATION_BATCH_SIZE);
+                query.setInt(1, afterId);
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        result.put(resultSet.getInt(1), resultSet.getBytes(2));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Read IDs of comments of the user for the comment ID index.
+     *
+     * @param id the id of {@link User}
+     * @return IDs of comments in the ascend order
+     */
+    private List<Integer> findCommentIds(int id) {
+        return namedQuery("findCommentIdsByUserId", Integer.class, cb -> {
+            CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+            Root<BlogComment> from = cq.from(BlogComment.class);
+            Path<Integer> commentId = from.get(AbstractEntity_.id);
+            return cq.select(commentId).where(cb.equal(from.get(BlogComment_.author)
+                    .get(User_.id), cb.parameter(Integer.class, USER_ID)))
+                    .orderBy(cb.asc(commentId));
+        }).setParameter(USER_ID, id).getResultList();
+    }
 }
@@ -27,11 +27,19 @@
 
 package tk.serjmusic.models;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
+
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
 /**
  * An abstract class which is a superclass for all entities in application.
@@ -39,21 +47,48 @@ import javax.persistence.MappedSuperclass;
  * @author Roman Kondakov
  */
 @MappedSuperclass
-public abstract class AbstractEntity {
+public abstract class AbstractEntity implements Identifiable {
 
     /**
-     * Basic id field for all.
+     * Basic id field for all. IDs are allocated in blocks from the {@code id_generator} table 
+     * (one row per entity table), so Hibernate may batch inserts which is impossible with 
+     * IDENTITY columns.
      */
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "pooled_id")
+    @GenericGenerator(name = "pooled_id", 
+            strategy = "org.hibernate.id.enhanced.TableGenerator",
+            parameters = {
+                @Parameter(name = "table_name", value = "id_generator"),
+                @Parameter(name = "prefer_entity_table_as_segment_value", value = "true"),
+                @Parameter(name = "optimizer", value = "pooled-lo"),
+                @Parameter(name = "increment_size", value = "50")
+            })
     private int id;
 
+    /**
+     * Optimistic lock version, it is incremented by every update of the entity and is a part 
+     * of ETags of its representations.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private int version;
+
+    /**
+     * Time of the last insert or update, {@code null} for rows stored before it was introduced.
+     */
+    @UpdateTimestamp
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
     /**
      * Id getter.
      *
      * @return the id of the entity.
      */
+    @Override
     public int getId() {
         return id;
     }
@@ -66,4 +101,40 @@ public abstract class AbstractEntity {
     public void setId(final int id) {
         this.id = id;
     }
+
+    /**
+     * Version getter.
+     *
+     * @return the version of the entity.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Version setter.
+     *
+     * @param version the version of the entity to set.
+     */
+    public void setVersion(final int version) {
+        this.version = version;
+    }
+
+    /**
+     * Update time getter.
+     *
+     * @return the time of the last update or {@code null}.
+     */
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Update time setter.
+     *
+     * @param updatedAt the time of the last update to set.
+     */
+    public void setUpdatedAt(final Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -24,30 +24,50 @@ package tk.serjmusic.models;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import tk.serjmusic.utils.R;
 
 import java.util.Date;
 
 import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
 /**
- * Entity for a {@link BlogEntry} comment.
+ * Entity for a {@link BlogEntry} comment. The "list" entity graph contains associations 
+ * which are shown with each comment of a list.
  *
  * @author Roman Kondakov
  */
 
 @Entity
-@Table(name = "blog_comments")
+@Table(name = "blog_comments", indexes = {
+        @Index(name = "idx_blog_comments_blog_entry_id", columnList = "blog_entry_id, id"),
+        @Index(name = "idx_blog_comments_author_id", columnList = "author_id, id")})
+@NamedEntityGraph(name = "BlogComment" + R.LIST_ENTITY_GRAPH_SUFFIX, 
+        attributeNodes = {
+            @NamedAttributeNode("author"),
+            @NamedAttributeNode(value = "blogEntry", subgraph = "blogEntry")}, 
+        subgraphs = @NamedSubgraph(name = "blogEntry", 
+                attributeNodes = @NamedAttributeNode("author")))
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class BlogComment extends AbstractEntity {
 
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "content", nullable = false, columnDefinition = "TEXT")
     private String content;
 
@@ -55,7 +75,7 @@ public class BlogComment extends AbstractEntity {
     @Column(name = "date_created")
     private Date dateCreated;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
 
@@ -24,42 +24,82 @@ package tk.serjmusic.models;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
+
+import tk.serjmusic.utils.HtmlExcerpt;
+import tk.serjmusic.utils.R;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.Basic;
 import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
 
 /**
  * A blog entity. Contains blog title, description and link to blog images. Blog entries may be
- * associated with it's comments.
+ * associated with it's comments. The "list" entity graph contains associations which are 
+ * shown with each entry of a list. The content is lazy if the entity is enhanced, so lists of 
+ * entries don't read it. The content is shown to readers as the sanitized HTML which is 
+ * rendered by the service layer when the entry is written.
  *
  * @author Roman Kondakov
  */
 
 @Entity
 @Table(name = "blog_entries")
+@NamedEntityGraph(name = "BlogEntry" + R.LIST_ENTITY_GRAPH_SUFFIX, 
+        attributeNodes = @NamedAttributeNode("author"))
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+@DynamicUpdate
 public class BlogEntry extends AbstractEntity {
 
     @Column(name = "title", nullable = false, columnDefinition = "TINYTEXT")
     private String title;
 
+    // Lazy for entities enhanced by the "enhance" build profile, it isn't shown in lists. 
+    // Large contents are stored compressed.
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("content")
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "content", nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_format", length = 16)
+    private ContentFormat contentFormat = ContentFormat.HTML;
+
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("content")
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "rendered_html", columnDefinition = "TEXT")
+    private String renderedHtml;
+
+    @Column(name = "excerpt", length = 512)
+    private String excerpt;
+
+    // Set by the content setters only, so patches of other attributes are not rendered again
+    @Transient
+    private boolean contentChanged;
+
     @Column(name = "image_link", columnDefinition = "TEXT")
     private String imageLink;
 
@@ -67,12 +107,19 @@ public class BlogEntry extends AbstractEntity {
     @Column(name = "date_created")
     private Date dateCreated;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
+
+    @Column(name = "comment_count", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private int commentCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "last_comment_at")
+    private Date lastCommentAt;
     
+    // Not cached, comment pages are served by the comment ID index of the DAO
     @OneToMany(mappedBy = "blogEntry", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<BlogComment> comments = new ArrayList<>();
 
     public BlogEntry() {
@@ -111,12 +158,75 @@ public class BlogEntry extends AbstractEntity {
     }
 
     /**
-     * Content setter.
+     * Content setter. Updates the stored excerpt as well.
      * 
      * @param content the content to set
      */
     public void setContent(String content) {
         this.content = content;
+        this.excerpt = HtmlExcerpt.of(content, R.BLOG_EXCERPT_LENGTH);
+        this.contentChanged = true;
+    }
+
+    /**
+     * Content format getter. It is {@code null} for entries stored before formats were 
+     * introduced, their content is HTML.
+     * 
+     * @return the contentFormat
+     */
+    public ContentFormat getContentFormat() {
+        return contentFormat;
+    }
+
+    /**
+     * Content format setter.
+     * 
+     * @param contentFormat the contentFormat to set
+     */
+    public void setContentFormat(ContentFormat contentFormat) {
+        this.contentFormat = contentFormat;
+        this.contentChanged = true;
+    }
+
+    /**
+     * Whether the content or its format was set since the entry was loaded or last rendered.
+     * 
+     * @return {@code true} if the content should be rendered again
+     */
+    public boolean isContentChanged() {
+        return contentChanged;
+    }
+
+    /**
+     * Rendered HTML getter. It is {@code null} for entries which were not written since 
+     * the rendering was introduced.
+     * 
+     * @return the sanitized HTML of the content
+     */
+    public String getRenderedHtml() {
+        return renderedHtml;
+    }
+
+    /**
+     * Rendered HTML setter. Updates the stored excerpt as well, so the excerpt of Markdown 
+     * content doesn't contain its markup.
+     * 
+     * @param renderedHtml the sanitized HTML of the content to set
+     */
+    public void setRenderedHtml(String renderedHtml) {
+        this.renderedHtml = renderedHtml;
+        this.excerpt = HtmlExcerpt.of(renderedHtml, R.BLOG_EXCERPT_LENGTH);
+        this.contentChanged = false;
+    }
+
+    /**
+     * Excerpt getter. The excerpt is a plain text beginning of the content which is shown 
+     * on list pages.
+     * 
+     * @return the excerpt
+     */
+    public String getExcerpt() {
+        return excerpt;
     }
 
     /**
@@ -173,6 +283,43 @@ public class BlogEntry extends AbstractEntity {
         this.author = author;
     }
 
+    /**
+     * Comment count getter. The count is denormalized, it is maintained when comments are 
+     * created or deleted through the service layer.
+     * 
+     * @return the commentCount
+     */
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    /**
+     * Comment count setter.
+     * 
+     * @param commentCount the commentCount to set
+     */
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    /**
+     * Last comment date getter. It is {@code null} if the entry has no comments.
+     * 
+     * @return the lastCommentAt
+     */
+    public Date getLastCommentAt() {
+        return lastCommentAt;
+    }
+
+    /**
+     * Last comment date setter.
+     * 
+     * @param lastCommentAt the lastCommentAt to set
+     */
+    public void setLastCommentAt(Date lastCommentAt) {
+        this.lastCommentAt = lastCommentAt;
+    }
+
     /**
      * Comments getter.
      * 
@@ -202,6 +349,7 @@ public class BlogEntry extends AbstractEntity {
         int result = 1;
         result = prime * result + ((author == null) ? 0 : author.hashCode());
         result = prime * result + ((content == null) ? 0 : content.hashCode());
+        result = prime * result + ((contentFormat == null) ? 0 : contentFormat.hashCode());
         result = prime * result + ((dateCreated == null) ? 0 : dateCreated.hashCode());
         result = prime * result + ((imageLink == null) ? 0 : imageLink.hashCode());
         result = prime * result + ((title == null) ? 0 : title.hashCode());
@@ -239,6 +387,9 @@ public class BlogEntry extends AbstractEntity {
         } else if (!content.equals(other.content)) {
             return false;
         }
+        if (contentFormat != other.contentFormat) {
+            return false;
+        }
         if (dateCreated == null) {
             if (other.dateCreated != null) {
                 return false;
@@ -270,8 +421,8 @@ public class BlogEntry extends AbstractEntity {
      */
     @Override
     public String toString() {
-        return "#" + getId() + ", BlogEntry [title=" + title + ", content=" + content 
-                + ", imageLink=" + imageLink + ", dateCreated=" + dateCreated 
-                + ", author=" + author + "]";
+        return "#" + getId() + ", BlogEntry [title=" + title + ", excerpt=" + excerpt 
+                + ", contentFormat=" + contentFormat + ", imageLink=" + imageLink 
+                + ", dateCreated=" + dateCreated + ", author=" + author + "]";
     }
 }
@@ -24,6 +24,7 @@ package tk.serjmusic.models;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.Cacheable;
 import javax.persistence.Column;
@@ -39,6 +40,7 @@ import javax.persistence.Table;
 @Table(name = "photo_entries")
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+@DynamicUpdate
 public class PhotoEntry extends AbstractEntity {
 
     @Column(name = "title", nullable = false, columnDefinition = "TINYTEXT")
@@ -24,31 +24,51 @@ package tk.serjmusic.models;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import tk.serjmusic.utils.R;
 
 import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 /**
- * An entiity for static website content {@literal (i.e. Contacts, About etc.)}.
+ * An entiity for static website content {@literal (i.e. Contacts, About etc.)}. Every 
+ * description may have one content per language. The content is shown as the sanitized HTML 
+ * which is rendered by the service layer when the content is written.
  *
  * @author Roman Kondakov
  */
 @Entity
-@Table(name = "static_content")
+@Table(name = "static_content", uniqueConstraints = @UniqueConstraint(
+        columnNames = {"content_description", "content_language"}))
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+@DynamicUpdate
 public class StaticContent extends AbstractEntity {
 
-    @Column(name = "content_description", unique = true, nullable = false)
+    @Column(name = "content_description", nullable = false)
     private String contentDescription = "";
 
     @Column(name = "content_language", nullable = false, columnDefinition = "CHAR(2)")
-    private String language = "RU";
+    private String language = R.DEFAULT_CONTENT_LANGUAGE;
 
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "content", nullable = false, columnDefinition = "TEXT")
     private String content;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_format", length = 16)
+    private ContentFormat contentFormat = ContentFormat.HTML;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "rendered_html", columnDefinition = "TEXT")
+    private String renderedHtml;
     
     public StaticContent() {
         
@@ -112,6 +132,44 @@ public class StaticContent extends AbstractEntity {
         this.content = content;
     }
 
+    /**
+     * Content format getter. It is {@code null} for contents stored before formats were 
+     * introduced, they are HTML.
+     * 
+     * @return the contentFormat
+     */
+    public ContentFormat getContentFormat() {
+        return contentFormat;
+    }
+
+    /**
+     * Content format setter.
+     * 
+     * @param contentFormat the contentFormat to set
+     */
+    public void setContentFormat(ContentFormat contentFormat) {
+        this.contentFormat = contentFormat;
+    }
+
+    /**
+     * Rendered HTML getter. It is {@code null} for contents which were not written since 
+     * the rendering was introduced.
+     * 
+     * @return the sanitized HTML of the content
+     */
+    public String getRenderedHtml() {
+        return renderedHtml;
+    }
+
+    /**
+     * Rendered HTML setter.
+     * 
+     * @param renderedHtml the sanitized HTML of the content to set
+     */
+    public void setRenderedHtml(String renderedHtml) {
+        this.renderedHtml = renderedHtml;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
      */
@@ -120,6 +178,7 @@ public class StaticContent extends AbstractEntity {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((content == null) ? 0 : content.hashCode());
+        result = prime * result + ((contentFormat == null) ? 0 : contentFormat.hashCode());
         result = prime * result
                 + ((contentDescription == null) ? 0 : contentDescription.hashCode());
         result = prime * result + ((language == null) ? 0 : language.hashCode());
@@ -148,6 +207,9 @@ public class StaticContent extends AbstractEntity {
         } else if (!content.equals(other.content)) {
             return false;
         }
+        if (contentFormat != other.contentFormat) {
+            return false;
+        }
         if (contentDescription == null) {
             if (other.contentDescription != null) {
                 return false;
@@ -171,6 +233,7 @@ public class StaticContent extends AbstractEntity {
     @Override
     public String toString() {
         return "#" + getId() + ", StaticContent [contentDescription=" + contentDescription 
-                + ", language=" + language + ", content=" + content + "]";
+                + ", language=" + language + ", contentFormat=" + contentFormat 
+                + ", content=" + content + "]";
     }
 }
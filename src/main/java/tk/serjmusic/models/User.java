@@ -29,9 +29,15 @@ package tk.serjmusic.models;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import tk.serjmusic.utils.R;
+
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -46,7 +52,6 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
-import javax.persistence.Lob;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.validation.constraints.Pattern;
@@ -63,11 +68,17 @@ import javax.validation.constraints.Size;
 @Table(name = "users")
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@NaturalIdCache(region = R.USER_NATURAL_ID_CACHE_REGION)
 public class User extends AbstractEntity implements UserDetails {
     
+    /**
+     * Login key, resolved to the ID through the natural ID cache.
+     */
     @Size(min = 3, max = 20, message = "Username should be between 3 and 20")
     @Pattern(regexp = "^[a-zA-Z0-9_]+$",
             message = "username should contain letters and numbers only")
+    @NaturalId(mutable = true)
     @Column(name = "username", nullable = false, unique = true, columnDefinition = "VARCHAR(255)")
     private String username;
     
@@ -82,6 +93,8 @@ public class User extends AbstractEntity implements UserDetails {
     @Column(name = "role")
     @Enumerated(EnumType.STRING)
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    // Roles of users loaded together are read with one statement
+    @BatchSize(size = R.FETCH_BATCH_SIZE)
     private Set<UserRole> roles = new HashSet<>();
     
     @Column(name = "is_banned", nullable = false, columnDefinition = "TINYINT(1)")
@@ -90,9 +103,11 @@ public class User extends AbstractEntity implements UserDetails {
     @Column(name = "image_link", columnDefinition = "TEXT")
     private String imageLink;
     
-    @Lob
-    @Column(name = "image_file")
-    private byte[] imageFile;
+    /**
+     * Hash of the {@link UserAvatar}, the image itself is stored apart.
+     */
+    @Column(name = "avatar_hash", columnDefinition = "CHAR(64)")
+    private String avatarHash;
     
     @OneToMany(mappedBy = "author", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private Set<BlogEntry> blogs = new HashSet<>();
@@ -293,21 +308,21 @@ public class User extends AbstractEntity implements UserDetails {
     }
 
     /**
-     * Image file setter.
+     * Avatar hash getter.
      * 
-     * @return the imageFile
+     * @return the hash of the {@link UserAvatar} or {@code null} if user has no avatar
      */
-    public byte[] getImageFile() {
-        return imageFile;
+    public String getAvatarHash() {
+        return avatarHash;
     }
 
     /**
-     * Image file getter.
+     * Avatar hash setter.
      * 
-     * @param imageFile the imageFile to set
+     * @param avatarHash the hash of the {@link UserAvatar}
      */
-    public void setImageFile(byte[] imageFile) {
-        this.imageFile = imageFile;
+    public void setAvatarHash(String avatarHash) {
+        this.avatarHash = avatarHash;
     }
 
     /* (non-Javadoc)
@@ -0,0 +1,171 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * Content-addressed avatar image of a {@link User}. The image is stored apart from the 
+ * {@code users} row and it's referenced by the SHA-256 hash of its content, so equal images 
+ * are stored once. Avatars are not kept in the second level cache.
+ *
+ * @author Roman Kondakov
+ */
+@Entity
+@Table(name = "user_avatars")
+public class UserAvatar extends AbstractEntity {
+
+    @Column(name = "hash", nullable = false, unique = true, columnDefinition = "CHAR(64)")
+    private String hash;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Lob
+    @Column(name = "data", nullable = false, length = 16777215)
+    private byte[] data;
+
+    public UserAvatar() {
+        
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param hash the hex SHA-256 hash of the data
+     * @param contentType MIME type of the image
+     * @param data image content
+     */
+    public UserAvatar(String hash, String contentType, byte[] data) {
+        this.hash = hash;
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    /**
+     * Hash getter.
+     * 
+     * @return the hex SHA-256 hash of the data
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Hash setter.
+     * 
+     * @param hash the hash to set
+     */
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Content type getter.
+     * 
+     * @return the MIME type of the image
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Content type setter.
+     * 
+     * @param contentType the contentType to set
+     */
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Data getter.
+     * 
+     * @return the image content
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Data setter.
+     * 
+     * @param data the data to set
+     */
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((hash == null) ? 0 : hash.hashCode());
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof UserAvatar)) {
+            return false;
+        }
+        UserAvatar other = (UserAvatar) obj;
+        if (hash == null) {
+            if (other.hash != null) {
+                return false;
+            }
+        } else if (!hash.equals(other.hash)) {
+            return false;
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "#" + getId() + ", UserAvatar [hash=" + hash + ", contentType=" + contentType
+                + ", size=" + ((data == null) ? 0 : data.length) + "]";
+    }
+}
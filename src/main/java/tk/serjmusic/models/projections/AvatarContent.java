@@ -0,0 +1,121 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.models.projections;
+
+import org.springframework.core.io.AbstractResource;
+
+import tk.serjmusic.models.UserAvatar;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Read-only projection of the image of {@link UserAvatar} as a resource. The image is streamed
+ * from the database when the resource is written instead of being loaded as a whole with the 
+ * entity. Every {@link #getInputStream()} opens a new stream, so ranges of the image can be 
+ * written one by one.
+ *
+ * @author Roman Kondakov
+ */
+public class AvatarContent extends AbstractResource {
+
+    private final String hash;
+    private final String contentType;
+    private final long contentLength;
+    private final Opener opener;
+
+    /**
+     * Constructor.
+     *
+     * @param hash hex SHA-256 hash of the image
+     * @param contentType MIME type of the image
+     * @param contentLength length of the image in bytes
+     * @param opener opener of the image stream
+     */
+    public AvatarContent(String hash, String contentType, long contentLength, Opener opener) {
+        this.hash = hash;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.opener = opener;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.core.io.AbstractResource#exists()
+     */
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.core.io.AbstractResource#contentLength()
+     */
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.core.io.InputStreamSource#getInputStream()
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return opener.open();
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.core.io.Resource#getDescription()
+     */
+    @Override
+    public String getDescription() {
+        return "avatar " + hash;
+    }
+
+    /**
+     * Opener of the image stream, the stream holds database resources until it is closed.
+     */
+    @FunctionalInterface
+    public interface Opener {
+
+        /**
+         * Open the image stream.
+         *
+         * @return the stream of the image
+         * @throws IOException if the image can not be read
+         */
+        InputStream open() throws IOException;
+    }
+}
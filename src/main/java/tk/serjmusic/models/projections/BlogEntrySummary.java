@@ -0,0 +1,334 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.models.projections;
+
+import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.Identifiable;
+import tk.serjmusic.utils.HtmlExcerpt;
+import tk.serjmusic.utils.R;
+
+import java.util.Date;
+
+/**
+ * Read-only listing projection of {@link BlogEntry}. It holds the stored excerpt instead of 
+ * the content, so the TEXT column is not read for list pages.
+ *
+ * @author Roman Kondakov
+ */
+public class BlogEntrySummary implements Identifiable {
+
+    private final int id;
+    private final int version;
+    private final String title;
+    private final String excerpt;
+    private final String imageLink;
+    private final Date dateCreated;
+    private final int commentCount;
+    private final Date lastCommentAt;
+    private final Integer authorId;
+    private final Integer authorVersion;
+    private final String authorUsername;
+    private final String authorImageLink;
+    private final String authorAvatarHash;
+
+    /**
+     * Constructor used by JPA constructor expression. The excerpt is normalized again, so 
+     * rows stored before excerpts were introduced may be selected with a content prefix.
+     */
+    public BlogEntrySummary(int id, int version, String title, String excerpt, 
+            String imageLink, Date dateCreated, int commentCount, Date lastCommentAt, 
+            Integer authorId, Integer authorVersion, String authorUsername, 
+            String authorImageLink, String authorAvatarHash) {
+        this.id = id;
+        this.version = version;
+        this.title = title;
+        this.excerpt = HtmlExcerpt.of(excerpt, R.BLOG_EXCERPT_LENGTH);
+        this.imageLink = imageLink;
+        this.dateCreated = dateCreated;
+        this.commentCount = commentCount;
+        this.lastCommentAt = lastCommentAt;
+        this.authorId = authorId;
+        this.authorVersion = authorVersion;
+        this.authorUsername = authorUsername;
+        this.authorImageLink = authorImageLink;
+        this.authorAvatarHash = authorAvatarHash;
+    }
+
+    /**
+     * Getter for BlogEntrySummary id.
+     *
+     * @return the id
+     */
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for BlogEntrySummary title.
+     *
+     * @return the title
+     */
+    /**
+     * Version of the entry.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Version of the listed state, which changes with the entry and with its author.
+     *
+     * @return the entry version in the high half and the author version in the low one
+     */
+    public long getListedVersion() {
+        long author = (authorVersion == null) ? 0 : (authorVersion & 0xFFFFFFFFL);
+        return ((long) version << 32) | author;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Getter for BlogEntrySummary excerpt.
+     *
+     * @return the excerpt
+     */
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    /**
+     * Getter for BlogEntrySummary imageLink.
+     *
+     * @return the imageLink
+     */
+    public String getImageLink() {
+        return imageLink;
+    }
+
+    /**
+     * Getter for BlogEntrySummary dateCreated.
+     *
+     * @return the dateCreated
+     */
+    public Date getDateCreated() {
+        return dateCreated;
+    }
+
+    /**
+     * Getter for BlogEntrySummary commentCount.
+     *
+     * @return the commentCount
+     */
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    /**
+     * Getter for BlogEntrySummary lastCommentAt.
+     *
+     * @return the lastCommentAt
+     */
+    public Date getLastCommentAt() {
+        return lastCommentAt;
+    }
+
+    /**
+     * Getter for BlogEntrySummary authorId.
+     *
+     * @return the authorId
+     */
+    public Integer getAuthorId() {
+        return authorId;
+    }
+
+    /**
+     * Getter for BlogEntrySummary authorUsername.
+     *
+     * @return the authorUsername
+     */
+    public Integer getAuthorVersion() {
+        return authorVersion;
+    }
+
+    public String getAuthorUsername() {
+        return authorUsername;
+    }
+
+    /**
+     * Getter for BlogEntrySummary authorImageLink.
+     *
+     * @return the authorImageLink
+     */
+    public String getAuthorImageLink() {
+        return authorImageLink;
+    }
+
+    /**
+     * Getter for BlogEntrySummary authorAvatarHash.
+     *
+     * @return the authorAvatarHash
+     */
+    public String getAuthorAvatarHash() {
+        return authorAvatarHash;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((authorAvatarHash == null) ? 0 : authorAvatarHash.hashCode());
+        result = prime * result + ((authorId == null) ? 0 : authorId.hashCode());
+        result = prime * result + ((authorImageLink == null) ? 0 : authorImageLink.hashCode());
+        result = prime * result + ((authorUsername == null) ? 0 : authorUsername.hashCode());
+        result = prime * result + ((authorVersion == null) ? 0 : authorVersion.hashCode());
+        result = prime * result + commentCount;
+        result = prime * result + ((dateCreated == null) ? 0 : dateCreated.hashCode());
+        result = prime * result + ((excerpt == null) ? 0 : excerpt.hashCode());
+        result = prime * result + id;
+        result = prime * result + ((imageLink == null) ? 0 : imageLink.hashCode());
+        result = prime * result + ((lastCommentAt == null) ? 0 : lastCommentAt.hashCode());
+        result = prime * result + ((title == null) ? 0 : title.hashCode());
+        result = prime * result + version;
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof BlogEntrySummary)) {
+            return false;
+        }
+        BlogEntrySummary other = (BlogEntrySummary) obj;
+        if (authorAvatarHash == null) {
+            if (other.authorAvatarHash != null) {
+                return false;
+            }
+        } else if (!authorAvatarHash.equals(other.authorAvatarHash)) {
+            return false;
+        }
+        if (authorId == null) {
+            if (other.authorId != null) {
+                return false;
+            }
+        } else if (!authorId.equals(other.authorId)) {
+            return false;
+        }
+        if (authorImageLink == null) {
+            if (other.authorImageLink != null) {
+                return false;
+            }
+        } else if (!authorImageLink.equals(other.authorImageLink)) {
+            return false;
+        }
+        if (authorUsername == null) {
+            if (other.authorUsername != null) {
+                return false;
+            }
+        } else if (!authorUsername.equals(other.authorUsername)) {
+            return false;
+        }
+        if (authorVersion == null) {
+            if (other.authorVersion != null) {
+                return false;
+            }
+        } else if (!authorVersion.equals(other.authorVersion)) {
+            return false;
+        }
+        if (commentCount != other.commentCount) {
+            return false;
+        }
+        if (dateCreated == null) {
+            if (other.dateCreated != null) {
+                return false;
+            }
+        } else if (!dateCreated.equals(other.dateCreated)) {
+            return false;
+        }
+        if (excerpt == null) {
+            if (other.excerpt != null) {
+                return false;
+            }
+        } else if (!excerpt.equals(other.excerpt)) {
+            return false;
+        }
+        if (id != other.id) {
+            return false;
+        }
+        if (imageLink == null) {
+            if (other.imageLink != null) {
+                return false;
+            }
+        } else if (!imageLink.equals(other.imageLink)) {
+            return false;
+        }
+        if (lastCommentAt == null) {
+            if (other.lastCommentAt != null) {
+                return false;
+            }
+        } else if (!lastCommentAt.equals(other.lastCommentAt)) {
+            return false;
+        }
+        if (title == null) {
+            if (other.title != null) {
+                return false;
+            }
+        } else if (!title.equals(other.title)) {
+            return false;
+        }
+        if (version != other.version) {
+            return false;
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "#" + id + ", BlogEntrySummary [title=" + title + ", excerpt=" + excerpt 
+                + ", dateCreated=" + dateCreated + ", commentCount=" + commentCount 
+                + ", authorId=" + authorId + "]";
+    }
+}
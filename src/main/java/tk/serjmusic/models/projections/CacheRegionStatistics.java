@@ -0,0 +1,151 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.models.projections;
+
+/**
+ * Read-only statistics of a second level cache region.
+ *
+ * @author Roman Kondakov
+ */
+public class CacheRegionStatistics {
+
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictedCount;
+    private final long expiredCount;
+    private final long elementCount;
+    private final long heapSizeInBytes;
+    private final long maxHeapSizeInBytes;
+
+    public CacheRegionStatistics(String region, long hitCount, long missCount, long putCount,
+            long evictedCount, long expiredCount, long elementCount, long heapSizeInBytes,
+            long maxHeapSizeInBytes) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictedCount = evictedCount;
+        this.expiredCount = expiredCount;
+        this.elementCount = elementCount;
+        this.heapSizeInBytes = heapSizeInBytes;
+        this.maxHeapSizeInBytes = maxHeapSizeInBytes;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics region.
+     *
+     * @return the region name
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics hitCount.
+     *
+     * @return the hitCount
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics missCount.
+     *
+     * @return the missCount
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Share of hits among all lookups of the region.
+     *
+     * @return the hit ratio between 0 and 1, 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        return (lookups == 0) ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics putCount.
+     *
+     * @return the putCount
+     */
+    public long getPutCount() {
+        return putCount;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics evictedCount.
+     *
+     * @return the evictedCount
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics expiredCount.
+     *
+     * @return the expiredCount
+     */
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics elementCount.
+     *
+     * @return the elementCount
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Getter for CacheRegionStatistics heapSizeInBytes.
+     *
+     * @return the heapSizeInBytes
+     */
+    public long getHeapSizeInBytes() {
+        return heapSizeInBytes;
+    }
+
+    /**
+     * Configured limit of the heap size of region.
+     *
+     * @return the limit in bytes, 0 if the region is limited by count of entries
+     */
+    public long getMaxHeapSizeInBytes() {
+        return maxHeapSizeInBytes;
+    }
+}
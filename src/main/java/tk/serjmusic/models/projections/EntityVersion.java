@@ -0,0 +1,164 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.models.projections;
+
+import tk.serjmusic.models.AbstractEntity;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of the version of an entity or of all entities of a type, it is used
+ * for ETags and {@code Last-Modified} of their representations without loading them.
+ * 
+ * <p>The version of all entities consists of their count, the max ID and the sum of versions. 
+ * New entities get greater IDs, so an insert changes the max ID, a removal without inserts 
+ * changes the count and an update without both changes the sum. There is no last modification
+ * time for it, since removals can't be seen in update times.
+ *
+ * @author Roman Kondakov
+ */
+public class EntityVersion {
+
+    private final String tag;
+    private final Date lastModified;
+
+    /**
+     * Constructor used by JPA constructor expression for a single entity.
+     */
+    public EntityVersion(int id, int version, Date updatedAt) {
+        this(id + "." + version, updatedAt);
+    }
+
+    /**
+     * Constructor used by JPA constructor expression for all entities of a type.
+     */
+    public EntityVersion(long count, Integer maxId, Long versionSum) {
+        this(count + "." + ((maxId == null) ? 0 : maxId) + "." 
+                + ((versionSum == null) ? 0 : versionSum), null);
+    }
+
+    private EntityVersion(String tag, Date lastModified) {
+        this.tag = tag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Get the version of the loaded entity.
+     *
+     * @param entity the entity
+     * @return version of the entity
+     */
+    public static EntityVersion of(AbstractEntity entity) {
+        return new EntityVersion(entity.getId(), entity.getVersion(), entity.getUpdatedAt());
+    }
+
+    /**
+     * Combine with the version of other entities shown in the same representation, e.g. 
+     * authors of blogs. The result is modified when any of them is.
+     *
+     * @param other version of other entities
+     * @return combined version
+     */
+    public EntityVersion and(EntityVersion other) {
+        Date combined = null;
+        if ((lastModified != null) && (other.lastModified != null)) {
+            combined = lastModified.after(other.lastModified) ? lastModified : other.lastModified;
+        }
+        return new EntityVersion(tag + "-" + other.tag, combined);
+    }
+
+    /**
+     * Get the strong ETag of the version.
+     *
+     * @return quoted ETag
+     */
+    public String getETag() {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Get the last modification time.
+     *
+     * @return the time in milliseconds or {@code -1} if it is unknown
+     */
+    public long getLastModified() {
+        return (lastModified == null) ? -1 : lastModified.getTime();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((lastModified == null) ? 0 : lastModified.hashCode());
+        result = prime * result + ((tag == null) ? 0 : tag.hashCode());
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof EntityVersion)) {
+            return false;
+        }
+        EntityVersion other = (EntityVersion) obj;
+        if (lastModified == null) {
+            if (other.lastModified != null) {
+                return false;
+            }
+        } else if (!lastModified.equals(other.lastModified)) {
+            return false;
+        }
+        if (tag == null) {
+            if (other.tag != null) {
+                return false;
+            }
+        } else if (!tag.equals(other.tag)) {
+            return false;
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "EntityVersion [tag=" + tag + ", lastModified=" + lastModified + "]";
+    }
+}
@@ -0,0 +1,75 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.models.projections;
+
+/**
+ * Progress of a background job which walks the rows of a table in the order of IDs, one chunk 
+ * at a time. The next chunk starts after the greatest ID read by the previous one.
+ *
+ * @author Roman Kondakov
+ */
+public class KeysetChunk {
+
+    private final int lastId;
+    private final int updated;
+    private final boolean last;
+
+    /**
+     * Constructor.
+     *
+     * @param lastId the greatest ID read by the chunk, or the ID it started after if it read 
+     *        nothing
+     * @param updated number of rows updated by the chunk
+     * @param last whether there are no more rows after the chunk
+     */
+    public KeysetChunk(int lastId, int updated, boolean last) {
+        this.lastId = lastId;
+        this.updated = updated;
+        this.last = last;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "KeysetChunk [lastId=" + lastId + ", updated=" + updated + ", last=" + last + "]";
+    }
+}
@@ -36,5 +36,13 @@ import tk.serjmusic.models.BlogComment;
  */
 public interface BlogCommentService extends GenericService<BlogComment> {
 
-    
+    /**
+     * Compress large contents of comments which were stored before the compression was 
+     * introduced. It runs in background and commits every chunk of rows on its own. Rows 
+     * checked by a run are not read by the next ones, contents stored later are compressed 
+     * when they are written.
+     * 
+     * @return number of compressed comments
+     */
+    public int compressStoredContent();
 }
@@ -50,4 +50,55 @@ public interface BlogEntryService extends GenericService<BlogEntry> {
     public List<BlogComment> getPaginatedCommentsForBlogId(int blogId, 
             int pageNumber, int pageSize);
     
+    /**
+     * Get comments associated with required blog entry using keyset pagination.
+     * 
+     * @param blogId required blog entry ID
+     * @param afterId exclusive lower bound of comment IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of comment IDs or {@code null} if not bounded
+     * @param pageSize size of each page
+     * @return list of comments
+     */
+    public List<BlogComment> getSeekCommentsForBlogId(int blogId, Integer afterId, 
+            Integer beforeId, int pageSize);
+    
+    /**
+     * Get comments added to the blog entry after the comment with given ID. If there are more
+     * than {@code maxResults} new comments, the oldest of them are returned, so the caller 
+     * can repeat the request with the new greatest ID.
+     * 
+     * @param blogId required blog entry ID
+     * @param sinceId the greatest comment ID known to the caller
+     * @param maxResults maximum number of comments to return
+     * @return list of new comments, empty if there are no new comments
+     */
+    public List<BlogComment> getNewCommentsForBlogId(int blogId, int sinceId, int maxResults);
+    
+    /**
+     * Recompute denormalized comment counts and last comment dates of all blog entries. It 
+     * repairs counters which drifted because comments were changed bypassing the services.
+     * 
+     * @return number of updated blog entries
+     */
+    public int recountAllComments();
+
+    /**
+     * Compress large contents of blog entries which were stored before the compression was 
+     * introduced. It runs in background and commits every chunk of rows on its own. Rows 
+     * checked by a run are not read by the next ones, contents stored later are compressed 
+     * when they are written.
+     * 
+     * @return number of compressed blog entries
+     */
+    public int compressStoredContent();
+
+    /**
+     * Render contents of blog entries which were stored before the rendering was introduced 
+     * and fill their excerpts from the rendered HTML. It runs in background and commits every 
+     * chunk of rows on its own, blog entries stored later are rendered when they are written.
+     * 
+     * @return number of rendered blog entries
+     */
+    public int renderStoredContent();
+    
 }
@@ -28,8 +28,11 @@
 package tk.serjmusic.services;
 
 import tk.serjmusic.models.AbstractEntity;
+import tk.serjmusic.models.projections.EntityVersion;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The main generic service interface for the most common service functions.
@@ -61,6 +64,19 @@ public interface GenericService<T extends AbstractEntity> {
      */
     public T update(T t);
 
+    /**
+     * Change the entity in the data layer if it still has the expected version. The changes
+     * are applied to the managed entity, so only changed columns are written and the version
+     * is checked by the update itself.
+     * 
+     * @param id the id of entity
+     * @param expectedVersion version the changes are based on, or a negative value if any 
+     *      version fits
+     * @param changes changes of the entity
+     * @return changed entity
+     */
+    public T patch(int id, int expectedVersion, Consumer<T> changes);
+
     /**
      * Delete entity from the data layer.
      * 
@@ -68,6 +84,36 @@ public interface GenericService<T extends AbstractEntity> {
      */
     public void delete(T t);
     
+    /**
+     * Delete entity from the data layer by its ID without loading it and its dependents.
+     * 
+     * @param id - ID of entity to be removed
+     */
+    public void deleteById(int id);
+    
+    /**
+     * Create new entities in data layer with batched inserts.
+     * 
+     * @param entities - new entities
+     */
+    public void createAll(Collection<T> entities);
+    
+    /**
+     * Update entities in the data layer with batched updates.
+     * 
+     * @param entities - entities to be updated
+     * @return updated entities
+     */
+    public List<T> updateAll(Collection<T> entities);
+    
+    /**
+     * Delete entities from the data layer by their IDs without loading them.
+     * 
+     * @param ids - IDs of entities to be deleted
+     * @return number of deleted entities
+     */
+    public int deleteAllById(Collection<Integer> ids);
+    
     /**
      * Retrieve all entities of specified type from the data layer.
      * 
@@ -82,6 +128,23 @@ public interface GenericService<T extends AbstractEntity> {
      */
     public int countAll();
     
+    /**
+     * Get version of the entity from data layer without loading the entity. Services of 
+     * entities which are shown with other ones combine their versions.
+     * 
+     * @param id the id of entity
+     * @return version of the entity with requested id
+     */
+    public EntityVersion getVersionById(int id);
+    
+    /**
+     * Get version of all entities of specified type from data layer, it is changed by any
+     * insert, update or removal.
+     * 
+     * @return version of all entities
+     */
+    public EntityVersion getVersionOfAll();
+    
     /**
      * Retrieve up to {@code maxResults} entities beginning with {@code firstResult}
      * from the all entities of specified type.
@@ -93,4 +156,44 @@ public interface GenericService<T extends AbstractEntity> {
      */
     public List<T> getPaginatedAndOrdered(boolean ascOrderById, int pageNumber, int pageSize);
     
+    /**
+     * Retrieve up to {@code pageSize} entities which IDs lie strictly after {@code afterId}
+     * and/or strictly before {@code beforeId} (keyset pagination).
+     * 
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param afterId exclusive lower bound of IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of IDs or {@code null} if not bounded
+     * @param pageSize size of data page
+     * @return list of entities fit to criteria
+     */
+    public List<T> getSeekPaginatedAndOrdered(boolean ascOrderById, Integer afterId, 
+            Integer beforeId, int pageSize);
+    
+    /**
+     * The same as {@link #getPaginatedAndOrdered(boolean, int, int)} but returns read-only 
+     * listing projections instead of entities.
+     * 
+     * @param projectionType the projection class supported by the data layer
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param pageNumber number of page to be returned (pages starts with 1)
+     * @param pageSize size of data page
+     * @return list of projections fit to criteria
+     */
+    public <P> List<P> getProjectionPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, int pageNumber, int pageSize);
+    
+    /**
+     * The same as {@link #getSeekPaginatedAndOrdered(boolean, Integer, Integer, int)} but 
+     * returns read-only listing projections instead of entities.
+     * 
+     * @param projectionType the projection class supported by the data layer
+     * @param ascOrderById whether the ascend ID order should be used for result retrieving
+     * @param afterId exclusive lower bound of IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of IDs or {@code null} if not bounded
+     * @param pageSize size of data page
+     * @return list of projections fit to criteria
+     */
+    public <P> List<P> getProjectionSeekPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, Integer afterId, Integer beforeId, int pageSize);
+    
 }
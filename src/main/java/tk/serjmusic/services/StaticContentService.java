@@ -29,6 +29,9 @@ package tk.serjmusic.services;
 
 import tk.serjmusic.models.StaticContent;
 
+import java.util.List;
+import java.util.Locale.LanguageRange;
+
 /**
  * The main service class for static content handling.
  *
@@ -37,10 +40,44 @@ import tk.serjmusic.models.StaticContent;
 public interface StaticContentService extends GenericService<StaticContent> {
 
     /**
-     * Retrieve static content by it's description.
+     * Retrieve static content by it's description in the default language, or in any other 
+     * one if there is no content in the default language.
      * 
      * @param description description of static content for lookup
      * @return found {@link StaticContent}
      */
     public StaticContent getStaticContentByDescription(String description);
+
+    /**
+     * Retrieve static content by it's description in the best language of the requested ones 
+     * {@literal (e.g. parsed from the Accept-Language header)}. If none of them is available, 
+     * the default language is used and then any other one. Contents are served from 
+     * an in-memory snapshot, which is read again after the commit of any change made through 
+     * this service.
+     * 
+     * @param description description of static content for lookup
+     * @param languageRanges requested languages in the order of preference, may be empty
+     * @return found {@link StaticContent}, it must not be modified
+     */
+    public StaticContent getStaticContentByDescription(String description, 
+            List<LanguageRange> languageRanges);
+
+    /**
+     * Compress large contents of static contents which were stored before the compression was 
+     * introduced. It runs in background and commits every chunk of rows on its own. Rows 
+     * checked by a run are not read by the next ones, contents stored later are compressed 
+     * when they are written.
+     * 
+     * @return number of compressed static contents
+     */
+    public int compressStoredContent();
+
+    /**
+     * Render contents of static contents which were stored before the rendering was 
+     * introduced. It runs in background and commits every chunk of rows on its own, static 
+     * contents stored later are rendered when they are written.
+     * 
+     * @return number of rendered static contents
+     */
+    public int renderStoredContent();
 }
@@ -0,0 +1,75 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.services;
+
+import tk.serjmusic.models.UserAvatar;
+import tk.serjmusic.models.projections.AvatarContent;
+
+/**
+ * The service for user avatar images handling.
+ *
+ * @author Roman Kondakov
+ */
+public interface UserAvatarService extends GenericService<UserAvatar> {
+
+    /**
+     * Store avatar image. The image is addressed by the hash of its content, so storing of 
+     * the same image again returns the existing avatar.
+     * 
+     * @param data image content (PNG, JPEG, GIF or BMP)
+     * @return stored avatar
+     */
+    public UserAvatar store(byte[] data);
+
+    /**
+     * Retrieve avatar by the hash of its content.
+     * 
+     * @param hash hex SHA-256 hash of the avatar content
+     * @return found avatar
+     */
+    public UserAvatar getAvatarByHash(String hash);
+
+    /**
+     * Retrieve the image of the avatar as a resource which streams it from the database.
+     * 
+     * @param hash hex SHA-256 hash of the avatar content
+     * @return found avatar image
+     */
+    public AvatarContent getAvatarContentByHash(String hash);
+
+    /**
+     * Move avatar images stored in the {@code image_file} column of users by the schema before
+     * the avatar table to the avatar table. Every user with such an image gets the avatar hash,
+     * it is the new ETag of the avatar and it changes the version of the user. It runs in 
+     * background and commits every chunk of users on its own, images which are not valid 
+     * avatars are left as they are.
+     * 
+     * @return number of users with moved avatars
+     */
+    public int migrateLegacyAvatars();
+}
@@ -65,5 +65,16 @@ public interface UserService extends GenericService<User> {
      */
     public List<BlogComment> getUserCommentsByUserId(int id, int pageNumber, int pageSize);
 
+    /**
+     * Retrieve user's comments in ascend ID order using keyset pagination.
+     * 
+     * @param id id of requested user
+     * @param afterId exclusive lower bound of comment IDs or {@code null} if not bounded
+     * @param beforeId exclusive upper bound of comment IDs or {@code null} if not bounded
+     * @param pageSize size of each page
+     * @return list of user's comments
+     */
+    public List<BlogComment> getSeekUserCommentsByUserId(int id, Integer afterId, 
+            Integer beforeId, int pageSize);
     
 }
@@ -23,18 +23,31 @@
 package tk.serjmusic.services.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.GenericTypeResolver;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import tk.serjmusic.dao.GenericDao;
 import tk.serjmusic.models.AbstractEntity;
+import tk.serjmusic.models.projections.EntityVersion;
+import tk.serjmusic.models.projections.KeysetChunk;
 import tk.serjmusic.services.GenericService;
 import tk.serjmusic.services.exceptions.AlreadyExistsException;
 import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.services.exceptions.StaleVersionException;
+import tk.serjmusic.utils.cache.JsonFragmentCache;
 import tk.serjmusic.utils.logging.Loggable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.PersistenceException;
@@ -60,6 +73,12 @@ public abstract class AbstractGenericServiceImpl<T extends AbstractEntity>
 
     @Autowired
     private GenericDao<T> dao;
+    @Autowired
+    private JsonFragmentCache fragmentCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private final Class<?> entityType = 
+            GenericTypeResolver.resolveTypeArgument(getClass(), AbstractGenericServiceImpl.class);
 
     /*
      * (non-Javadoc)
@@ -72,7 +91,13 @@ public abstract class AbstractGenericServiceImpl<T extends AbstractEntity>
         if (t == null) {
             throw new IllegalArgumentException("entity is null");
         }
+        beforeWrite(t);
         try {
+            // New entities are persisted directly: merge would SELECT before the INSERT
+            if (t.getId() == 0) {
+                dao.persist(t);
+                return t;
+            }
             return dao.merge(t);
         } catch (EntityExistsException ex) {
             throw new AlreadyExistsException("entity: " + t, ex);
@@ -115,12 +140,45 @@ public abstract class AbstractGenericServiceImpl<T extends AbstractEntity>
         if (t == null) {
             throw new IllegalArgumentException("entity is null");
         }
+        beforeWrite(t);
         T result;
         try {
             result = dao.merge(t);
         } catch (PersistenceException ex) {
             throw new PersistentLayerProblemsException("entity: " + t, ex);
         }
+        evictFragment(result.getId());
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#patch(int, int, java.util.function.Consumer)
+     */
+    @Loggable
+    @Override
+    public T patch(int id, int expectedVersion, Consumer<T> changes) {
+        if ((id < 0) || (changes == null)) {
+            throw new IllegalArgumentException("bad id=" + id + " or changes are null");
+        }
+        T result;
+        try {
+            result = dao.find(id);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("id: " + id, ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("Can not find entity for id=" + id);
+        }
+        if ((expectedVersion >= 0) && (result.getVersion() != expectedVersion)) {
+            throw new StaleVersionException("entity: " + result + " has version " 
+                    + result.getVersion() + " instead of " + expectedVersion);
+        }
+        // Dirty checking writes the changes and the next version on commit
+        changes.accept(result);
+        beforeWrite(result);
+        evictFragment(id);
         return result;
     }
 
@@ -140,6 +198,97 @@ public abstract class AbstractGenericServiceImpl<T extends AbstractEntity>
         } catch (PersistenceException ex) {
             throw new PersistentLayerProblemsException("entity: " + t, ex);
         }
+        evictFragment(t.getId());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#deleteById(int)
+     */
+    @Loggable
+    @Override
+    public void deleteById(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("bad id=" + id);
+        }
+        boolean removed;
+        try {
+            removed = dao.removeById(id);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("id: " + id, ex);
+        }
+        if (!removed) {
+            throw new CanNotFindException("Can not find entity for id=" + id);
+        }
+        evictFragment(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#createAll(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public void createAll(Collection<T> entities) {
+        if ((entities == null) || (entities.stream().anyMatch(Objects::isNull))) {
+            throw new IllegalArgumentException("entities are null or contain null");
+        }
+        entities.forEach(this::beforeWrite);
+        try {
+            dao.persistAll(entities);
+        } catch (EntityExistsException ex) {
+            throw new AlreadyExistsException("entities: " + entities.size(), ex);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("entities: " + entities.size(), ex);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#updateAll(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public List<T> updateAll(Collection<T> entities) {
+        if ((entities == null) || (entities.stream().anyMatch(Objects::isNull))) {
+            throw new IllegalArgumentException("entities are null or contain null");
+        }
+        entities.forEach(this::beforeWrite);
+        List<T> result;
+        try {
+            result = dao.mergeAll(entities);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("entities: " + entities.size(), ex);
+        }
+        result.forEach(entity -> evictFragment(entity.getId()));
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#deleteAllById(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public int deleteAllById(Collection<Integer> ids) {
+        if ((ids == null) || (ids.stream().anyMatch(id -> (id == null) || (id < 0)))) {
+            throw new IllegalArgumentException("bad ids: " + ids);
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int result;
+        try {
+            result = dao.removeAllById(ids);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("ids: " + ids.size(), ex);
+        }
+        ids.forEach(this::evictFragment);
+        return result;
     }
 
     /*
@@ -182,6 +331,44 @@ public abstract class AbstractGenericServiceImpl<T extends AbstractEntity>
         return result;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#getVersionById(int)
+     */
+    @Loggable
+    @Override
+    public EntityVersion getVersionById(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("bad id=" + id);
+        }
+        EntityVersion result;
+        try {
+            result = dao.findVersion(id);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("id: " + id, ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("Can not find entity for id=" + id);
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#getVersionOfAll()
+     */
+    @Loggable
+    @Override
+    public EntityVersion getVersionOfAll() {
+        try {
+            return dao.findVersionOfAll();
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -205,4 +392,166 @@ public abstract class AbstractGenericServiceImpl<T extends AbstractEntity>
         }
         return result;
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#getSeekPaginatedAndOrdered(boolean, 
+     * java.lang.Integer, java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public List<T> getSeekPaginatedAndOrdered(boolean ascOrderById, Integer afterId, 
+            Integer beforeId, int pageSize) {
+        checkSeekArguments(afterId, beforeId, pageSize);
+        List<T> result = null;
+        try {
+            result = dao.findSeekPaginatedAndOrdered(ascOrderById, afterId, beforeId, pageSize);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("Can not find entities");
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#getProjectionPaginatedAndOrdered(
+     * java.lang.Class, boolean, int, int)
+     */
+    @Loggable
+    @Override
+    public <P> List<P> getProjectionPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, int pageNumber, int pageSize) {
+        if ((projectionType == null) || (pageNumber < 1) || (pageSize < 0)) {
+            throw new IllegalArgumentException("bad argument(s) : projectionType=" 
+                    + projectionType + "; pageNumber=" + pageNumber + "; pageSize=" + pageSize);
+        }
+        List<P> result = null;
+        try {
+            result = dao.findProjectionPaginatedAndOrdered(projectionType, ascOrderById, 
+                    pageNumber, pageSize);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("Can not find entities");
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.GenericService#getProjectionSeekPaginatedAndOrdered(
+     * java.lang.Class, boolean, java.lang.Integer, java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public <P> List<P> getProjectionSeekPaginatedAndOrdered(Class<P> projectionType, 
+            boolean ascOrderById, Integer afterId, Integer beforeId, int pageSize) {
+        if (projectionType == null) {
+            throw new IllegalArgumentException("projectionType is null");
+        }
+        checkSeekArguments(afterId, beforeId, pageSize);
+        List<P> result = null;
+        try {
+            result = dao.findProjectionSeekPaginatedAndOrdered(projectionType, ascOrderById, 
+                    afterId, beforeId, pageSize);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("Can not find entities");
+        }
+        return result;
+    }
+
+    /**
+     * Prepare the entity which is going to be created or updated, e.g. compute the state 
+     * derived from its attributes once on write instead of on every read. It is called by 
+     * create, update and patch methods, the default one does nothing.
+     * 
+     * @param entity entity to be written
+     */
+    protected void beforeWrite(T entity) {
+        
+    }
+
+    /**
+     * Evict the cached JSON fragment of the entity. Fragments are checked against the listed 
+     * state anyway, so it only frees memory at once.
+     * 
+     * @param id entity ID
+     */
+    protected void evictFragment(int id) {
+        if (fragmentCache != null) {
+            fragmentCache.evict(entityType, id);
+        }
+    }
+
+    /**
+     * Run a background job over the rows of a table in keyset chunks. Every chunk is committed 
+     * in its own transaction, so the job doesn't keep rows locked until it ends and a failure 
+     * doesn't roll back finished chunks. The job should not run in a transaction itself.
+     * 
+     * <p>The greatest processed ID is kept between runs, so rows a run has checked and left 
+     * as they are, e.g. incompressible texts, are not read again by the next runs.
+     * 
+     * @param processedId the greatest ID processed by previous runs, every chunk advances it
+     * @param chunkJob job of the chunk after the given ID
+     * @return number of updated rows
+     */
+    protected int runInChunks(AtomicInteger processedId, IntFunction<KeysetChunk> chunkJob) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int result = 0;
+        KeysetChunk chunk;
+        do {
+            chunk = transaction.execute(status -> chunkJob.apply(processedId.get()));
+            processedId.set(chunk.getLastId());
+            result += chunk.getUpdated();
+        } while (!chunk.isLast());
+        return result;
+    }
+
+    /**
+     * Rewrite a chunk of managed entities, e.g. to fill the derived state of rows stored 
+     * before it was introduced. Dirty checking writes them when the chunk transaction commits.
+     * 
+     * @param afterId the chunk starts after this ID
+     * @param entities managed entities of the chunk ordered by ID
+     * @param chunkSize maximum number of entities in the chunk
+     * @param rewrite changes of every entity
+     * @return the chunk with the number of rewritten entities
+     */
+    protected KeysetChunk rewriteChunk(int afterId, List<T> entities, int chunkSize, 
+            Consumer<T> rewrite) {
+        int lastId = afterId;
+        for (T entity : entities) {
+            rewrite.accept(entity);
+            evictFragment(entity.getId());
+            lastId = entity.getId();
+        }
+        return new KeysetChunk(lastId, entities.size(), entities.size() < chunkSize);
+    }
+
+    /**
+     * Check arguments of keyset pagination methods.
+     * 
+     * @param afterId exclusive lower bound of IDs or {@code null}
+     * @param beforeId exclusive upper bound of IDs or {@code null}
+     * @param pageSize size of data page
+     * @throws IllegalArgumentException if any argument is incorrect
+     */
+    protected static void checkSeekArguments(Integer afterId, Integer beforeId, int pageSize) {
+        if ((pageSize < 0) || ((afterId != null) && (afterId < 0)) 
+                || ((beforeId != null) && (beforeId < 0))) {
+            throw new IllegalArgumentException("bad argument(s) : afterId=" + afterId 
+                    + "; beforeId=" + beforeId + "; pageSize=" + pageSize);
+        }
+    }
 }
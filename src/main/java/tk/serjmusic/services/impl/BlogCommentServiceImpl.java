@@ -27,15 +27,34 @@
 
 package tk.serjmusic.services.impl;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import tk.serjmusic.dao.BlogCommentDao;
+import tk.serjmusic.dao.BlogEntryDao;
+import tk.serjmusic.dao.UserDao;
 import tk.serjmusic.models.BlogComment;
+import tk.serjmusic.models.projections.EntityVersion;
 import tk.serjmusic.services.BlogCommentService;
+import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.PersistenceException;
 
 /**
  * An implementation of {@link BlogCommentService}. Most of basic logic is implemented in the
- * {@link AbstractGenericServiceImpl}.
+ * {@link AbstractGenericServiceImpl}. Comment count and last comment date of the blog entries 
+ * are maintained in the same transaction in which comments are created or deleted.
  *
  * @author Roman Kondakov
  */
@@ -45,4 +64,173 @@ import tk.serjmusic.services.BlogCommentService;
 public class BlogCommentServiceImpl extends AbstractGenericServiceImpl<BlogComment> 
         implements BlogCommentService{
 
+    @Autowired
+    private BlogCommentDao commentDao;
+
+    @Autowired
+    private BlogEntryDao blogDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    private final AtomicInteger compressedId = new AtomicInteger();
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#getVersionById(int)
+     */
+    @Loggable
+    @Override
+    public EntityVersion getVersionById(int id) {
+        // Authors and blog entries are shown with comments
+        return super.getVersionById(id).and(getVersionOfShownEntities());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#getVersionOfAll()
+     */
+    @Loggable
+    @Override
+    public EntityVersion getVersionOfAll() {
+        return super.getVersionOfAll().and(getVersionOfShownEntities());
+    }
+
+    private EntityVersion getVersionOfShownEntities() {
+        try {
+            return userDao.findVersionOfAll().and(blogDao.findVersionOfAll());
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#create(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Loggable
+    @Override
+    public BlogComment create(BlogComment comment) {
+        if ((comment != null) && (comment.getId() == 0)) {
+            // The blog entry is locked before the comment is inserted
+            registerNewComment(comment);
+        }
+        return super.create(comment);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#createAll(java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public void createAll(Collection<BlogComment> comments) {
+        if ((comments != null) && (comments.stream().noneMatch(Objects::isNull))) {
+            comments.stream()
+                    .filter(comment -> comment.getId() == 0)
+                    .forEach(this::registerNewComment);
+        }
+        super.createAll(comments);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#delete(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Loggable
+    @Override
+    public void delete(BlogComment comment) {
+        super.delete(comment);
+        if (comment.getBlogEntry() != null) {
+            recountComments(Collections.singletonList(comment.getBlogEntry().getId()));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#deleteById(int)
+     */
+    @Loggable
+    @Override
+    public void deleteById(int id) {
+        List<Integer> blogIds = findBlogIds(Collections.singletonList(id));
+        super.deleteById(id);
+        recountComments(blogIds);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#deleteAllById(
+     * java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public int deleteAllById(Collection<Integer> ids) {
+        List<Integer> blogIds = findBlogIds(ids);
+        int result = super.deleteAllById(ids);
+        recountComments(blogIds);
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.BlogCommentService#compressStoredContent()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.TEXT_COMPRESSION_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.TEXT_COMPRESSION_DELAY_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int compressStoredContent() {
+        try {
+            return runInChunks(compressedId, commentDao::compressStoredContent);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("can not compress comments", ex);
+        }
+    }
+
+    private void registerNewComment(BlogComment comment) {
+        if (comment.getBlogEntry() == null) {
+            return;
+        }
+        try {
+            blogDao.registerNewComment(comment.getBlogEntry().getId(), comment.getDateCreated());
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("entity: " + comment, ex);
+        }
+    }
+
+    private List<Integer> findBlogIds(Collection<Integer> commentIds) {
+        // Bad IDs are rejected by the generic implementation
+        if ((commentIds == null) || commentIds.isEmpty() 
+                || (commentIds.stream().anyMatch(Objects::isNull))) {
+            return Collections.emptyList();
+        }
+        try {
+            return commentDao.findBlogIdsByCommentIds(commentIds);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("ids: " + commentIds.size(), ex);
+        }
+    }
+
+    private void recountComments(List<Integer> blogIds) {
+        if (blogIds.isEmpty()) {
+            return;
+        }
+        try {
+            blogDao.recountComments(blogIds);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("blog ids: " + blogIds.size(), ex);
+        }
+    }
 }
@@ -24,16 +24,25 @@ package tk.serjmusic.services.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import tk.serjmusic.dao.BlogEntryDao;
+import tk.serjmusic.dao.UserDao;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.projections.EntityVersion;
 import tk.serjmusic.services.BlogEntryService;
 import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.utils.ContentRenderer;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.PersistenceException;
 
@@ -59,6 +68,61 @@ public class BlogEntryServiceImpl extends AbstractGenericServiceImpl<BlogEntry>
     
     @Autowired
     private BlogEntryDao blogDao;
+    
+    @Autowired
+    private UserDao userDao;
+
+    private final AtomicInteger compressedId = new AtomicInteger();
+    private final AtomicInteger renderedId = new AtomicInteger();
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#getVersionById(int)
+     */
+    @Loggable
+    @Override
+    public EntityVersion getVersionById(int id) {
+        // Authors are shown with blog entries
+        return super.getVersionById(id).and(getVersionOfAuthors());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#getVersionOfAll()
+     */
+    @Loggable
+    @Override
+    public EntityVersion getVersionOfAll() {
+        return super.getVersionOfAll().and(getVersionOfAuthors());
+    }
+
+    private EntityVersion getVersionOfAuthors() {
+        try {
+            return userDao.findVersionOfAll();
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#beforeWrite(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Override
+    protected void beforeWrite(BlogEntry blogEntry) {
+        // Rendered once here, reads serve the stored HTML. Patches of other attributes keep 
+        // it and don't load the lazy content.
+        if (blogEntry.isContentChanged()) {
+            render(blogEntry);
+        }
+    }
+
+    private static void render(BlogEntry blogEntry) {
+        blogEntry.setRenderedHtml(
+                ContentRenderer.render(blogEntry.getContent(), blogEntry.getContentFormat()));
+    }
 
     /*
      * (non-Javadoc)
@@ -85,4 +149,105 @@ public class BlogEntryServiceImpl extends AbstractGenericServiceImpl<BlogEntry>
         return result;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.BlogEntryService#getSeekCommentsForBlogId(int, 
+     * java.lang.Integer, java.lang.Integer, int)
+     */
+    @Override
+    public List<BlogComment> getSeekCommentsForBlogId(int blogId, Integer afterId,
+            Integer beforeId, int pageSize) {
+        if (blogId < 0) {
+            throw new IllegalArgumentException("bad id=" + blogId);
+        }
+        checkSeekArguments(afterId, beforeId, pageSize);
+        List<BlogComment> result = null;
+        try {
+            result = blogDao.findSeekCommentsForBlogId(blogId, afterId, beforeId, pageSize);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException(
+                    "DAO " + blogDao.getClass().getSimpleName() + " can not find entities");
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.BlogEntryService#getNewCommentsForBlogId(int, int, int)
+     */
+    @Override
+    public List<BlogComment> getNewCommentsForBlogId(int blogId, int sinceId, int maxResults) {
+        if ((blogId < 0) || (sinceId < 0) || (maxResults < 0)) {
+            throw new IllegalArgumentException("bad argument(s) : id=" + blogId + "; sinceId="
+                    + sinceId + "; maxResults=" + maxResults);
+        }
+        List<BlogComment> result = null;
+        try {
+            result = blogDao.findSeekCommentsForBlogId(blogId, sinceId, null, maxResults);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+        // Nothing new is a regular answer for the poller, not an error
+        return (result == null) ? Collections.<BlogComment>emptyList() : result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.BlogEntryService#recountAllComments()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.COMMENT_RECOUNT_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.COMMENT_RECOUNT_DELAY_MILLIS)
+    @Override
+    public int recountAllComments() {
+        try {
+            return blogDao.recountAllComments();
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("can not recount comments", ex);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.BlogEntryService#compressStoredContent()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.TEXT_COMPRESSION_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.TEXT_COMPRESSION_DELAY_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int compressStoredContent() {
+        try {
+            return runInChunks(compressedId, blogDao::compressStoredContent);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("can not compress blog entries", ex);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.BlogEntryService#renderStoredContent()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.CONTENT_RENDERING_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.CONTENT_RENDERING_DELAY_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int renderStoredContent() {
+        try {
+            return runInChunks(renderedId, afterId -> rewriteChunk(afterId, 
+                    blogDao.findNotRendered(afterId), R.CONTENT_RENDERING_BATCH_SIZE, 
+                    BlogEntryServiceImpl::render));
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("can not render blog entries", ex);
+        }
+    }
 }
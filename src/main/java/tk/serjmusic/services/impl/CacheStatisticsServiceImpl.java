@@ -0,0 +1,83 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.services.impl;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.StatisticsGateway;
+
+import org.springframework.stereotype.Service;
+
+import tk.serjmusic.models.projections.CacheRegionStatistics;
+import tk.serjmusic.services.CacheStatisticsService;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An implementation of {@link CacheStatisticsService}. The statistics are taken from the 
+ * Ehcache manager which backs the Hibernate second level cache regions.
+ *
+ * @author Roman Kondakov
+ */
+
+@Service
+public class CacheStatisticsServiceImpl implements CacheStatisticsService {
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.CacheStatisticsService#getRegionStatistics()
+     */
+    @Loggable
+    @Override
+    public List<CacheRegionStatistics> getRegionStatistics() {
+        CacheManager cacheManager = CacheManager.getCacheManager(R.CACHE_MANAGER_NAME);
+        if (cacheManager == null) {
+            return Collections.emptyList();
+        }
+        String[] regions = cacheManager.getCacheNames();
+        Arrays.sort(regions);
+        List<CacheRegionStatistics> result = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            Ehcache cache = cacheManager.getEhcache(region);
+            if (cache == null) {
+                continue;
+            }
+            StatisticsGateway statistics = cache.getStatistics();
+            result.add(new CacheRegionStatistics(region, statistics.cacheHitCount(), 
+                    statistics.cacheMissCount(), statistics.cachePutCount(), 
+                    statistics.cacheEvictedCount(), statistics.cacheExpiredCount(), 
+                    statistics.getLocalHeapSize(), statistics.getLocalHeapSizeInBytes(), 
+                    cache.getCacheConfiguration().getMaxBytesLocalHeap()));
+        }
+        return result;
+    }
+}
@@ -28,20 +28,45 @@
 package tk.serjmusic.services.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import tk.serjmusic.dao.StaticContentDao;
 import tk.serjmusic.models.StaticContent;
 import tk.serjmusic.services.StaticContentService;
 import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.utils.ContentRenderer;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Locale.LanguageRange;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import javax.persistence.PersistenceException;
 
 /**
  * An implementation of {@link StaticContentService}. Most of basic logic is implemented in the
  * {@link AbstractGenericServiceImpl}.
+ * 
+ * <p>Contents are looked up in an immutable snapshot of all static contents keyed by 
+ * description and language. Every write through the service starts a new version, so the 
+ * snapshot is read again on the next lookup. The version is changed again after the 
+ * completion of the transaction, so a snapshot read before the commit is never used after it.
  *
  * @author Roman Kondakov
  */
@@ -54,24 +79,262 @@ public class StaticContentServiceImpl extends AbstractGenericServiceImpl<StaticC
     @Autowired
     private StaticContentDao staticContentDao;
 
+    private final AtomicInteger compressedId = new AtomicInteger();
+    private final AtomicInteger renderedId = new AtomicInteger();
+    private final AtomicLong versions = new AtomicLong();
+    private volatile Snapshot snapshot;
+
     /* (non-Javadoc)
      * @see tk.serjmusic.services.StaticContentService
      * #getStaticContentByDescription(java.lang.String)
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     @Override
     public StaticContent getStaticContentByDescription(String description) {
-        if (description == null) {
-            throw new IllegalArgumentException("description is null");
+        return getStaticContentByDescription(description, Collections.emptyList());
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.StaticContentService
+     * #getStaticContentByDescription(java.lang.String, java.util.List)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Override
+    public StaticContent getStaticContentByDescription(String description, 
+            List<LanguageRange> languageRanges) {
+        if ((description == null) || (languageRanges == null)) {
+            throw new IllegalArgumentException("description or language ranges are null");
         }
+        Map<String, StaticContent> contents = snapshot().get(description);
         StaticContent result = null;
+        if (contents != null) {
+            String language = Locale.lookupTag(languageRanges, contents.keySet());
+            result = (language == null) ? null : contents.get(language.toUpperCase(Locale.ROOT));
+            if (result == null) {
+                result = contents.getOrDefault(R.DEFAULT_CONTENT_LANGUAGE, 
+                        contents.values().iterator().next());
+            }
+        }
+        if (result == null) {
+            throw new CanNotFindException("Can not find static content for description=" 
+                    + description);
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#beforeWrite(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Override
+    protected void beforeWrite(StaticContent staticContent) {
+        // Rendered once here, reads serve the stored HTML
+        staticContent.setRenderedHtml(ContentRenderer.render(staticContent.getContent(), 
+                staticContent.getContentFormat()));
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#create(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Loggable
+    @Override
+    public StaticContent create(StaticContent t) {
+        StaticContent result = super.create(t);
+        contentChanged();
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#update(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Loggable
+    @Override
+    public StaticContent update(StaticContent t) {
+        StaticContent result = super.update(t);
+        contentChanged();
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#patch(int, int, 
+     * java.util.function.Consumer)
+     */
+    @Loggable
+    @Override
+    public StaticContent patch(int id, int expectedVersion, Consumer<StaticContent> changes) {
+        StaticContent result = super.patch(id, expectedVersion, changes);
+        contentChanged();
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#delete(
+     * tk.serjmusic.models.AbstractEntity)
+     */
+    @Loggable
+    @Override
+    public void delete(StaticContent t) {
+        super.delete(t);
+        contentChanged();
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#deleteById(int)
+     */
+    @Loggable
+    @Override
+    public void deleteById(int id) {
+        super.deleteById(id);
+        contentChanged();
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#createAll(
+     * java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public void createAll(Collection<StaticContent> entities) {
+        super.createAll(entities);
+        contentChanged();
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#updateAll(
+     * java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public List<StaticContent> updateAll(Collection<StaticContent> entities) {
+        List<StaticContent> result = super.updateAll(entities);
+        contentChanged();
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.impl.AbstractGenericServiceImpl#deleteAllById(
+     * java.util.Collection)
+     */
+    @Loggable
+    @Override
+    public int deleteAllById(Collection<Integer> ids) {
+        int result = super.deleteAllById(ids);
+        contentChanged();
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.StaticContentService#compressStoredContent()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.TEXT_COMPRESSION_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.TEXT_COMPRESSION_DELAY_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int compressStoredContent() {
+        // Texts don't change, so the snapshot stays valid
         try {
-            result = staticContentDao.findStaticContentByDescription(description);
+            return runInChunks(compressedId, staticContentDao::compressStoredContent);
         } catch (PersistenceException ex) {
-            throw new PersistentLayerProblemsException("description: " + description, ex);
+            throw new PersistentLayerProblemsException("can not compress static contents", ex);
         }
-        if (result == null) {
-            throw new CanNotFindException("DAO  can not find entity for username=" + description);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see tk.serjmusic.services.StaticContentService#renderStoredContent()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.CONTENT_RENDERING_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.CONTENT_RENDERING_DELAY_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int renderStoredContent() {
+        int result;
+        try {
+            result = runInChunks(renderedId, afterId -> rewriteChunk(afterId, 
+                    staticContentDao.findNotRendered(afterId), R.CONTENT_RENDERING_BATCH_SIZE,
+                    this::beforeWrite));
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("can not render static contents", ex);
+        }
+        if (result > 0) {
+            contentChanged();
         }
         return result;
     }
+
+    /**
+     * Get the snapshot of the current version, it is read if there is no such one.
+     * 
+     * @return contents by description and by language
+     */
+    private Map<String, Map<String, StaticContent>> snapshot() {
+        long version = versions.get();
+        Snapshot current = snapshot;
+        if ((current == null) || (current.version != version)) {
+            List<StaticContent> contents;
+            try {
+                contents = staticContentDao.findAll();
+            } catch (PersistenceException ex) {
+                throw new PersistentLayerProblemsException("static content snapshot", ex);
+            }
+            current = new Snapshot(version, (contents == null) 
+                    ? Collections.<StaticContent>emptyList() : contents);
+            snapshot = current;
+        }
+        return current.contents;
+    }
+
+    /**
+     * Start a new version of the snapshot now and after the transaction completion.
+     */
+    private void contentChanged() {
+        versions.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        versions.incrementAndGet();
+                    }
+                });
+        }
+    }
+
+    /**
+     * Immutable copies of all static contents, the first stored content of a description goes
+     * first.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final Map<String, Map<String, StaticContent>> contents;
+
+        private Snapshot(long version, List<StaticContent> stored) {
+            this.version = version;
+            List<StaticContent> sorted = new ArrayList<>(stored);
+            sorted.sort(Comparator.comparingInt(StaticContent::getId));
+            Map<String, Map<String, StaticContent>> byDescription = new LinkedHashMap<>();
+            for (StaticContent content : sorted) {
+                // Copies are not attached to the persistence context of the reading transaction
+                StaticContent copy = new StaticContent(content.getContent());
+                copy.setId(content.getId());
+                copy.setContentDescription(content.getContentDescription());
+                copy.setLanguage(content.getLanguage());
+                copy.setVersion(content.getVersion());
+                copy.setUpdatedAt(content.getUpdatedAt());
+                byDescription.computeIfAbsent(content.getContentDescription(), 
+                        description -> new LinkedHashMap<>())
+                        .putIfAbsent(content.getLanguage().toUpperCase(Locale.ROOT), copy);
+            }
+            byDescription.replaceAll((description, byLanguage) -> 
+                    Collections.unmodifiableMap(byLanguage));
+            this.contents = Collections.unmodifiableMap(byDescription);
+        }
+    }
 }
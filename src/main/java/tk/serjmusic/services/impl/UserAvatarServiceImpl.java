@@ -0,0 +1,224 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.services.impl;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import tk.serjmusic.dao.UserAvatarDao;
+import tk.serjmusic.dao.UserDao;
+import tk.serjmusic.models.User;
+import tk.serjmusic.models.UserAvatar;
+import tk.serjmusic.models.projections.AvatarContent;
+import tk.serjmusic.models.projections.KeysetChunk;
+import tk.serjmusic.services.UserAvatarService;
+import tk.serjmusic.services.exceptions.CanNotFindException;
+import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.logging.Loggable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.PersistenceException;
+
+/**
+ * An implementation of {@link UserAvatarService}. Most of basic logic is implemented in the
+ * {@link AbstractGenericServiceImpl}.
+ *
+ * @author Roman Kondakov
+ */
+
+@Service
+@Transactional
+public class UserAvatarServiceImpl extends AbstractGenericServiceImpl<UserAvatar> 
+        implements UserAvatarService {
+    
+    /*
+     * All methods checks it's input parameters and if it is incorrect the 
+     * {@link IllegalArgumentException} will be thrown.
+     * 
+     * All methods intercept {@link PersistenceException} and throw 
+     * {@link PersistentLayerProblemsException} when it occurs;
+     */
+
+    private static final Logger logger = Logger.getLogger(UserAvatarServiceImpl.class);
+
+    @Autowired
+    private UserAvatarDao avatarDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    private final AtomicInteger migratedId = new AtomicInteger();
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.UserAvatarService#store(byte[])
+     */
+    @Loggable
+    @Override
+    public UserAvatar store(byte[] data) {
+        if ((data == null) || (data.length == 0) || (data.length > R.MAX_AVATAR_SIZE)) {
+            throw new IllegalArgumentException("avatar should be 1.." + R.MAX_AVATAR_SIZE 
+                    + " bytes long");
+        }
+        String contentType = guessImageType(data);
+        if (contentType == null) {
+            throw new IllegalArgumentException("avatar should be a PNG, JPEG, GIF or BMP image");
+        }
+        String hash = sha256Hex(data);
+        try {
+            UserAvatar avatar = avatarDao.findAvatarByHash(hash);
+            if (avatar == null) {
+                avatar = new UserAvatar(hash, contentType, data);
+                avatarDao.persist(avatar);
+            }
+            return avatar;
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("avatar hash: " + hash, ex);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.UserAvatarService#getAvatarByHash(java.lang.String)
+     */
+    @Loggable
+    @Override
+    public UserAvatar getAvatarByHash(String hash) {
+        if (hash == null) {
+            throw new IllegalArgumentException("hash is null");
+        }
+        UserAvatar result = null;
+        try {
+            result = avatarDao.findAvatarByHash(hash);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("avatar hash: " + hash, ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("DAO " + avatarDao.getClass().getSimpleName() 
+                    + " can not find avatar for hash=" + hash);
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.UserAvatarService#getAvatarContentByHash(java.lang.String)
+     */
+    @Loggable
+    @Override
+    public AvatarContent getAvatarContentByHash(String hash) {
+        if (hash == null) {
+            throw new IllegalArgumentException("hash is null");
+        }
+        AvatarContent result = null;
+        try {
+            result = avatarDao.findAvatarContentByHash(hash);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("avatar hash: " + hash, ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException("DAO " + avatarDao.getClass().getSimpleName() 
+                    + " can not find avatar for hash=" + hash);
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.UserAvatarService#migrateLegacyAvatars()
+     */
+    @Loggable
+    @Scheduled(initialDelay = R.AVATAR_MIGRATION_INITIAL_DELAY_MILLIS, 
+            fixedDelay = R.AVATAR_MIGRATION_DELAY_MILLIS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int migrateLegacyAvatars() {
+        try {
+            return runInChunks(migratedId, this::migrateLegacyAvatars);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("can not migrate avatars", ex);
+        }
+    }
+
+    private KeysetChunk migrateLegacyAvatars(int afterId) {
+        SortedMap<Integer, byte[]> images = userDao.findLegacyAvatars(afterId);
+        int updated = 0;
+        for (Map.Entry<Integer, byte[]> image : images.entrySet()) {
+            User user = userDao.find(image.getKey());
+            if ((user == null) || (user.getAvatarHash() != null)) {
+                continue;
+            }
+            try {
+                user.setAvatarHash(store(image.getValue()).getHash());
+                updated++;
+            } catch (IllegalArgumentException ex) {
+                logger.warn("Avatar of user #" + image.getKey() + " is not moved: " 
+                        + ex.getMessage());
+            }
+        }
+        return new KeysetChunk(images.isEmpty() ? afterId : images.lastKey(), updated, 
+                images.size() < R.AVATAR_MIGRATION_BATCH_SIZE);
+    }
+
+    private static String guessImageType(byte[] data) {
+        String contentType;
+        try {
+            contentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(data));
+        } catch (IOException ex) {
+            contentType = null;
+        }
+        if ((contentType == null) || (!contentType.startsWith("image/"))) {
+            return null;
+        }
+        return contentType;
+    }
+
+    private static String sha256Hex(byte[] data) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
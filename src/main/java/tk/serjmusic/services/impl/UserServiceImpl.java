@@ -132,4 +132,29 @@ public class UserServiceImpl extends AbstractGenericServiceImpl<User>
         }
         return result;
     }
+
+    /* (non-Javadoc)
+     * @see tk.serjmusic.services.UserService#getSeekUserCommentsByUserId(int, 
+     * java.lang.Integer, java.lang.Integer, int)
+     */
+    @Loggable
+    @Override
+    public List<BlogComment> getSeekUserCommentsByUserId(int id, Integer afterId, 
+            Integer beforeId, int pageSize) {
+        if (id < 0) {
+            throw new IllegalArgumentException("bad id=" + id);
+        }
+        checkSeekArguments(afterId, beforeId, pageSize);
+        List<BlogComment> result = null;
+        try {
+            result = userDao.findSeekUserCommentsByUserId(id, afterId, beforeId, pageSize);
+        } catch (PersistenceException ex) {
+            throw new PersistentLayerProblemsException("no result ", ex);
+        }
+        if (result == null) {
+            throw new CanNotFindException(
+                    "DAO " + userDao.getClass().getSimpleName() + " can not find entities");
+        }
+        return result;
+    }
 }
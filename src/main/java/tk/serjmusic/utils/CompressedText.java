@@ -0,0 +1,118 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterOutputStream;
+
+/**
+ * Compressed representation of large texts in TEXT columns. A compressed value is the 
+ * {@link R#COMPRESSED_TEXT_PREFIX} followed by Base64 of the deflated UTF-8 text, so it stays 
+ * a valid string in the column charset. Values without the prefix are plain texts, rows stored 
+ * before the compression was introduced are read as is.
+ *
+ * @author Roman Kondakov
+ */
+public final class CompressedText {
+
+    private CompressedText() {
+        
+    }
+
+    /**
+     * Compress the text if it is longer than {@link R#COMPRESSED_TEXT_THRESHOLD} and the 
+     * compressed value is shorter than the text. Short and incompressible texts are returned 
+     * as is unless they start with the prefix, such texts are always compressed to be read back 
+     * correctly.
+     * 
+     * @param text - plain text, may be null
+     * @return the value to store or null if text is null
+     */
+    public static String compress(String text) {
+        if (text == null) {
+            return null;
+        }
+        boolean ambiguous = isCompressed(text);
+        if ((text.length() <= R.COMPRESSED_TEXT_THRESHOLD) && !ambiguous) {
+            return text;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            write(new DeflaterOutputStream(bytes, deflater), text.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            // A deflater passed to the stream isn't released when the stream is closed
+            deflater.end();
+        }
+        String result = R.COMPRESSED_TEXT_PREFIX 
+                + Base64.getEncoder().encodeToString(bytes.toByteArray());
+        return ((result.length() < text.length()) || ambiguous) ? result : text;
+    }
+
+    /**
+     * Restore the text of a stored value.
+     * 
+     * @param value - stored value, compressed or plain, may be null
+     * @return plain text or null if value is null
+     * @throws IllegalArgumentException if the compressed value is damaged
+     */
+    public static String decompress(String value) {
+        if (!isCompressed(value)) {
+            return value;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(new InflaterOutputStream(bytes), Base64.getDecoder()
+                .decode(value.substring(R.COMPRESSED_TEXT_PREFIX.length())));
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check whether the stored value is compressed.
+     * 
+     * @param value - stored value, may be null
+     * @return true if the value is compressed
+     */
+    public static boolean isCompressed(String value) {
+        return (value != null) && value.startsWith(R.COMPRESSED_TEXT_PREFIX);
+    }
+
+    private static void write(OutputStream out, byte[] data) {
+        try (OutputStream stream = out) {
+            stream.write(data);
+        } catch (IOException ex) {
+            // Streams over a byte array fail on damaged compressed data only
+            throw new IllegalArgumentException("damaged compressed text", ex);
+        }
+    }
+}
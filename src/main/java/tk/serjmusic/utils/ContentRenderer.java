@@ -0,0 +1,88 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.utils;
+
+import org.commonmark.parser.Parser;
+import org.commonmark.html.HtmlRenderer;
+import org.owasp.html.HtmlPolicyBuilder;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+
+import tk.serjmusic.models.ContentFormat;
+
+import java.util.regex.Pattern;
+
+/**
+ * Rendering of the content written by authors to HTML which is safe to show as is. Markdown 
+ * is converted to HTML first, then the HTML is sanitized: scripts, event handlers and links 
+ * with other protocols than http(s) and mailto are removed, frames are allowed for YouTube 
+ * players only.
+ *
+ * @author Roman Kondakov
+ */
+public final class ContentRenderer {
+
+    private static final Pattern YOUTUBE_EMBED = Pattern.compile(
+            "https://www\\.youtube(-nocookie)?\\.com/embed/[\\w\\-]+(\\?[\\w=&;\\-]*)?");
+    private static final PolicyFactory POLICY = Sanitizers.FORMATTING
+            .and(Sanitizers.BLOCKS)
+            .and(Sanitizers.STYLES)
+            .and(Sanitizers.LINKS)
+            .and(Sanitizers.IMAGES)
+            .and(Sanitizers.TABLES)
+            .and(new HtmlPolicyBuilder()
+                    .allowElements("br", "hr", "pre", "code", "span")
+                    .allowElements("iframe")
+                    .allowUrlProtocols("https")
+                    .allowAttributes("src").matching(YOUTUBE_EMBED).onElements("iframe")
+                    .allowAttributes("width", "height", "allowfullscreen").onElements("iframe")
+                    .toFactory());
+    // Both are immutable and thread safe
+    private static final Parser MARKDOWN_PARSER = Parser.builder().build();
+    private static final HtmlRenderer MARKDOWN_RENDERER = HtmlRenderer.builder().build();
+
+    private ContentRenderer() {
+        
+    }
+
+    /**
+     * Render the content to sanitized HTML.
+     * 
+     * @param content - HTML or Markdown content, may be null
+     * @param format - format of the content, null means HTML
+     * @return sanitized HTML or null if content is null
+     */
+    public static String render(String content, ContentFormat format) {
+        if (content == null) {
+            return null;
+        }
+        String html = (format == ContentFormat.MARKDOWN) 
+                ? MARKDOWN_RENDERER.render(MARKDOWN_PARSER.parse(content)) : content;
+        return POLICY.sanitize(html);
+    }
+}
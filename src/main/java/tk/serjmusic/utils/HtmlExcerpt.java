@@ -0,0 +1,115 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.utils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plain text excerpts of HTML content for the list pages.
+ *
+ * @author Roman Kondakov
+ */
+public final class HtmlExcerpt {
+
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern ENTITY = 
+            Pattern.compile("&(?:#([0-9]{1,7})|#[xX]([0-9a-fA-F]{1,6})|(nbsp|lt|gt|quot|amp));");
+    private static final String ELLIPSIS = "…";
+
+    private HtmlExcerpt() {
+        
+    }
+
+    /**
+     * Strip tags from HTML, decode numeric character references and the most common named 
+     * entities, collapse whitespace and cut the text at the word boundary if it is longer 
+     * than {@code maxLength}. The sanitizer escapes e.g. {@code +}, {@code =} and {@code @} 
+     * as numeric references.
+     * 
+     * @param html - HTML or plain text, may be null
+     * @param maxLength - maximal length of the excerpt including the trailing ellipsis
+     * @return plain text excerpt or null if html is null
+     */
+    public static String of(String html, int maxLength) {
+        if (html == null) {
+            return null;
+        }
+        String text = decodeEntities(TAG.matcher(html).replaceAll(" "));
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        if (text.length() <= maxLength) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', maxLength - ELLIPSIS.length());
+        if (end <= 0) {
+            end = maxLength - ELLIPSIS.length();
+        }
+        return text.substring(0, end).trim() + ELLIPSIS;
+    }
+
+    /**
+     * Decode entities in one pass, so decoded ampersands don't start new entities.
+     */
+    private static String decodeEntities(String text) {
+        Matcher matcher = ENTITY.matcher(text);
+        if (!matcher.find()) {
+            return text;
+        }
+        StringBuffer result = new StringBuffer(text.length());
+        do {
+            String decoded;
+            if (matcher.group(3) != null) {
+                decoded = decodeNamed(matcher.group(3));
+            } else {
+                int codePoint = (matcher.group(1) != null) 
+                        ? Integer.parseInt(matcher.group(1)) 
+                        : Integer.parseInt(matcher.group(2), 16);
+                decoded = Character.isValidCodePoint(codePoint) 
+                        ? new String(Character.toChars(codePoint)) : matcher.group();
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(decoded));
+        } while (matcher.find());
+        return matcher.appendTail(result).toString();
+    }
+
+    private static String decodeNamed(String name) {
+        switch (name) {
+            case "nbsp":
+                return " ";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            default:
+                return "&";
+        }
+    }
+}
@@ -34,10 +34,46 @@ package tk.serjmusic.utils;
  */
 public class R {
     public static final String HIBERNATE_QUERY_CACHE_NAME = "org.hibernate.cacheable";
+    public static final String LOAD_GRAPH_HINT_NAME = "javax.persistence.loadgraph";
+    public static final String LIST_ENTITY_GRAPH_SUFFIX = ".list";
+    public static final String CACHE_MANAGER_NAME = "tkpage";
+    public static final String COMMENT_ID_INDEX_CACHE_REGION = 
+            "tk.serjmusic.models.BlogComment.ids";
+    public static final String RESPONSE_CACHE_REGION = "tk.serjmusic.responses";
+    public static final String JSON_FRAGMENT_CACHE_REGION = "tk.serjmusic.fragments";
+    public static final String USER_NATURAL_ID_CACHE_REGION = "tk.serjmusic.models.User.naturalId";
+    public static final String DEFAULT_CONTENT_LANGUAGE = "RU";
     public static final String DEFAULT_PAGE_NUMBER = "1";
     public static final String DEFAULT_PAGE_SIZE = "5";
     public static final boolean DEFAULT_ASC_ID_SORT_ORDER = false;
     public static final String DEFAULT_PAGE_SIZE_TEXT = "10";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+    public static final int MAX_DELTA_SIZE = 100;
+    public static final int BLOG_EXCERPT_LENGTH = 300;
+    public static final int BULK_FLUSH_SIZE = 50;
+    public static final int BULK_DELETE_CHUNK_SIZE = 1000;
+    public static final int FETCH_BATCH_SIZE = 50;
+    public static final long COMMENT_RECOUNT_INITIAL_DELAY_MILLIS = 60 * 1000L;
+    public static final long COMMENT_RECOUNT_DELAY_MILLIS = 24 * 60 * 60 * 1000L;
+    public static final String COMPRESSED_TEXT_PREFIX = "\u0001deflate:";
+    public static final int COMPRESSED_TEXT_THRESHOLD = 1024;
+    public static final int TEXT_COMPRESSION_BATCH_SIZE = 100;
+    public static final long TEXT_COMPRESSION_INITIAL_DELAY_MILLIS = 5 * 60 * 1000L;
+    public static final long TEXT_COMPRESSION_DELAY_MILLIS = 24 * 60 * 60 * 1000L;
+    public static final int CONTENT_RENDERING_BATCH_SIZE = 50;
+    public static final long CONTENT_RENDERING_INITIAL_DELAY_MILLIS = 10 * 1000L;
+    public static final long CONTENT_RENDERING_DELAY_MILLIS = 24 * 60 * 60 * 1000L;
+    public static final long SSE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    public static final long SSE_HEARTBEAT_SECONDS = 25;
+    public static final long SSE_WRITE_TIMEOUT_MILLIS = 10 * 1000L;
+    public static final int SSE_MAX_PENDING_EVENTS = 16;
+    public static final int SSE_WRITER_THREADS = 4;
+    public static final int MAX_AVATAR_SIZE = 1024 * 1024;
+    public static final long AVATAR_MAX_AGE_SECONDS = 365 * 24 * 60 * 60L;
+    public static final int AVATAR_MIGRATION_BATCH_SIZE = 20;
+    public static final long AVATAR_MIGRATION_INITIAL_DELAY_MILLIS = 60 * 1000L;
+    public static final long AVATAR_MIGRATION_DELAY_MILLIS = 24 * 60 * 60 * 1000L;
     public static final String DUMMY_PICTURE = "https://s-media-cache-ak0.pinimg.com/"
             + "236x/94/55/0a/94550a20f14d2623e4681a89ccda6df9.jpg";
 }
@@ -0,0 +1,158 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.utils;
+
+import org.springframework.http.HttpHeaders;
+
+import tk.serjmusic.models.Identifiable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque cursor for keyset pagination. A cursor holds an exclusive ID bound: either 
+ * "after ID" or "before ID". Clients should not parse it, they should only pass the value of
+ * {@link R#NEXT_CURSOR_HEADER} header back to the list resource.
+ *
+ * @author Roman Kondakov
+ */
+public final class SeekCursor {
+    
+    private static final char AFTER = 'a';
+    private static final char BEFORE = 'b';
+
+    private final Integer afterId;
+    private final Integer beforeId;
+
+    private SeekCursor(Integer afterId, Integer beforeId) {
+        this.afterId = afterId;
+        this.beforeId = beforeId;
+    }
+
+    /**
+     * Resolve keyset bounds from the request parameters. The opaque cursor takes precedence
+     * over the explicit bounds.
+     * 
+     * @param cursor opaque cursor or {@code null}
+     * @param afterId exclusive lower bound of IDs or {@code null}
+     * @param beforeId exclusive upper bound of IDs or {@code null}
+     * @return the cursor or {@code null} if no bound is given and page number pagination 
+     *      should be used
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static SeekCursor of(String cursor, Integer afterId, Integer beforeId) {
+        if ((cursor != null) && (!cursor.isEmpty())) {
+            return decode(cursor);
+        }
+        if ((afterId == null) && (beforeId == null)) {
+            return null;
+        }
+        return new SeekCursor(afterId, beforeId);
+    }
+
+    /**
+     * Encode the cursor pointing to the page next to the given one.
+     * 
+     * @param page the current page
+     * @param ascOrderById whether the page is in ascend ID order
+     * @param pageSize requested page size
+     * @return encoded cursor or {@code null} if the page is the last one
+     */
+    public static String next(List<? extends Identifiable> page, boolean ascOrderById, 
+            int pageSize) {
+        if ((page == null) || (page.isEmpty()) || (page.size() < pageSize)) {
+            return null;
+        }
+        int lastId = page.get(page.size() - 1).getId();
+        return encode(ascOrderById ? AFTER : BEFORE, lastId);
+    }
+
+    /**
+     * Build response headers with the cursor pointing to the next page, if any.
+     * 
+     * @param page the current page
+     * @param ascOrderById whether the page is in ascend ID order
+     * @param pageSize requested page size
+     * @return response headers
+     */
+    public static HttpHeaders nextCursorHeaders(List<? extends Identifiable> page, 
+            boolean ascOrderById, int pageSize) {
+        HttpHeaders headers = new HttpHeaders();
+        String next = next(page, ascOrderById, pageSize);
+        if (next != null) {
+            headers.set(R.NEXT_CURSOR_HEADER, next);
+        }
+        return headers;
+    }
+
+    private static String encode(char direction, int id) {
+        byte[] raw = (direction + Integer.toString(id)).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    private static SeekCursor decode(String cursor) {
+        String raw;
+        int id;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            id = Integer.parseInt(raw.substring(1));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, ex);
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        switch (raw.charAt(0)) {
+            case AFTER:
+                return new SeekCursor(id, null);
+            case BEFORE:
+                return new SeekCursor(null, id);
+            default:
+                throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Exclusive lower bound of IDs getter.
+     * 
+     * @return the lower bound or {@code null}
+     */
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Exclusive upper bound of IDs getter.
+     * 
+     * @return the upper bound or {@code null}
+     */
+    public Integer getBeforeId() {
+        return beforeId;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+* This is free and unencumbered software released into the public domain.
+*
+* Anyone is free to copy, modify, publish, use, compile, sell, or
+* distribute this software, either in source code form or as a compiled
+* binary, for any purpose, commercial or non-commercial, and by any
+* means.
+*
+* In jurisdictions that recognize copyright laws, the author or authors
+* of this software dedicate any and all copyright interest in the
+* software to the public domain. We make this dedication for the benefit
+* of the public at large and to the detriment of our heirs and
+* successors. We intend this dedication to be an overt act of
+* relinquishment in perpetuity of all present and future rights to this
+* software under copyright law.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+* OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+* OTHER DEALINGS IN THE SOFTWARE.
+*
+* For more information, please refer to <http://unlicense.org/>
+*/
+
+package tk.serjmusic.utils.cache;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import tk.serjmusic.utils.R;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Cache of JSON fragments, i.e. serialized DTOs of single entities, which list responses are
+ * spliced from. A fragment is kept per entity ID and it is valid only for the entity version 
+ * and the base URI of links it was serialized with, so unchanged entities are not assembled 
+ * and serialized again for overlapping pages. Only the version numbers and the JSON are 
+ * stored, never the entities. Updates and removals through the service layer evict fragments
+ * at once.
+ * 
+ * <p>The cache is disabled if there is no {@value R#JSON_FRAGMENT_CACHE_REGION} region, 
+ * e.g. when the second level cache is turned off.
+ *
+ * @author Roman Kondakov
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class JsonFragmentCache {
+
+    private Ehcache cache;
+
+    public JsonFragmentCache() {
+        
+    }
+
+    JsonFragmentCache(Ehcache cache) {
+        this.cache = cache;
+    }
+
+    @PostConstruct
+    private void init() {
+        // The cache manager is started together with the entity manager factory
+        CacheManager cacheManager = CacheManager.getCacheManager(R.CACHE_MANAGER_NAME);
+        cache = (cacheManager == null) ? null 
+                : cacheManager.getEhcache(R.JSON_FRAGMENT_CACHE_REGION);
+    }
+
+    /**
+     * Get the fragment of the entity version, it is serialized and cached if there is no such 
+     * one.
+     *
+     * @param type entity type
+     * @param id entity ID
+     * @param version optimistic lock version of the serialized state
+     * @param baseUri base URI of links in the fragment
+     * @param serializer serializer of the fragment
+     * @return JSON fragment
+     */
+    public byte[] get(Class<?> type, int id, long version, String baseUri, 
+            Supplier<byte[]> serializer) {
+        if (cache == null) {
+            return serializer.get();
+        }
+        String key = key(type, id);
+        Element element = cache.get(key);
+        if (element != null) {
+            Fragment fragment = (Fragment) element.getObjectValue();
+            if ((fragment.version == version) && fragment.baseUri.equals(baseUri)) {
+                return fragment.json;
+            }
+        }
+        byte[] json = serializer.get();
+        cache.put(new Element(key, new Fragment(version, baseUri, json)));
+        return json;
+    }
+
+    /**
+     * Evict the fragment of the entity.
+     *
+     * @param type entity type
+     * @param id entity ID
+     */
+    public void evict(Class<?> type, int id) {
+        if (cache != null) {
+            cache.remove(key(type, id));
+        }
+    }
+
+    /**
+     * Splice fragments into a JSON array.
+     *
+     * @param fragments JSON fragments
+     * @return JSON array
+     */
+    public static byte[] toJsonArray(List<byte[]> fragments) {
+        int size = 2 + fragments.size();
+        for (byte[] fragment : fragments) {
+            size += fragment.length;
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream(size);
+        result.write('[');
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                result.write(',');
+            }
+            result.write(fragments.get(i), 0, fragments.get(i).length);
+        }
+        result.write(']');
+        return result.toByteArray();
+    }
+
+    private static String key(Class<?> type, int id) {
+        return type.getName() + ":" + id;
+    }
+
+    /**
+     * JSON of the entity version.
+     */
+    private static final class Fragment {
+        private final long version;
+        private final String baseUri;
+        private final byte[] json;
+
+        private Fragment(long version, String baseUri, byte[] json) {
+            this.version = version;
+            this.baseUri = baseUri;
+            this.json = json;
+        }
+    }
+}
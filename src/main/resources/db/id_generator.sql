@@ -0,0 +1,17 @@
+-- Seeds the pooled ID generator for a database created with IDENTITY columns.
+-- Run once before the first start of the application with the table generator,
+-- otherwise new IDs would start from 1 and collide with existing rows.
+
+CREATE TABLE IF NOT EXISTS id_generator (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
+
+INSERT INTO id_generator SELECT 'users', COALESCE(MAX(id), 0) + 1 FROM users;
+-- user_avatars is created by the application itself, so it starts from 1.
+INSERT INTO id_generator VALUES ('user_avatars', 1);
+INSERT INTO id_generator SELECT 'blog_entries', COALESCE(MAX(id), 0) + 1 FROM blog_entries;
+INSERT INTO id_generator SELECT 'blog_comments', COALESCE(MAX(id), 0) + 1 FROM blog_comments;
+INSERT INTO id_generator SELECT 'photo_entries', COALESCE(MAX(id), 0) + 1 FROM photo_entries;
+INSERT INTO id_generator SELECT 'video_entries', COALESCE(MAX(id), 0) + 1 FROM video_entries;
+INSERT INTO id_generator SELECT 'static_content', COALESCE(MAX(id), 0) + 1 FROM static_content;
@@ -0,0 +1,13 @@
+-- Replaces the unique description of static content with the unique pair of description and
+-- language, so a page may be stored in several languages. Run once on a database created by
+-- the previous versions, the new constraint is added by the schema update on the next start.
+
+SELECT CONCAT('ALTER TABLE static_content DROP INDEX ', index_name) INTO @drop_unique_description
+FROM information_schema.statistics
+WHERE table_schema = DATABASE() AND table_name = 'static_content'
+    AND column_name = 'content_description' AND non_unique = 0
+LIMIT 1;
+
+PREPARE drop_unique_description FROM @drop_unique_description;
+EXECUTE drop_unique_description;
+DEALLOCATE PREPARE drop_unique_description;
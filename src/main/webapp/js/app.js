@@ -55,6 +55,7 @@ app.controller("appCtrl", function AppCtrl($interval, $scope, $location,
 
 });
 
+// Only for HTML sanitized by the server, e.g. renderedHtml of blog entries and static content
 app.filter("trust", [ '$sce', function($sce) {
 	return function(htmlCode) {
 		return $sce.trustAsHtml(htmlCode);
@@ -22,13 +22,14 @@ app.controller("bioController", function(staticContentService, $sce) {
 	
 	this.data = staticContentService.getStaticContentByName("bio", function(data) {
 		ctrl.parsibleData = data.content;
+		ctrl.renderedHtml = data.renderedHtml;
 		ctrl.staticContentId = data.staticContentId;
 	}, function() {});
 	
 	this.update = function() {
 		staticContentService.updateStaticContent(ctrl.staticContentId, 
 				{"content": ctrl.parsibleData},
-				function() {alert("Сохранено!");}, function() {alert("Какие-то проблемы - не сохранено!");});
+				function(data) {ctrl.renderedHtml = data.renderedHtml; alert("Сохранено!");}, function() {alert("Какие-то проблемы - не сохранено!");});
 	}
 });
 
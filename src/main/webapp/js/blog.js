@@ -54,6 +54,11 @@ app.controller("blogController", function(blogService, $state) {
 		});
 	}
 	
+	// The list holds excerpts only, so the full entry is loaded for editing
+	ctrl.loadForEdit = function(blog) {
+		blog.full = blogService.getBlogById(blog.blogId);
+	}
+	
 	ctrl.updateBlog = function(blog) {
 		blogService.updateBlog(blog, function() { //success
 			$state.reload();
@@ -110,6 +115,30 @@ app.service("blogService", function($resource) {
 		});
 	}
 	
+	// The first page is requested without cursor, success gets the cursor of the next page
+	// or null if the page is the last one
+	service.getCommentsPageForBlogId = function(blogId, cursor, pageSize, success) {
+		return BlogComments.query({
+			"blogEntryId" : blogId,
+			"cursor" : cursor,
+			"pageSize" : pageSize
+		}, function(page, headers) {
+			success(page, headers("X-Next-Cursor"));
+		});
+	}
+	
+	service.getNewCommentsForBlogId = function(blogId, sinceId, maxResults) {
+		return BlogComments.query({
+			"blogEntryId" : blogId,
+			"sinceId" : sinceId,
+			"pageSize" : maxResults
+		});
+	}
+	
+	service.openCommentStream = function(blogId) {
+		return new EventSource("api/v1/resources/blogs/" + blogId + "/comments/stream");
+	}
+	
 	service.addNewBlogComment = function(blogId, comment, success, failure) {
 		return BlogComments.save({"blogEntryId" : blogId}, comment, success, failure);
 	}
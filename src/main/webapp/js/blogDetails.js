@@ -22,13 +22,47 @@ app.controller("blogDetailsController", function(commentService, blogService,
 		$stateParams, $state, $rootScope, $interval, $scope) {
 	var ctrl = this;
 	ctrl.blog = blogService.getBlogById($stateParams.blogId);
-	ctrl.comments = blogService.getPaginatedCommentsForBlogId(
-			$stateParams.blogId, 1, 9999);
+	var commentsLoaded = false;
+	var missedWhileLoading = false;
+	// All comments up to this ID are loaded, pushed comments may be newer
+	var syncedId = 0;
+	// Older comments are loaded page by page on demand
+	var COMMENTS_PAGE_SIZE = 20;
+	var nextCursor = null;
+	var loadingMore = false;
+	ctrl.hasMoreComments = false;
+	ctrl.comments = blogService.getCommentsPageForBlogId($stateParams.blogId,
+			null, COMMENTS_PAGE_SIZE, function(page, cursor) {
+				nextCursor = cursor;
+				ctrl.hasMoreComments = (cursor !== null);
+			});
+	ctrl.comments.$promise.finally(function() {
+		syncedId = lastCommentId();
+		commentsLoaded = true;
+		if (missedWhileLoading) {
+			ctrl.pollNewComments();
+		}
+	});
+	ctrl.loadMoreComments = function() {
+		if (!nextCursor || loadingMore) {
+			return;
+		}
+		loadingMore = true;
+		blogService.getCommentsPageForBlogId($stateParams.blogId, nextCursor,
+				COMMENTS_PAGE_SIZE, function(page, cursor) {
+					nextCursor = cursor;
+					ctrl.hasMoreComments = (cursor !== null);
+					mergeComments(page);
+				}).$promise.finally(function() {
+			loadingMore = false;
+		});
+	}
+	
 	ctrl.sendNewComment = function() {
 		// ctrl.newComment.blogEntry.blogId = $stateParams.blogId;
 		blogService.addNewBlogComment($stateParams.blogId, ctrl.newComment,
 				function() { // success
-					$state.reload();
+					ctrl.pollNewComments();
 				}, function() { // failure
 					alert("Can not add comment((");
 				})
@@ -44,26 +78,95 @@ app.controller("blogDetailsController", function(commentService, blogService,
 	}
 	
 	//TIMER UPDATES
-	var displayedComments;
+	var MAX_NEW_COMMENTS = 100;
 	var timerActions = 0;
-	$scope.Timer = $interval(function() {
-		timerActions = timerActions + 1;
-		if (timerActions % refreshSteps(timerActions) === 0) {
-			displayedComments = blogService.getPaginatedCommentsForBlogId(
-					$stateParams.blogId, 1, 9999);
-			displayedComments.$promise.then(function(result) {
-				if (ctrl.comments.length === 0) {
-					ctrl.comments = result;
-					timerActions = 0;
-				} else if (ctrl.comments[0].content != result[0].content) {
-					ctrl.comments = result;
-					timerActions = 0;
-				}
+	
+	// Comments are ordered from the newest one, so the first comment has the greatest ID
+	function lastCommentId() {
+		return ctrl.comments.length > 0 ? ctrl.comments[0].commentId : 0;
+	}
+	
+	// Add the comments which are not displayed yet, keeping the newest one first
+	function mergeComments(comments) {
+		var known = {};
+		ctrl.comments.forEach(function(comment) {
+			known[comment.commentId] = true;
+		});
+		var fresh = comments.filter(function(comment) {
+			return !known[comment.commentId];
+		});
+		if (fresh.length > 0) {
+			ctrl.comments = fresh.concat(ctrl.comments).sort(function(a, b) {
+				return b.commentId - a.commentId;
 			});
 		}
-	}, 1000);
+		return fresh.length;
+	}
+	
+	// Ask only for the comments newer than the loaded ones, including those missed
+	// while the push channel was reconnecting
+	ctrl.pollNewComments = function() {
+		if (!commentsLoaded) {
+			return;
+		}
+		blogService.getNewCommentsForBlogId($stateParams.blogId, syncedId,
+				MAX_NEW_COMMENTS).$promise.then(function(result) {
+			result.forEach(function(comment) {
+				syncedId = Math.max(syncedId, comment.commentId);
+			});
+			if (mergeComments(result) > 0) {
+				timerActions = 0;
+			}
+			if (result.length === MAX_NEW_COMMENTS) {
+				ctrl.pollNewComments();
+			}
+		});
+	}
+	
+	// Poll on timer only when there is no push channel
+	function startPolling() {
+		if (angular.isDefined($scope.Timer)) {
+			return;
+		}
+		$scope.Timer = $interval(function() {
+			timerActions = timerActions + 1;
+			if (timerActions % refreshSteps(timerActions) === 0) {
+				ctrl.pollNewComments();
+			}
+		}, 1000);
+	}
+	
+	//PUSH UPDATES
+	var commentStream;
+	if (window.EventSource) {
+		commentStream = blogService.openCommentStream($stateParams.blogId);
+		// Fetch comments missed while (re)connecting
+		commentStream.onopen = function() {
+			$scope.$apply(ctrl.pollNewComments);
+		};
+		commentStream.addEventListener("comment", function(event) {
+			var comment = JSON.parse(event.data);
+			$scope.$apply(function() {
+				if (!commentsLoaded) {
+					missedWhileLoading = true;
+				} else {
+					mergeComments([ comment ]);
+				}
+			});
+		});
+		commentStream.onerror = function() {
+			if (commentStream.readyState === EventSource.CLOSED) {
+				startPolling();
+			}
+		};
+	} else {
+		startPolling();
+	}
 	
 	$scope.$on("$destroy",function(){
+	    if (angular.isDefined(commentStream)) {
+	        commentStream.close();
+	    }
 	    if (angular.isDefined($scope.Timer)) {
 	        $interval.cancel($scope.Timer);
 	    }
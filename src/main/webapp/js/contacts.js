@@ -22,6 +22,7 @@ app.controller("contactsController", function(staticContentService) {
 	
 	ctrl.data = staticContentService.getStaticContentByName("contacts", function(data) {
 		ctrl.contactData = data.content;
+		ctrl.renderedHtml = data.renderedHtml;
 		ctrl.staticContentId = data.staticContentId;
 	}, function() {
 		alert("can not find contact data((");
@@ -30,6 +31,6 @@ app.controller("contactsController", function(staticContentService) {
 	ctrl.update = function() {
 		staticContentService.updateStaticContent(ctrl.staticContentId, 
 				{"content": ctrl.contactData},
-				function() {alert("success!");}, function() {alert("failure!");});
+				function(data) {ctrl.renderedHtml = data.renderedHtml; alert("success!");}, function() {alert("failure!");});
 	}
 });
\ No newline at end of file
@@ -67,6 +67,7 @@ import tk.serjmusic.controllers.exceptions.ExceptionHandlerAdvice;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
 import tk.serjmusic.models.User;
+import tk.serjmusic.models.projections.EntityVersion;
 import tk.serjmusic.services.BlogCommentService;
 import tk.serjmusic.utils.R;
 
@@ -115,6 +116,8 @@ public class BlogCommentControllerTest {
         mockMvc = MockMvcBuilders.standaloneSetup(blogController)
                                  .setControllerAdvice(new ExceptionHandlerAdvice())
                                  .build();
+        when(commentService.getVersionOfAll()).thenReturn(new EntityVersion(2, 2, 0L));
+        when(commentService.getVersionById(anyInt())).thenReturn(new EntityVersion(1, 0, null));
         comment1 = new BlogComment("test1");
         comment2 = new BlogComment("test2");
         user = new User();
@@ -165,11 +168,21 @@ public class BlogCommentControllerTest {
      */
     @Test
     public final void testGetCommentById() throws Exception {
+        user.setUsername("user");
+        user.setEmail("user@example.com");
+        blogEntry.setContent("blog_content");
         when(commentService.getById(anyInt())).thenReturn(comment1);
         String path = "/api/v1/resources/comments/1";
         mockMvc.perform(get(path))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$.content", is(comment1.getContent())));
+               .andExpect(jsonPath("$.content", is(comment1.getContent())))
+               .andExpect(jsonPath("$.author.username", is(user.getUsername())))
+               .andExpect(jsonPath("$.author.email").doesNotExist())
+               .andExpect(jsonPath("$.author.roles").doesNotExist())
+               .andExpect(jsonPath("$.author.links").doesNotExist())
+               .andExpect(jsonPath("$.blogEntry.author.email").doesNotExist())
+               .andExpect(jsonPath("$.blogEntry.content").doesNotExist())
+               .andExpect(jsonPath("$.blogEntry.renderedHtml").doesNotExist());
         path = "/api/v1/resources/comments/-1";
         mockMvc.perform(get(path))
                 .andExpect(status().isBadRequest());
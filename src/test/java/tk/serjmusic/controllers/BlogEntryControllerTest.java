@@ -27,22 +27,36 @@
 
 package tk.serjmusic.controllers;
 
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -56,19 +70,33 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.ContextHierarchy;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import tk.serjmusic.controllers.dto.BlogEntryDto;
+import tk.serjmusic.controllers.dto.asm.BlogCommentDtoAsm;
 import tk.serjmusic.controllers.dto.asm.BlogEntryDtoAsm;
 import tk.serjmusic.controllers.exceptions.ExceptionHandlerAdvice;
+import tk.serjmusic.controllers.push.CommentBroadcaster;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
 import tk.serjmusic.models.User;
+import tk.serjmusic.models.projections.BlogEntrySummary;
+import tk.serjmusic.models.projections.EntityVersion;
+import tk.serjmusic.services.BlogCommentService;
 import tk.serjmusic.services.BlogEntryService;
+import tk.serjmusic.services.exceptions.CanNotFindException;
+import tk.serjmusic.utils.R;
+import tk.serjmusic.utils.cache.JsonFragmentCache;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Test module for {@link BlogEntryController}.
@@ -88,9 +116,13 @@ public class BlogEntryControllerTest {
     @Mock
     private BlogEntryService blogService;
     
+    @Mock
+    private BlogCommentService commentService;
+    
     @InjectMocks
     private BlogEntryController blogController;
     
+    private CommentBroadcaster commentBroadcaster;
     private MockMvc mockMvc;
     private ArgumentCaptor<BlogEntry> argumentCaptor;
     private ObjectMapper jsonMapper = new ObjectMapper();
@@ -110,10 +142,15 @@ public class BlogEntryControllerTest {
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
+        commentBroadcaster = new CommentBroadcaster();
+        ReflectionTestUtils.setField(blogController, "commentBroadcaster", commentBroadcaster);
+        ReflectionTestUtils.setField(blogController, "fragmentCache", new JsonFragmentCache());
         mockMvc = MockMvcBuilders.standaloneSetup(blogController)
                                  .setControllerAdvice(new ExceptionHandlerAdvice())
                                  .build();
         argumentCaptor = ArgumentCaptor.forClass(BlogEntry.class);
+        when(blogService.getVersionOfAll()).thenReturn(new EntityVersion(2, 2, 3L));
+        when(commentService.getVersionOfAll()).thenReturn(new EntityVersion(0, null, null));
         
         comment1 = new BlogComment("test_comment_1");
         comment2 = new BlogComment("test_comment_2");
@@ -138,6 +175,14 @@ public class BlogEntryControllerTest {
         
     }
 
+    /**
+     * Tear down method.
+     */
+    @After
+    public void tearDown() {
+        commentBroadcaster.shutdown();
+    }
+
     /**
      * Test method for {@link tk.serjmusic.controllers.BlogEntryController
      * #getPaginatedBlogs(int, int)}.
@@ -145,14 +190,25 @@ public class BlogEntryControllerTest {
      */
     @Test
     public final void testGetPaginatedBlogs() throws Exception {
-        List<BlogEntry> blogs = Arrays.asList(blogEntry1, blogEntry2);
-        when(blogService.getPaginatedAndOrdered(anyBoolean(), anyInt(), anyInt()))
-                .thenReturn(blogs);
+        List<BlogEntrySummary> blogs = Arrays.asList(
+                new BlogEntrySummary(2, 0, "title_2", "excerpt_2", null, new Date(), 
+                        3, new Date(), 1, 0, "testUser", null, null),
+                new BlogEntrySummary(1, 0, "title_1", "excerpt_1", null, new Date(), 
+                        0, null, null, null, null, null, null));
+        when(blogService.getProjectionPaginatedAndOrdered(eq(BlogEntrySummary.class), 
+                anyBoolean(), anyInt(), anyInt())).thenReturn(blogs);
         String path = "/api/v1/resources/blogs";
         mockMvc.perform(get(path)).andExpect(status().isOk())
+                                  .andExpect(content().contentTypeCompatibleWith(
+                                          MediaType.APPLICATION_JSON))
                                   .andExpect(jsonPath("$", hasSize(blogs.size())))
-                                  .andExpect(jsonPath("$.[*].content", 
-                                          hasItem(blogEntry1.getContent())));
+                                  .andExpect(jsonPath("$.[*].excerpt", hasItem("excerpt_1")))
+                                  .andExpect(jsonPath("$[0].author.username", 
+                                          equalTo("testUser")))
+                                  .andExpect(jsonPath("$[0].content").value(nullValue()))
+                                  .andExpect(jsonPath("$[0].commentCount", equalTo(3)))
+                                  .andExpect(jsonPath("$[1].commentCount", equalTo(0)))
+                                  .andExpect(jsonPath("$[1].author").value(nullValue()));
         path = "/api/v1/resources/blogs?pageNumber=-1&pageSize=1";
         mockMvc.perform(get(path))
                 .andExpect(status().isBadRequest());
@@ -161,6 +217,37 @@ public class BlogEntryControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    /**
+     * Test method for keyset pagination of {@link tk.serjmusic.controllers.BlogEntryController
+     * #getPaginatedBlogs(int, int, Integer, Integer, String)}.
+     * @throws Exception  sometimes
+     */
+    @Test
+    public final void testGetSeekPaginatedBlogs() throws Exception {
+        List<BlogEntrySummary> blogs = Arrays.asList(
+                new BlogEntrySummary(9, 0, "title_9", "excerpt_9", null, new Date(), 
+                        0, null, null, null, null, null, null),
+                new BlogEntrySummary(8, 0, "title_8", "excerpt_8", null, new Date(), 
+                        0, null, null, null, null, null, null));
+        when(blogService.getProjectionSeekPaginatedAndOrdered(eq(BlogEntrySummary.class), 
+                anyBoolean(), any(Integer.class), any(Integer.class), anyInt()))
+                .thenReturn(blogs);
+        String path = "/api/v1/resources/blogs?beforeId=10&pageSize=2";
+        String cursor = mockMvc.perform(get(path)).andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(blogs.size())))
+                .andExpect(header().string(R.NEXT_CURSOR_HEADER, notNullValue()))
+                .andReturn().getResponse().getHeader(R.NEXT_CURSOR_HEADER);
+        verify(blogService).getProjectionSeekPaginatedAndOrdered(BlogEntrySummary.class, 
+                R.DEFAULT_ASC_ID_SORT_ORDER, null, 10, 2);
+        mockMvc.perform(get("/api/v1/resources/blogs?pageSize=3&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(R.NEXT_CURSOR_HEADER));
+        verify(blogService).getProjectionSeekPaginatedAndOrdered(BlogEntrySummary.class, 
+                R.DEFAULT_ASC_ID_SORT_ORDER, null, 8, 3);
+        mockMvc.perform(get("/api/v1/resources/blogs?cursor=broken"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Test method for {@link tk.serjmusic.controllers.BlogEntryController
      * #addNewBlogEntry(tk.serjmusic.controllers.dto.BlogEntryDto)}.
@@ -186,10 +273,46 @@ public class BlogEntryControllerTest {
     /**
      * Test method for {@link tk.serjmusic.controllers.BlogEntryController#getBlogById(int)}.
      */
-    @Ignore
     @Test
-    public final void testGetBlogById() {
-        fail("Not yet implemented"); // TODO
+    public final void testGetBlogById() throws Exception {
+        Date updatedAt = new Date(1000000000000L);
+        when(blogService.getVersionById(1)).thenReturn(new EntityVersion(1, 4, updatedAt));
+        when(blogService.getById(1)).thenReturn(blogEntry1);
+        String path = "/api/v1/resources/blogs/1";
+        mockMvc.perform(get(path)).andExpect(status().isOk())
+                                  .andExpect(header().string("ETag", "\"1.4\""))
+                                  .andExpect(header().dateValue("Last-Modified", 
+                                          updatedAt.getTime()))
+                                  .andExpect(jsonPath("$.title", 
+                                          equalTo(blogEntry1.getTitle())));
+        verify(blogService).getById(1);
+        
+        // Conditional requests are validated without loading the entry
+        mockMvc.perform(get(path).header("If-None-Match", "\"1.4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get(path).header("If-Modified-Since", updatedAt.getTime()))
+                .andExpect(status().isNotModified());
+        verify(blogService).getById(1);
+        mockMvc.perform(get(path).header("If-None-Match", "\"1.3\""))
+                .andExpect(status().isOk());
+        verify(blogService, times(2)).getById(1);
+    }
+
+    /**
+     * Test of conditional requests of the list of blog entries.
+     * 
+     * @throws Exception sometimes
+     */
+    @Test
+    public final void testGetPaginatedBlogsNotModified() throws Exception {
+        String path = "/api/v1/resources/blogs";
+        mockMvc.perform(get(path).header("If-None-Match", "\"2.2.3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2.2.3\""))
+                .andExpect(header().doesNotExist("Last-Modified"));
+        verify(blogService, never()).getProjectionPaginatedAndOrdered(any(), anyBoolean(), 
+                anyInt(), anyInt());
     }
 
     /**
@@ -202,13 +325,61 @@ public class BlogEntryControllerTest {
         fail("Not yet implemented"); // TODO
     }
 
+    /**
+     * Test method for {@link tk.serjmusic.controllers.BlogEntryController
+     * #patchBlogById(tk.serjmusic.controllers.dto.BlogEntryDto, int, 
+     * org.springframework.web.context.request.WebRequest)}.
+     * 
+     * @throws Exception sometimes
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public final void testPatchBlogById() throws Exception {
+        blogEntry1.setContent("test_content");
+        when(blogService.patch(eq(1), anyInt(), any(Consumer.class))).thenAnswer(invocation -> {
+            ((Consumer<BlogEntry>) invocation.getArguments()[2]).accept(blogEntry1);
+            return blogEntry1;
+        });
+        when(blogService.getVersionById(1)).thenReturn(new EntityVersion(1, 5, null));
+        String path = "/api/v1/resources/blogs/1";
+        String blogPatch = "{\"title\":\"new_title\"}";
+        
+        // The change should be based on the version of the same entry
+        mockMvc.perform(patch(path).contentType(R.MERGE_PATCH_JSON_VALUE).content(blogPatch))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch(path).contentType(R.MERGE_PATCH_JSON_VALUE).content(blogPatch)
+                .header("If-Match", "\"2.4\", W/\"1.4\""))
+                .andExpect(status().isPreconditionFailed());
+        verify(blogService, never()).patch(anyInt(), anyInt(), any(Consumer.class));
+        
+        // Versions of authors in the ETag are not checked
+        mockMvc.perform(patch(path).contentType(R.MERGE_PATCH_JSON_VALUE).content(blogPatch)
+                .header("If-Match", "\"1.4-2.2.3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1.5\""))
+                .andExpect(jsonPath("$.title", equalTo("new_title")))
+                .andExpect(jsonPath("$.content", equalTo("test_content")));
+        verify(blogService).patch(eq(1), eq(4), any(Consumer.class));
+        
+        mockMvc.perform(patch(path).contentType(R.MERGE_PATCH_JSON_VALUE).content(blogPatch)
+                .header("If-Match", "*"))
+                .andExpect(status().isOk());
+        verify(blogService).patch(eq(1), eq(ConditionalUpdate.ANY_VERSION), any(Consumer.class));
+    }
+
     /**
      * Test method for {@link tk.serjmusic.controllers.BlogEntryController#deleteUserById(int)}.
+     * @throws Exception sometimes
      */
-    @Ignore
     @Test
-    public final void testDeleteUserById() {
-        fail("Not yet implemented"); // TODO
+    public final void testDeleteUserById() throws Exception {
+        mockMvc.perform(delete("/api/v1/resources/blogs/1"))
+                .andExpect(status().isOk());
+        verify(blogService).deleteById(1);
+        verify(blogService, never()).getById(anyInt());
+        doThrow(new CanNotFindException("no blog")).when(blogService).deleteById(2);
+        mockMvc.perform(delete("/api/v1/resources/blogs/2"))
+                .andExpect(status().isNotFound());
     }
 
     /**
@@ -221,6 +392,29 @@ public class BlogEntryControllerTest {
         fail("Not yet implemented"); // TODO
     }
 
+    /**
+     * Test method for delta mode of {@link tk.serjmusic.controllers.BlogEntryController
+     * #getPaginatedCommentsForBlog(int, int, int, Integer, Integer, String, Integer)}.
+     * 
+     * @throws Exception sometimes
+     */
+    @Test
+    public final void testGetNewCommentsForBlog() throws Exception {
+        comment1.setDateCreated(new Date());
+        comment2.setDateCreated(new Date());
+        when(blogService.getNewCommentsForBlogId(1, 5, R.MAX_DELTA_SIZE))
+                .thenReturn(Arrays.asList(comment2, comment1));
+        mockMvc.perform(get("/api/v1/resources/blogs/1/comments?sinceId=5&pageSize=9999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$.[0].content", equalTo(comment2.getContent())));
+        when(blogService.getNewCommentsForBlogId(1, 7, 5))
+                .thenReturn(Collections.<BlogComment>emptyList());
+        mockMvc.perform(get("/api/v1/resources/blogs/1/comments?sinceId=7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     /**
      * Test method for {@link tk.serjmusic.controllers.BlogEntryController
      * #addNewCommentForBlogId
@@ -232,4 +426,37 @@ public class BlogEntryControllerTest {
         fail("Not yet implemented"); // TODO
     }
 
+    /**
+     * Test method for {@link tk.serjmusic.controllers.BlogEntryController
+     * #streamCommentsForBlog(int)}.
+     * 
+     * @throws Exception sometimes
+     */
+    @Test
+    public final void testStreamCommentsForBlog() throws Exception {
+        final int subscribersCount = 3000;
+        when(blogService.getById(1)).thenReturn(blogEntry1);
+        int threadsBefore = Thread.activeCount();
+        List<MvcResult> subscriptions = new ArrayList<>();
+        for (int i = 0; i < subscribersCount; i++) {
+            subscriptions.add(mockMvc.perform(get("/api/v1/resources/blogs/1/comments/stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+        }
+        // Idle subscribers are async requests, they don't hold any thread
+        assertTrue(Thread.activeCount() - threadsBefore < 10);
+        assertEquals(subscribersCount, commentBroadcaster.countSubscribers(1));
+        
+        comment1.setId(42);
+        comment1.setDateCreated(new Date());
+        commentBroadcaster.publish(1, new BlogCommentDtoAsm().toResource(comment1)).get();
+        for (MvcResult subscription : subscriptions) {
+            String events = subscription.getResponse().getContentAsString();
+            assertTrue(events.contains("id:42\n"));
+            assertTrue(events.contains("event:comment\n"));
+            assertTrue(events.contains(comment1.getContent()));
+        }
+        assertEquals(0, commentBroadcaster.countSubscribers(2));
+    }
+
 }
@@ -0,0 +1,285 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.controllers.filters;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Test case for {@link ResponseCacheFilter}.
+ *
+ * @author Roman Kondakov
+ */
+public class ResponseCacheFilterTest {
+
+    private static final String BLOGS = "/api/v1/resources/blogs";
+
+    private CacheManager cacheManager;
+    private ResponseCacheFilter filter;
+    private int reads;
+    private String body;
+    private String etag;
+    private int status;
+
+    /**
+     * Set up method.
+     */
+    @Before
+    public void setUp() {
+        cacheManager = new CacheManager(new Configuration().name("responseCacheFilterTest")
+                .cache(new CacheConfiguration("responses", 1000)));
+        filter = new ResponseCacheFilter(cacheManager.getEhcache("responses"));
+        reads = 0;
+        body = "[{\"blogId\":1}]";
+        etag = null;
+        status = HttpStatus.OK.value();
+    }
+
+    /**
+     * Tear down method.
+     */
+    @After
+    public void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    /**
+     * Test of cached anonymous GET requests.
+     */
+    @Test
+    public final void testAnonymousGetIsCached() throws Exception {
+        MockHttpServletResponse first = get(BLOGS, "pageNumber=1");
+        MockHttpServletResponse second = get(BLOGS, "pageNumber=1");
+        assertEquals(1, reads);
+        assertEquals(body, second.getContentAsString());
+        assertEquals(MediaType.APPLICATION_JSON_UTF8_VALUE, second.getContentType());
+        assertEquals("7", second.getHeader("X-Next-Cursor"));
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        
+        // Other query, resource or authenticated request
+        get(BLOGS, "pageNumber=2");
+        get("/api/v1/resources/photo", "pageNumber=1");
+        MockHttpServletRequest authenticated = request("GET", BLOGS, "pageNumber=1");
+        authenticated.setRequestedSessionId("session");
+        filter.doFilter(authenticated, new MockHttpServletResponse(), chain());
+        assertEquals(4, reads);
+        
+        // Not cached resources
+        get("/api/v1/resources/users/alice", null);
+        get("/api/v1/resources/users/alice", null);
+        assertEquals(6, reads);
+    }
+
+    /**
+     * Test of gzipped responses.
+     */
+    @Test
+    public final void testLargeResponseIsGzipped() throws Exception {
+        char[] content = new char[4000];
+        Arrays.fill(content, 'a');
+        body = "[\"" + new String(content) + "\"]";
+        etag = "\"2.2.3\"";
+        get(BLOGS, null);
+        MockHttpServletRequest request = request("GET", BLOGS, null);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        assertEquals(1, reads);
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), 
+                gunzip(response.getContentAsByteArray()));
+        // the gzipped representation has its own ETag
+        assertEquals("\"2.2.3-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(1, response.getHeaders(HttpHeaders.ETAG).size());
+        
+        request = request("GET", BLOGS, null);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2.2.3-gzip\"");
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals("\"2.2.3-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        
+        // gzip is refused
+        request = request("GET", BLOGS, null);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2.2.3-gzip\"");
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    /**
+     * Test of conditional requests answered from the cache.
+     */
+    @Test
+    public final void testCachedResponseIsNotModified() throws Exception {
+        etag = "\"2.2.3\"";
+        get(BLOGS, null);
+        MockHttpServletRequest request = request("GET", BLOGS, null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1.1.1\", W/\"2.2.3\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        assertEquals(1, reads);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals(0, response.getContentLength());
+        
+        // Other ETag
+        request = request("GET", BLOGS, null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1.1.1\"");
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain());
+        assertEquals(1, reads);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(body, response.getContentAsString());
+    }
+
+    /**
+     * Test of invalidation by write requests.
+     */
+    @Test
+    public final void testSuccessfulWriteInvalidates() throws Exception {
+        get(BLOGS, null);
+        get("/api/v1/resources/static/bio", null);
+        
+        // Failed write
+        status = HttpStatus.FORBIDDEN.value();
+        write("DELETE", BLOGS + "/1");
+        get(BLOGS, null);
+        assertEquals(2, reads);
+        
+        // Comments are shown with blogs, new users are not
+        status = HttpStatus.OK.value();
+        write("POST", "/api/v1/resources/users");
+        get(BLOGS, null);
+        assertEquals(2, reads);
+        write("PUT", "/api/v1/resources/comments/5");
+        get(BLOGS, null);
+        assertEquals(3, reads);
+        get("/api/v1/resources/static/bio", null);
+        assertEquals(3, reads);
+        write("PUT", "/api/v1/resources/static/1");
+        get("/api/v1/resources/static/bio", null);
+        assertEquals(4, reads);
+    }
+
+    /**
+     * Test of HEAD and OPTIONS requests which are answered with 200 to anyone.
+     */
+    @Test
+    public final void testHeadAndOptionsDontInvalidate() throws Exception {
+        get(BLOGS, null);
+        write("HEAD", BLOGS);
+        write("OPTIONS", BLOGS + "/1");
+        MockHttpServletResponse response = get(BLOGS, null);
+        assertEquals(1, reads);
+        assertEquals(body, response.getContentAsString());
+    }
+
+    /**
+     * Test of not cached responses.
+     */
+    @Test
+    public final void testErrorsAreNotCached() throws Exception {
+        status = HttpStatus.NOT_FOUND.value();
+        MockHttpServletResponse response = get(BLOGS + "/100", null);
+        get(BLOGS + "/100", null);
+        assertEquals(2, reads);
+        assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatus());
+        assertEquals(body, response.getContentAsString());
+    }
+
+    private MockHttpServletResponse get(String uri, String query) 
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("GET", uri, query), response, chain());
+        return response;
+    }
+
+    private void write(String method, String uri) throws ServletException, IOException {
+        filter.doFilter(request(method, uri, null), new MockHttpServletResponse(), chain());
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setQueryString(query);
+        return request;
+    }
+
+    private FilterChain chain() {
+        return (request, response) -> {
+            if ("GET".equals(((HttpServletRequest) request).getMethod())) {
+                reads++;
+            }
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(status);
+            http.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            http.setHeader("X-Next-Cursor", "7");
+            if (etag != null) {
+                http.setHeader(HttpHeaders.ETAG, etag);
+            }
+            http.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            byte[] buffer = new byte[1024];
+            for (int read = gzip.read(buffer); read >= 0; read = gzip.read(buffer)) {
+                result.write(buffer, 0, read);
+            }
+        }
+        return result.toByteArray();
+    }
+}
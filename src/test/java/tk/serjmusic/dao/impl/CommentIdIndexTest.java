@@ -0,0 +1,224 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.dao.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.EventSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import tk.serjmusic.dao.impl.CommentIdIndex.Owner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Test case for {@link CommentIdIndex}.
+ *
+ * @author Roman Kondakov
+ */
+public class CommentIdIndexTest {
+
+    private static final int[] IDS = {2, 4, 6, 8, 10};
+
+    private CacheManager cacheManager;
+    private CommentIdIndex index;
+    private EntityManager entityManager;
+    private ActionQueue actionQueue;
+    private int loads;
+
+    /**
+     * Set up method.
+     */
+    @Before
+    public void setUp() {
+        cacheManager = new CacheManager(new Configuration().name("commentIdIndexTest")
+                .cache(new CacheConfiguration("ids", 1000)));
+        index = new CommentIdIndex(cacheManager.getEhcache("ids"));
+        entityManager = mock(EntityManager.class);
+        EventSource session = mock(EventSource.class);
+        actionQueue = mock(ActionQueue.class);
+        when(entityManager.unwrap(EventSource.class)).thenReturn(session);
+        when(session.getActionQueue()).thenReturn(actionQueue);
+        loads = 0;
+    }
+
+    /**
+     * Tear down method.
+     */
+    @After
+    public void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    /**
+     * Test method for {@link CommentIdIndex#get(Owner, int, Supplier)}.
+     */
+    @Test
+    public final void testGet() {
+        assertArrayEquals(new int[] {1, 3}, index.get(Owner.BLOG, 1, loader(1, 3)));
+        assertArrayEquals(new int[] {1, 3}, index.get(Owner.BLOG, 1, loader(5)));
+        assertArrayEquals(new int[] {5}, index.get(Owner.AUTHOR, 1, loader(5)));
+        assertEquals(2, loads);
+        
+        // Disabled index
+        assertNull(new CommentIdIndex(null).get(Owner.BLOG, 1, loader(1)));
+    }
+
+    /**
+     * Test method for {@link CommentIdIndex#removed(EntityManager, List)}.
+     */
+    @Test
+    public final void testRemoved() {
+        index.get(Owner.BLOG, 1, loader(1, 2, 3));
+        index.get(Owner.AUTHOR, 7, loader(2, 9));
+        index.get(Owner.BLOG, 2, loader(4));
+        index.removed(entityManager, Collections.singletonList(new Object[] {2, 1, 7}));
+        
+        // Not committed yet, indexes are read again
+        assertArrayEquals(new int[] {1, 2, 3}, index.get(Owner.BLOG, 1, loader(1, 2, 3)));
+        assertEquals(4, loads);
+        assertArrayEquals(new int[] {4}, index.get(Owner.BLOG, 2, loader()));
+        assertEquals(4, loads);
+        
+        // The removal is applied to indexes read after the flush or before it
+        ArgumentCaptor<AfterTransactionCompletionProcess> afterCompletion = 
+                ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(afterCompletion.capture());
+        afterCompletion.getValue().doAfterTransactionCompletion(true, null);
+        assertArrayEquals(new int[] {1, 3}, index.get(Owner.BLOG, 1, loader()));
+        assertArrayEquals(new int[] {9}, index.get(Owner.AUTHOR, 7, loader(2, 9)));
+        assertEquals(4, loads);
+    }
+
+    /**
+     * Test method for {@link CommentIdIndex#removed(EntityManager, List)} with rollback.
+     */
+    @Test
+    public final void testRemovedRollback() {
+        index.get(Owner.BLOG, 1, loader(1, 2, 3));
+        index.removed(entityManager, Collections.singletonList(new Object[] {2, 1, null}));
+        index.get(Owner.BLOG, 1, loader(1, 3));
+        ArgumentCaptor<AfterTransactionCompletionProcess> afterCompletion = 
+                ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(afterCompletion.capture());
+        afterCompletion.getValue().doAfterTransactionCompletion(false, null);
+        
+        // The index read within the transaction is dropped
+        assertArrayEquals(new int[] {1, 2, 3}, index.get(Owner.BLOG, 1, loader(1, 2, 3)));
+        assertEquals(3, loads);
+    }
+
+    /**
+     * Test method for {@link CommentIdIndex#invalidate(EntityManager, List)}.
+     */
+    @Test
+    public final void testInvalidate() {
+        index.get(Owner.BLOG, 1, loader(1));
+        index.get(Owner.AUTHOR, 2, loader(1));
+        index.get(Owner.BLOG, 3, loader(4));
+        index.get(Owner.AUTHOR, 5, loader(4));
+        index.invalidate(entityManager, Collections.singletonList(new Object[] {1, 2}));
+        index.get(Owner.BLOG, 1, loader(1));
+        index.get(Owner.AUTHOR, 2, loader(1));
+        assertEquals(6, loads);
+        
+        // Indexes of other owners are kept
+        index.get(Owner.BLOG, 3, loader(4));
+        index.get(Owner.AUTHOR, 5, loader(4));
+        assertEquals(6, loads);
+        
+        // Indexes read before the commit are dropped again
+        ArgumentCaptor<AfterTransactionCompletionProcess> afterCompletion = 
+                ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue, times(1)).registerProcess(afterCompletion.capture());
+        afterCompletion.getValue().doAfterTransactionCompletion(true, null);
+        index.get(Owner.BLOG, 1, loader(1));
+        index.get(Owner.AUTHOR, 2, loader(1));
+        assertEquals(8, loads);
+        
+        // Nothing to drop
+        index.invalidate(entityManager, Collections.emptyList());
+        verify(actionQueue, times(1)).registerProcess(any(AfterTransactionCompletionProcess.class));
+    }
+
+    /**
+     * Test method for {@link CommentIdIndex#page(int[], boolean, int, int)}.
+     */
+    @Test
+    public final void testPage() {
+        assertArrayEquals(new int[] {2, 4}, CommentIdIndex.page(IDS, true, 1, 2));
+        assertArrayEquals(new int[] {10}, CommentIdIndex.page(IDS, true, 3, 2));
+        assertArrayEquals(new int[] {10, 8}, CommentIdIndex.page(IDS, false, 1, 2));
+        assertArrayEquals(new int[] {2}, CommentIdIndex.page(IDS, false, 3, 2));
+        assertArrayEquals(new int[0], CommentIdIndex.page(IDS, false, 4, 2));
+    }
+
+    /**
+     * Test method for 
+     * {@link CommentIdIndex#seek(int[], boolean, Integer, Integer, int)}.
+     */
+    @Test
+    public final void testSeek() {
+        assertArrayEquals(new int[] {2, 4}, CommentIdIndex.seek(IDS, true, null, null, 2));
+        assertArrayEquals(new int[] {6, 8}, CommentIdIndex.seek(IDS, true, 4, null, 2));
+        assertArrayEquals(new int[] {6, 8}, CommentIdIndex.seek(IDS, true, 5, null, 2));
+        assertArrayEquals(new int[] {4, 6}, CommentIdIndex.seek(IDS, true, null, 8, 2));
+        assertArrayEquals(new int[] {4}, CommentIdIndex.seek(IDS, true, 2, 6, 2));
+        assertArrayEquals(new int[] {10, 8}, CommentIdIndex.seek(IDS, false, null, null, 2));
+        assertArrayEquals(new int[] {6, 4}, CommentIdIndex.seek(IDS, false, null, 8, 2));
+        assertArrayEquals(new int[] {8, 6}, CommentIdIndex.seek(IDS, false, 4, null, 2));
+        assertArrayEquals(new int[] {8, 6}, CommentIdIndex.seek(IDS, false, 4, 10, 5));
+        assertArrayEquals(new int[0], CommentIdIndex.seek(IDS, true, 10, null, 2));
+        assertArrayEquals(new int[0], CommentIdIndex.seek(IDS, false, 8, 4, 2));
+        assertArrayEquals(new int[0], 
+                CommentIdIndex.seek(IDS, true, Integer.MAX_VALUE, null, 2));
+    }
+
+    private Supplier<List<Integer>> loader(Integer... ids) {
+        return () -> {
+            loads++;
+            return Arrays.asList(ids);
+        };
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.dao.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import tk.serjmusic.models.User;
+import tk.serjmusic.models.User_;
+
+/**
+ * Compares the preparation of a query built from criteria on every call with the query created 
+ * from the named one, which is compiled once. Only the preparation is measured, so the database 
+ * does not affect the result. Run with {@code -prof gc} to see the allocation rate per call.
+ *
+ * @author Roman Kondakov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryPreparationBenchmark {
+
+    private static final String QUERY_NAME = "QueryPreparationBenchmark.findUserByUsername";
+    private static final String USERNAME = "username";
+
+    private ClassPathXmlApplicationContext context;
+    private EntityManager entityManager;
+
+    /**
+     * Start the test persistence context and register the named query.
+     */
+    @Setup
+    public void setUp() {
+        context = new ClassPathXmlApplicationContext("spring-test-dao.xml");
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        entityManager = emf.createEntityManager();
+        emf.addNamedQuery(QUERY_NAME, entityManager.createQuery(
+                findUserByUsername(entityManager.getCriteriaBuilder())));
+    }
+
+    /**
+     * Close the persistence context.
+     */
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    /**
+     * Build the criteria query and compile it on every call.
+     * 
+     * @return prepared query
+     */
+    @Benchmark
+    public TypedQuery<User> criteriaQuery() {
+        return entityManager.createQuery(findUserByUsername(entityManager.getCriteriaBuilder()))
+                .setParameter(USERNAME, "user");
+    }
+
+    /**
+     * Create the query from the compiled named one.
+     * 
+     * @return prepared query
+     */
+    @Benchmark
+    public TypedQuery<User> namedQuery() {
+        return entityManager.createNamedQuery(QUERY_NAME, User.class)
+                .setParameter(USERNAME, "user");
+    }
+
+    private static CriteriaQuery<User> findUserByUsername(CriteriaBuilder cb) {
+        CriteriaQuery<User> cq = cb.createQuery(User.class);
+        Root<User> from = cq.from(User.class);
+        return cq.select(from).where(cb.equal(from.get(User_.username), 
+                cb.parameter(String.class, USERNAME)));
+    }
+
+    /**
+     * Run the benchmark.
+     * 
+     * @param args not used
+     * @throws RunnerException if the benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueryPreparationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
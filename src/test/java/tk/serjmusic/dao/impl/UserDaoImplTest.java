@@ -23,10 +23,19 @@
 package tk.serjmusic.dao.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.stat.Statistics;
+import org.hibernate.type.StringType;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -40,18 +49,34 @@ import org.springframework.transaction.annotation.Transactional;
 
 import tk.serjmusic.dao.BlogCommentDao;
 import tk.serjmusic.dao.BlogEntryDao;
+import tk.serjmusic.dao.UserAvatarDao;
 import tk.serjmusic.dao.UserDao;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
 import tk.serjmusic.models.User;
+import tk.serjmusic.models.UserAvatar;
 import tk.serjmusic.models.UserRole;
+import tk.serjmusic.models.projections.AvatarContent;
+import tk.serjmusic.models.projections.BlogEntrySummary;
+import tk.serjmusic.models.projections.EntityVersion;
+import tk.serjmusic.models.projections.KeysetChunk;
+import tk.serjmusic.services.BlogCommentService;
+import tk.serjmusic.utils.CompressedText;
+import tk.serjmusic.utils.HtmlExcerpt;
+import tk.serjmusic.utils.R;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+
 
 /**
  * <p>
@@ -95,6 +120,15 @@ public class UserDaoImplTest {
     @Autowired
     BlogEntryDao blogDao;
 
+    @Autowired
+    BlogCommentService commentService;
+
+    @Autowired
+    UserAvatarDao avatarDao;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
 
     /**
      * Set up method - init database with user entity.
@@ -150,6 +184,28 @@ public class UserDaoImplTest {
         assertEquals(persisted, userDao.findUserByUsername(PERSISTED_USERNAME));
     }
 
+    /**
+     * Username is the natural ID, so managed users are resolved without statements and 
+     * renamed users are found by the new name.
+     */
+    @Test
+    public final void testFindUserByUsernameResolvesNaturalId() {
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(persisted, userDao.findUserByUsername(PERSISTED_USERNAME));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        persisted.setUsername("Renamed_User");
+        assertEquals(persisted, userDao.findUserByUsername("Renamed_User"));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        assertEquals(persisted.getId(), userDao.findUserByUsername("Renamed_User").getId());
+        assertEquals(1, statistics.getNaturalIdQueryExecutionCount());
+        assertNull(userDao.findUserByUsername(PERSISTED_USERNAME));
+    }
+
     /**
      * Test method for {@link tk.serjmusic.dao.impl.UserDaoImpl#getUserByEmail(java.lang.String)}.
      */
@@ -180,6 +236,238 @@ public class UserDaoImplTest {
         assertEquals(persisted, userDao.find(persisted.getId()));
     }
 
+    /**
+     * Test that inserts of new entities are sent in JDBC batches, i.e. ID generation doesn't 
+     * require an INSERT per row.
+     */
+    @Test
+    public final void testPersistIsBatched() {
+        int count = 120;
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int i = 0; i < count; i++) {
+            BlogComment comment = new BlogComment("batched comment " + i);
+            comment.setAuthor(persisted);
+            comment.setBlogEntry(blog);
+            commentDao.persist(comment);
+        }
+        entityManager.flush();
+        assertEquals(count, statistics.getEntityInsertCount());
+        // one insert statement per batch plus a few ID block allocations
+        assertTrue("prepared statements: " + statistics.getPrepareStatementCount(), 
+                statistics.getPrepareStatementCount() < 20);
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao
+     * #persistAll(java.util.Collection)} and {@link tk.serjmusic.dao.impl.AbstractGenericDao
+     * #mergeAll(java.util.Collection)}.
+     */
+    @Test
+    public final void testPersistAllAndMergeAll() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2 * R.BULK_FLUSH_SIZE + 1; i++) {
+            User user = new User("bulk_user_" + i);
+            user.setEmail("bulk_email_" + i);
+            users.add(user);
+        }
+        userDao.persistAll(users);
+        assertEquals(users.size() + 1, userDao.countAll());
+        assertFalse(entityManager.contains(users.get(0)));
+        users.forEach(user -> user.setBanned(true));
+        List<User> merged = userDao.mergeAll(users);
+        assertEquals(users, merged);
+        assertTrue(userDao.find(users.get(users.size() - 1).getId()).isBanned());
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao
+     * #removeAllById(java.util.Collection)}.
+     */
+    @Test
+    public final void testRemoveAllById() {
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        int removed = commentDao.removeAllById(
+                Arrays.asList(blogComment1.getId(), blogComment2.getId(), Integer.MAX_VALUE));
+        assertEquals(2, removed);
+        assertEquals(0, statistics.getEntityLoadCount());
+        entityManager.clear();
+        assertNull(commentDao.find(blogComment1.getId()));
+        assertNotNull(commentDao.find(blogComment3.getId()));
+        assertEquals(0, commentDao.removeAllById(new ArrayList<Integer>()));
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao#removeById(int)} with 
+     * dependents removed by {@link tk.serjmusic.dao.impl.UserDaoImpl} and 
+     * {@link tk.serjmusic.dao.impl.BlogEntryDaoImpl}.
+     */
+    @Test
+    public final void testRemoveById() {
+        userDao.persist(transient1);
+        BlogEntry otherBlog = new BlogEntry("other blog");
+        otherBlog.setContent("other content");
+        otherBlog.setAuthor(transient1);
+        blogDao.persist(otherBlog);
+        BlogComment otherComment = new BlogComment("comment of other user");
+        otherComment.setAuthor(transient1);
+        otherComment.setBlogEntry(blog);
+        commentDao.persist(otherComment);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        // blog with its comments, including the comment of another user
+        assertTrue(blogDao.removeById(blog.getId()));
+        assertFalse(blogDao.removeById(blog.getId()));
+        // user with blogs, comments and roles
+        assertTrue(userDao.removeById(transient1.getId()));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        
+        entityManager.clear();
+        assertNull(blogDao.find(blog.getId()));
+        assertNull(commentDao.find(blogComment1.getId()));
+        assertNull(commentDao.find(otherComment.getId()));
+        assertNull(blogDao.find(otherBlog.getId()));
+        assertNull(userDao.find(transient1.getId()));
+        assertNotNull(userDao.find(persisted.getId()));
+        assertTrue(userDao.removeById(persisted.getId()));
+    }
+
+    /**
+     * Test that list queries fetch associations shown with each row (authors, their roles and
+     * blog entries) with a constant number of statements.
+     */
+    @Test
+    public final void testListQueriesFetchAssociations() {
+        for (int i = 0; i < 5; i++) {
+            User user = new User("list_user_" + i);
+            user.setEmail("list_user_" + i + "@mail.com");
+            user.setRoles(new HashSet<>(Arrays.asList(UserRole.ROLE_USER)));
+            userDao.persist(user);
+            BlogComment comment = new BlogComment("comment of list user " + i);
+            comment.setAuthor(user);
+            comment.setBlogEntry(blog);
+            commentDao.persist(comment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        
+        // the page with authors and blog entries, then roles of all loaded users
+        List<BlogComment> page = blogDao.findSeekCommentsForBlogId(blog.getId(), null, null, 10);
+        assertEquals(8, page.size());
+        for (BlogComment comment : page) {
+            assertFalse(comment.getAuthor().getRoles().isEmpty());
+            assertFalse(comment.getBlogEntry().getAuthor().getRoles().isEmpty());
+        }
+        assertEquals(2, statistics.getPrepareStatementCount());
+        
+        entityManager.clear();
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+        List<User> users = userDao.findPaginatedAndOrdered(true, 1, 10);
+        assertEquals(6, users.size());
+        users.forEach(user -> assertFalse(user.getRoles().isEmpty()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test method for {@link UserBatchLoader}: lazy authors are loaded with one statement.
+     */
+    @Test
+    public final void testAuthorsAreBatchLoaded() {
+        // Entities enhanced for lazy attributes have no proxies
+        assumeFalse(PersistentAttributeInterceptable.class.isAssignableFrom(User.class));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User("batch_user_" + i);
+            user.setEmail("batch_user_" + i + "@mail.com");
+            userDao.persist(user);
+            ids.add(user.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        
+        // users which are not cached are read with one IN query
+        List<User> authors = new ArrayList<>();
+        ids.forEach(id -> authors.add(entityManager.getReference(User.class, id)));
+        authors.forEach(author -> assertFalse(Hibernate.isInitialized(author)));
+        UserBatchLoader loader = new UserBatchLoader(entityManager);
+        authors.forEach(loader::add);
+        loader.load();
+        authors.forEach(author -> assertTrue(Hibernate.isInitialized(author)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        
+        // single entities are returned with loaded authors as well
+        entityManager.clear();
+        BlogComment found = commentDao.find(blogComment1.getId());
+        assertTrue(Hibernate.isInitialized(found.getAuthor()));
+        assertTrue(Hibernate.isInitialized(found.getBlogEntry().getAuthor()));
+    }
+
+    /**
+     * Test method for comment counters maintained by {@link tk.serjmusic.dao.BlogEntryDao} 
+     * and {@link BlogCommentService}.
+     */
+    @Test
+    public final void testCommentCounters() {
+        // comments of set up were persisted bypassing the service
+        assertEquals(0, blogDao.find(blog.getId()).getCommentCount());
+        assertEquals(1, blogDao.recountComments(Collections.singletonList(blog.getId())));
+        entityManager.clear();
+        assertEquals(3, blogDao.find(blog.getId()).getCommentCount());
+        assertNull(blogDao.find(blog.getId()).getLastCommentAt());
+        assertFalse(blogDao.registerNewComment(Integer.MAX_VALUE, new Date()));
+        
+        // create and delete through the service
+        userDao.persist(transient1);
+        Date dateCreated = new Date();
+        BlogComment comment = new BlogComment("comment of other user");
+        comment.setAuthor(transient1);
+        comment.setBlogEntry(blog);
+        comment.setDateCreated(dateCreated);
+        commentService.create(comment);
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(4, blogDao.find(blog.getId()).getCommentCount());
+        assertEquals(dateCreated.getTime(), 
+                blogDao.find(blog.getId()).getLastCommentAt().getTime());
+        commentService.deleteById(blogComment1.getId());
+        entityManager.clear();
+        assertEquals(3, blogDao.find(blog.getId()).getCommentCount());
+        
+        // removed user's comments are not counted anymore
+        assertTrue(userDao.removeById(transient1.getId()));
+        entityManager.clear();
+        assertEquals(2, blogDao.find(blog.getId()).getCommentCount());
+        assertNull(blogDao.find(blog.getId()).getLastCommentAt());
+        
+        // the repair job
+        blogDao.find(blog.getId()).setCommentCount(42);
+        entityManager.flush();
+        assertTrue(blogDao.recountAllComments() >= 1);
+        entityManager.clear();
+        assertEquals(2, blogDao.find(blog.getId()).getCommentCount());
+    }
+
     /**
      * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao#find(int)}.
      */
@@ -239,6 +527,157 @@ public class UserDaoImplTest {
         assertEquals(3, userDao.countAll());
     }
 
+    /**
+     * Test of the lazy content of blog entries, it requires entities enhanced by the "enhance"
+     * build profile.
+     */
+    @Test
+    public final void testListsDontLoadBlogContent() {
+        assumeTrue(PersistentAttributeInterceptable.class.isAssignableFrom(BlogEntry.class));
+        entityManager.flush();
+        entityManager.clear();
+        PersistenceUnitUtil persistenceUtil = 
+                entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<BlogEntry> blogs = blogDao.findPaginatedAndOrdered(true, 1, 10);
+        assertEquals(1, blogs.size());
+        assertFalse(persistenceUtil.isLoaded(blogs.get(0), "content"));
+        assertTrue(persistenceUtil.isLoaded(blogs.get(0), "title"));
+        
+        // single entries are returned with the content
+        entityManager.clear();
+        BlogEntry found = blogDao.find(blog.getId());
+        assertTrue(persistenceUtil.isLoaded(found, "content"));
+        entityManager.clear();
+        assertEquals("test_content_1", found.getContent());
+    }
+
+    /**
+     * Test of large contents which are stored compressed and of
+     * {@link tk.serjmusic.dao.BlogEntryDao#compressStoredContent(int)}.
+     */
+    @Test
+    public final void testLargeContentIsCompressed() {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() <= 2 * R.COMPRESSED_TEXT_THRESHOLD) {
+            builder.append("<p>Текст большой записи блога.</p>");
+        }
+        String content = builder.toString();
+        blogDao.find(blog.getId()).setContent(content);
+        entityManager.flush();
+        entityManager.clear();
+        assertTrue(CompressedText.isCompressed(findStoredContent()));
+        assertTrue(findStoredContent().length() < content.length());
+        assertEquals(content, blogDao.find(blog.getId()).getContent());
+        
+        // rows stored before the compression are read as is
+        entityManager.createNativeQuery(
+                "UPDATE blog_entries SET content = ?, excerpt = NULL WHERE id = ?")
+                .setParameter(1, content)
+                .setParameter(2, blog.getId())
+                .executeUpdate();
+        entityManager.clear();
+        BlogEntry plain = blogDao.find(blog.getId());
+        assertEquals(content, plain.getContent());
+        
+        // the migration job compresses them and fills excerpts without new versions
+        KeysetChunk chunk = blogDao.compressStoredContent(0);
+        assertEquals(1, chunk.getUpdated());
+        assertEquals(blog.getId(), chunk.getLastId());
+        assertTrue(chunk.isLast());
+        entityManager.clear();
+        assertTrue(CompressedText.isCompressed(findStoredContent()));
+        entityManager.getEntityManagerFactory().getCache().evict(BlogEntry.class);
+        BlogEntry compressed = blogDao.find(blog.getId());
+        assertEquals(content, compressed.getContent());
+        assertEquals(HtmlExcerpt.of(content, R.BLOG_EXCERPT_LENGTH), compressed.getExcerpt());
+        assertEquals(plain.getVersion(), compressed.getVersion());
+        assertEquals(0, blogDao.compressStoredContent(0).getUpdated());
+        assertEquals(blog.getId(), blogDao.compressStoredContent(blog.getId()).getLastId());
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.BlogEntryDaoImpl#findNotRendered(int)}.
+     */
+    @Test
+    public final void testFindNotRendered() {
+        // the test blog entry is stored by the DAO, so nothing renders it
+        assertEquals(Arrays.asList(blog), blogDao.findNotRendered(0));
+        assertTrue(blogDao.findNotRendered(blog.getId()).isEmpty());
+        blogDao.find(blog.getId()).setRenderedHtml("<p>test_content_1</p>");
+        entityManager.flush();
+        assertTrue(blogDao.findNotRendered(0).isEmpty());
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.UserDaoImpl#findLegacyAvatars(int)}.
+     */
+    @Test
+    @Transactional
+    public final void testFindLegacyAvatars() {
+        // The schema created from entities has no image_file column
+        assertTrue(userDao.findLegacyAvatars(0).isEmpty());
+    }
+
+    /**
+     * Test method for 
+     * {@link tk.serjmusic.dao.impl.UserAvatarDaoImpl#findAvatarContentByHash(String)}.
+     */
+    @Test
+    @Transactional
+    public final void testFindAvatarContentByHash() {
+        byte[] image = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+        String hash = "4e2ddd43b9fcf5b4e01e4ac2b06b5ba5d4bb1dbbbd6cf2f2b4b32e2c9b9f5e03";
+        avatarDao.persist(new UserAvatar(hash, "image/png", image));
+        entityManager.flush();
+        AvatarContent content = avatarDao.findAvatarContentByHash(hash);
+        assertEquals("image/png", content.getContentType());
+        assertEquals(image.length, content.contentLength());
+        assertNull(avatarDao.findAvatarContentByHash("unknown"));
+    }
+
+    private String findStoredContent() {
+        // The scalar type reads the TEXT column of H2, which is a CLOB, as a string
+        return (String) entityManager
+                .createNativeQuery("SELECT content FROM blog_entries WHERE id = ?")
+                .setParameter(1, blog.getId())
+                .unwrap(NativeQuery.class)
+                .addScalar("content", StringType.INSTANCE)
+                .getSingleResult();
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao#findVersion(int)} and
+     * {@link tk.serjmusic.dao.impl.AbstractGenericDao#findVersionOfAll()}.
+     */
+    @Test
+    public final void testFindVersion() {
+        entityManager.flush();
+        int id = persisted.getId();
+        EntityVersion version = userDao.findVersion(id);
+        assertEquals("\"" + id + ".0\"", version.getETag());
+        assertEquals(persisted.getUpdatedAt().getTime(), version.getLastModified());
+        assertNull(userDao.findVersion(Integer.MAX_VALUE));
+        EntityVersion all = userDao.findVersionOfAll();
+        assertEquals("\"1." + id + ".0\"", all.getETag());
+        assertEquals(-1, all.getLastModified());
+        
+        // Updates increment the version
+        persisted.setEmail("new." + PERSISTED_EMAIL);
+        entityManager.flush();
+        assertEquals(1, persisted.getVersion());
+        assertEquals("\"" + id + ".1\"", userDao.findVersion(id).getETag());
+        assertEquals("\"1." + id + ".1\"", userDao.findVersionOfAll().getETag());
+        
+        // Inserts and removals change the version of all
+        userDao.persist(transient1);
+        entityManager.flush();
+        assertEquals("\"2." + transient1.getId() + ".1\"", 
+                userDao.findVersionOfAll().getETag());
+        userDao.remove(transient1);
+        entityManager.flush();
+        assertEquals("\"1." + id + ".1\"", userDao.findVersionOfAll().getETag());
+    }
+
     /**
      * Test method for
      * {@link tk.serjmusic.dao.impl.AbstractGenericDao#findPaginatedAndOrdered(boolean, int, int)}.
@@ -274,4 +713,94 @@ public class UserDaoImplTest {
         assertTrue(derivedcommentsomments.contains(blogComment1));
     }
 
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao
+     * #findSeekPaginatedAndOrdered(boolean, Integer, Integer, int)}.
+     */
+    @Test
+    public final void testFindSeekPaginatedAndOrdered() {
+        userDao.persist(transient1);
+        userDao.persist(transient2);
+        List<User> users = userDao.findSeekPaginatedAndOrdered(true, null, null, 2);
+        assertEquals(Arrays.asList(persisted, transient1), users);
+        users = userDao.findSeekPaginatedAndOrdered(true, transient1.getId(), null, 2);
+        assertEquals(Arrays.asList(transient2), users);
+        users = userDao.findSeekPaginatedAndOrdered(false, null, transient2.getId(), 5);
+        assertEquals(Arrays.asList(transient1, persisted), users);
+        // bound opposite to the order returns the adjacent page in the requested order
+        users = userDao.findSeekPaginatedAndOrdered(false, persisted.getId(), null, 1);
+        assertEquals(Arrays.asList(transient1), users);
+        users = userDao.findSeekPaginatedAndOrdered(true, null, transient2.getId(), 1);
+        assertEquals(Arrays.asList(transient1), users);
+        assertNull(userDao.findSeekPaginatedAndOrdered(true, transient2.getId(), null, 2));
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.BlogEntryDaoImpl
+     * #findSeekCommentsForBlogId(int, Integer, Integer, int)}.
+     */
+    @Test
+    public final void testFindSeekCommentsForBlogId() {
+        List<BlogComment> derivedComments = 
+                blogDao.findSeekCommentsForBlogId(blog.getId(), null, null, 2);
+        assertEquals(Arrays.asList(blogComment3, blogComment2), derivedComments);
+        derivedComments = blogDao.findSeekCommentsForBlogId(blog.getId(), null, 
+                blogComment2.getId(), 2);
+        assertEquals(Arrays.asList(blogComment1), derivedComments);
+        assertNull(blogDao.findSeekCommentsForBlogId(blog.getId(), blogComment3.getId(), 
+                null, 2));
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.UserDaoImpl
+     * #findSeekUserCommentsByUserId(int, Integer, Integer, int)}.
+     */
+    @Test
+    public final void testFindSeekUserCommentsByUserId() {
+        List<BlogComment> comments = 
+                userDao.findSeekUserCommentsByUserId(persisted.getId(), null, null, 2);
+        assertEquals(Arrays.asList(blogComment1, blogComment2), comments);
+        comments = userDao.findSeekUserCommentsByUserId(persisted.getId(), 
+                blogComment2.getId(), null, 2);
+        assertEquals(Arrays.asList(blogComment3), comments);
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.dao.impl.AbstractGenericDao
+     * #findProjectionPaginatedAndOrdered(Class, boolean, int, int)} and 
+     * {@link tk.serjmusic.dao.impl.AbstractGenericDao
+     * #findProjectionSeekPaginatedAndOrdered(Class, boolean, Integer, Integer, int)}.
+     */
+    @Test
+    public final void testFindProjectionPaginatedAndOrdered() {
+        BlogEntry blog2 = new BlogEntry("test blog 2");
+        blog2.setContent("<p>Some <b>bold</b>&nbsp;text</p>");
+        blogDao.persist(blog2);
+        List<BlogEntrySummary> summaries = 
+                blogDao.findProjectionPaginatedAndOrdered(BlogEntrySummary.class, false, 1, 10);
+        assertEquals(2, summaries.size());
+        assertEquals(blog2.getId(), summaries.get(0).getId());
+        assertEquals("Some bold text", summaries.get(0).getExcerpt());
+        assertNull(summaries.get(0).getAuthorId());
+        assertEquals(blog.getId(), summaries.get(1).getId());
+        assertEquals(blog.getContent(), summaries.get(1).getExcerpt());
+        assertEquals(PERSISTED_USERNAME, summaries.get(1).getAuthorUsername());
+        assertEquals(blog.getVersion(), summaries.get(1).getVersion());
+        assertEquals(Integer.valueOf(blog.getAuthor().getVersion()), 
+                summaries.get(1).getAuthorVersion());
+        summaries = blogDao.findProjectionSeekPaginatedAndOrdered(BlogEntrySummary.class, 
+                false, null, blog2.getId(), 10);
+        assertEquals(1, summaries.size());
+        assertEquals(blog.getId(), summaries.get(0).getId());
+        assertNull(blogDao.findProjectionPaginatedAndOrdered(BlogEntrySummary.class, 
+                false, 2, 10));
+        boolean illegalArgumentException = false;
+        try {
+            userDao.findProjectionPaginatedAndOrdered(BlogEntrySummary.class, false, 1, 10);
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentException = true;
+        }
+        assertTrue(illegalArgumentException);
+    }
+
 }
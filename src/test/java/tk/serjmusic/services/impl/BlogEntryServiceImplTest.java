@@ -29,6 +29,9 @@ package tk.serjmusic.services.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.Before;
@@ -36,10 +39,13 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import tk.serjmusic.dao.BlogEntryDao;
 import tk.serjmusic.models.BlogComment;
 import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.ContentFormat;
+import tk.serjmusic.models.projections.KeysetChunk;
 import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
 
@@ -60,6 +66,9 @@ public class BlogEntryServiceImplTest {
     @Mock
     private BlogEntryDao blogDao;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private BlogEntryServiceImpl blogService;
 
@@ -144,4 +153,135 @@ public class BlogEntryServiceImplTest {
         assertTrue(persistentLayerProblemsException);
     }
 
+    /**
+     * Test method for
+     * {@link tk.serjmusic.services.impl.BlogEntryServiceImpl
+     * #getNewCommentsForBlogId(int, int, int)}
+     * .
+     */
+    @Test
+    public final void testGetNewCommentsForBlogId() {
+        int blogId = 1;
+        int sinceId = 10;
+        int maxResults = 2;
+        when(blogDao.findSeekCommentsForBlogId(blogId, sinceId, null, maxResults))
+                .thenReturn(comments);
+        assertEquals(comments, blogService.getNewCommentsForBlogId(blogId, sinceId, maxResults));
+
+        // Nothing new is not an error
+        when(blogDao.findSeekCommentsForBlogId(blogId, sinceId, null, maxResults))
+                .thenReturn(null);
+        assertTrue(blogService.getNewCommentsForBlogId(blogId, sinceId, maxResults).isEmpty());
+
+        // Bad input
+        boolean illegalArgumentException = false;
+        try {
+            blogService.getNewCommentsForBlogId(blogId, -1, maxResults);
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentException = true;
+        }
+        assertTrue(illegalArgumentException);
+    }
+
+    /**
+     * Test method for
+     * {@link tk.serjmusic.services.impl.BlogEntryServiceImpl#recountAllComments()}.
+     */
+    @Test
+    public final void testRecountAllComments() {
+        when(blogDao.recountAllComments()).thenReturn(3);
+        assertEquals(3, blogService.recountAllComments());
+        
+        // persistence layer problems
+        boolean persistentLayerProblemsException = false;
+        when(blogDao.recountAllComments()).thenThrow(new PersistenceException());
+        try {
+            blogService.recountAllComments();
+        } catch (PersistentLayerProblemsException ex) {
+            persistentLayerProblemsException = true;
+        }
+        assertTrue(persistentLayerProblemsException);
+    }
+
+    /**
+     * Test of the content which is rendered by
+     * {@link tk.serjmusic.services.impl.BlogEntryServiceImpl#create(BlogEntry)} and
+     * {@link tk.serjmusic.services.impl.BlogEntryServiceImpl#update(BlogEntry)}.
+     */
+    @Test
+    public final void testContentIsRenderedOnWrite() {
+        blogEntry.setContent("<p>Some <b>bold</b> text</p><script>steal()</script>");
+        blogService.create(blogEntry);
+        assertEquals("<p>Some <b>bold</b> text</p>", blogEntry.getRenderedHtml());
+        assertEquals("Some bold text", blogEntry.getExcerpt());
+        
+        // the excerpt of Markdown doesn't contain its markup
+        blogEntry.setContentFormat(ContentFormat.MARKDOWN);
+        blogEntry.setContent("Some **bold** text");
+        when(blogDao.merge(blogEntry)).thenReturn(blogEntry);
+        blogService.update(blogEntry);
+        assertEquals("<p>Some <strong>bold</strong> text</p>\n", blogEntry.getRenderedHtml());
+        assertEquals("Some bold text", blogEntry.getExcerpt());
+        
+        // patches of other attributes are not rendered again
+        blogEntry.setRenderedHtml("<p>stored</p>");
+        when(blogDao.find(1)).thenReturn(blogEntry);
+        blogService.patch(1, -1, entry -> entry.setTitle("new_title"));
+        assertEquals("<p>stored</p>", blogEntry.getRenderedHtml());
+        blogService.patch(1, -1, entry -> entry.setContent("Other **bold** text"));
+        assertEquals("<p>Other <strong>bold</strong> text</p>\n", blogEntry.getRenderedHtml());
+    }
+
+    /**
+     * Test method for
+     * {@link tk.serjmusic.services.impl.BlogEntryServiceImpl#compressStoredContent()}.
+     */
+    @Test
+    public final void testCompressStoredContent() {
+        when(blogDao.compressStoredContent(0)).thenReturn(new KeysetChunk(7, 2, false));
+        when(blogDao.compressStoredContent(7)).thenReturn(new KeysetChunk(9, 1, true));
+        assertEquals(3, blogService.compressStoredContent());
+        verify(transactionManager, times(2)).commit(any());
+        
+        // the next run continues after the checked rows
+        when(blogDao.compressStoredContent(9)).thenReturn(new KeysetChunk(9, 0, true));
+        assertEquals(0, blogService.compressStoredContent());
+        verify(blogDao, times(1)).compressStoredContent(0);
+        
+        // persistence layer problems
+        boolean persistentLayerProblemsException = false;
+        when(blogDao.compressStoredContent(9)).thenThrow(new PersistenceException());
+        try {
+            blogService.compressStoredContent();
+        } catch (PersistentLayerProblemsException ex) {
+            persistentLayerProblemsException = true;
+        }
+        assertTrue(persistentLayerProblemsException);
+    }
+
+    /**
+     * Test method for
+     * {@link tk.serjmusic.services.impl.BlogEntryServiceImpl#renderStoredContent()}.
+     */
+    @Test
+    public final void testRenderStoredContent() {
+        blogEntry.setContentFormat(ContentFormat.MARKDOWN);
+        blogEntry.setContent("Some **bold** text");
+        when(blogDao.findNotRendered(0)).thenReturn(Arrays.asList(blogEntry));
+        assertEquals(1, blogService.renderStoredContent());
+        assertEquals("<p>Some <strong>bold</strong> text</p>\n", blogEntry.getRenderedHtml());
+        assertEquals("Some bold text", blogEntry.getExcerpt());
+        verify(transactionManager).commit(any());
+        
+        // persistence layer problems
+        boolean persistentLayerProblemsException = false;
+        when(blogDao.findNotRendered(0)).thenThrow(new PersistenceException());
+        try {
+            blogService.renderStoredContent();
+        } catch (PersistentLayerProblemsException ex) {
+            persistentLayerProblemsException = true;
+        }
+        assertTrue(persistentLayerProblemsException);
+    }
+
 }
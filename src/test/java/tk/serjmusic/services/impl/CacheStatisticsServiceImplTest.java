@@ -0,0 +1,104 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.services.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import net.sf.ehcache.config.MemoryUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tk.serjmusic.models.projections.CacheRegionStatistics;
+import tk.serjmusic.utils.R;
+
+import java.util.List;
+
+/**
+ * Test case for {@link CacheStatisticsServiceImpl}.
+ *
+ * @author Roman Kondakov
+ */
+public class CacheStatisticsServiceImplTest {
+
+    private CacheStatisticsServiceImpl cacheStatisticsService = new CacheStatisticsServiceImpl();
+    private CacheManager cacheManager;
+
+    /**
+     * Set up method.
+     */
+    @Before
+    public void setUp() {
+        cacheManager = new CacheManager(new Configuration().name(R.CACHE_MANAGER_NAME)
+                .cache(new CacheConfiguration("users", 0)
+                        .maxBytesLocalHeap(1, MemoryUnit.MEGABYTES))
+                .cache(new CacheConfiguration("blogs", 100)));
+    }
+
+    /**
+     * Tear down method.
+     */
+    @After
+    public void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    /**
+     * Test method for 
+     * {@link tk.serjmusic.services.impl.CacheStatisticsServiceImpl#getRegionStatistics()}.
+     */
+    @Test
+    public final void testGetRegionStatistics() {
+        Cache users = cacheManager.getCache("users");
+        users.put(new Element(1, "user"));
+        users.get(1);
+        users.get(1);
+        users.get(2);
+
+        List<CacheRegionStatistics> statistics = cacheStatisticsService.getRegionStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals("blogs", statistics.get(0).getRegion());
+        assertEquals(0, statistics.get(0).getHitRatio(), 0);
+        assertEquals(0, statistics.get(0).getMaxHeapSizeInBytes());
+        CacheRegionStatistics userStatistics = statistics.get(1);
+        assertEquals("users", userStatistics.getRegion());
+        assertEquals(2, userStatistics.getHitCount());
+        assertEquals(1, userStatistics.getMissCount());
+        assertEquals(1, userStatistics.getPutCount());
+        assertEquals(1, userStatistics.getElementCount());
+        assertEquals(2.0 / 3, userStatistics.getHitRatio(), 1e-9);
+        assertTrue(userStatistics.getHeapSizeInBytes() > 0);
+        assertEquals(1024 * 1024, userStatistics.getMaxHeapSizeInBytes());
+
+        // No statistics without the cache
+        cacheManager.shutdown();
+        assertTrue(cacheStatisticsService.getRegionStatistics().isEmpty());
+    }
+}
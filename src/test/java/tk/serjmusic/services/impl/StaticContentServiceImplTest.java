@@ -0,0 +1,134 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.services.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import tk.serjmusic.dao.StaticContentDao;
+import tk.serjmusic.models.StaticContent;
+import tk.serjmusic.services.exceptions.CanNotFindException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale.LanguageRange;
+
+/**
+ * Test case for {@link StaticContentServiceImpl}.
+ *
+ * @author Roman Kondakov
+ */
+public class StaticContentServiceImplTest {
+
+    @Mock
+    private StaticContentDao staticContentDao;
+
+    @InjectMocks
+    private StaticContentServiceImpl staticService;
+
+    private StaticContent bioRu;
+    private StaticContent bioEn;
+    private StaticContent contactsEn;
+
+    /**
+     * Set up method.
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        bioEn = content(1, "bio", "EN");
+        bioRu = content(2, "bio", "RU");
+        contactsEn = content(3, "contacts", "EN");
+        when(staticContentDao.findAll()).thenReturn(Arrays.asList(contactsEn, bioRu, bioEn));
+    }
+
+    /**
+     * Test method for {@link StaticContentServiceImpl#getStaticContentByDescription(String, 
+     * java.util.List)}.
+     */
+    @Test
+    public final void testGetStaticContentByDescriptionAndLanguage() {
+        assertEquals(bioEn, staticService.getStaticContentByDescription("bio", 
+                LanguageRange.parse("en-US,en;q=0.9,ru;q=0.8")));
+        assertEquals(bioRu, staticService.getStaticContentByDescription("bio", 
+                LanguageRange.parse("de,ru;q=0.5")));
+        
+        // Fallback to the default language and then to any one
+        assertEquals(bioRu, staticService.getStaticContentByDescription("bio", 
+                LanguageRange.parse("de")));
+        assertEquals(bioRu, staticService.getStaticContentByDescription("bio"));
+        assertEquals(contactsEn, staticService.getStaticContentByDescription("contacts", 
+                LanguageRange.parse("de")));
+        
+        // The snapshot is read once
+        verify(staticContentDao, times(1)).findAll();
+
+        // Bad input
+        boolean illegalArgumentException = false;
+        try {
+            staticService.getStaticContentByDescription(null, Collections.emptyList());
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentException = true;
+        }
+        assertTrue(illegalArgumentException);
+
+        // Empty result
+        boolean canNotFindException = false;
+        try {
+            staticService.getStaticContentByDescription("news");
+        } catch (CanNotFindException ex) {
+            canNotFindException = true;
+        }
+        assertTrue(canNotFindException);
+    }
+
+    /**
+     * Test method for {@link StaticContentServiceImpl#create(StaticContent)}.
+     */
+    @Test
+    public final void testCreateRenewsSnapshot() {
+        assertEquals(bioRu, staticService.getStaticContentByDescription("bio"));
+        StaticContent news = content(4, "news", "RU");
+        staticService.create(news);
+        when(staticContentDao.findAll()).thenReturn(Arrays.asList(bioRu, news));
+        assertEquals(news, staticService.getStaticContentByDescription("news"));
+        verify(staticContentDao, times(2)).findAll();
+    }
+
+    private static StaticContent content(int id, String description, String language) {
+        StaticContent content = new StaticContent(description + " in " + language);
+        content.setId(id);
+        content.setContentDescription(description);
+        content.setLanguage(language);
+        return content;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.services.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tk.serjmusic.dao.UserAvatarDao;
+import tk.serjmusic.dao.UserDao;
+import tk.serjmusic.models.User;
+import tk.serjmusic.models.UserAvatar;
+import tk.serjmusic.models.projections.AvatarContent;
+import tk.serjmusic.services.exceptions.CanNotFindException;
+import tk.serjmusic.utils.R;
+
+import java.io.ByteArrayInputStream;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Test case for {@link UserAvatarServiceImpl}.
+ *
+ * @author Roman Kondakov
+ */
+public class UserAvatarServiceImplTest {
+
+    private static final String PNG_HASH = 
+            "4e2ddd43b9fcf5b4e01e4ac2b06b5ba5d4bb1dbbbd6cf2f2b4b32e2c9b9f5e03";
+    private static final byte[] PNG_IMAGE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n',
+        0, 0, 0, 0x0d, 'I', 'H', 'D', 'R'};
+
+    @Mock
+    private UserAvatarDao avatarDao;
+
+    @Mock
+    private UserDao userDao;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private UserAvatarServiceImpl avatarService;
+
+    /**
+     * Set up method.
+     */
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.services.impl.UserAvatarServiceImpl#store(byte[])}.
+     */
+    @Test
+    public final void testStore() {
+        // New image is persisted
+        UserAvatar avatar = avatarService.store(PNG_IMAGE);
+        assertEquals("image/png", avatar.getContentType());
+        assertEquals(64, avatar.getHash().length());
+        verify(avatarDao).persist(avatar);
+
+        // The same image is stored once
+        when(avatarDao.findAvatarByHash(avatar.getHash())).thenReturn(avatar);
+        assertSame(avatar, avatarService.store(PNG_IMAGE.clone()));
+        verify(avatarDao).persist(any(UserAvatar.class));
+
+        // Bad input
+        int illegalArgumentExceptions = 0;
+        try {
+            avatarService.store("<html><script>alert(1)</script></html>".getBytes());
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentExceptions++;
+        }
+        try {
+            avatarService.store(new byte[R.MAX_AVATAR_SIZE + 1]);
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentExceptions++;
+        }
+        assertEquals(2, illegalArgumentExceptions);
+    }
+
+    /**
+     * Test method for 
+     * {@link tk.serjmusic.services.impl.UserAvatarServiceImpl#getAvatarByHash(java.lang.String)}.
+     */
+    @Test
+    public final void testGetAvatarByHash() {
+        UserAvatar avatar = new UserAvatar(PNG_HASH, "image/png", PNG_IMAGE);
+        when(avatarDao.findAvatarByHash(PNG_HASH)).thenReturn(avatar);
+        assertSame(avatar, avatarService.getAvatarByHash(PNG_HASH));
+
+        boolean canNotFindException = false;
+        try {
+            avatarService.getAvatarByHash("unknown");
+        } catch (CanNotFindException ex) {
+            canNotFindException = true;
+        }
+        assertTrue(canNotFindException);
+        verify(avatarDao, never()).persist(any(UserAvatar.class));
+    }
+
+    /**
+     * Test method for 
+     * {@link tk.serjmusic.services.impl.UserAvatarServiceImpl#getAvatarContentByHash(String)}.
+     */
+    @Test
+    public final void testGetAvatarContentByHash() {
+        AvatarContent content = new AvatarContent(PNG_HASH, "image/png", PNG_IMAGE.length, 
+            () -> new ByteArrayInputStream(PNG_IMAGE));
+        when(avatarDao.findAvatarContentByHash(PNG_HASH)).thenReturn(content);
+        assertSame(content, avatarService.getAvatarContentByHash(PNG_HASH));
+
+        boolean canNotFindException = false;
+        try {
+            avatarService.getAvatarContentByHash("unknown");
+        } catch (CanNotFindException ex) {
+            canNotFindException = true;
+        }
+        assertTrue(canNotFindException);
+    }
+
+    /**
+     * Test method for 
+     * {@link tk.serjmusic.services.impl.UserAvatarServiceImpl#migrateLegacyAvatars()}.
+     */
+    @Test
+    public final void testMigrateLegacyAvatars() {
+        User user = new User("user");
+        User migrated = new User("migrated");
+        migrated.setAvatarHash(PNG_HASH);
+        User invalid = new User("invalid");
+        SortedMap<Integer, byte[]> images = new TreeMap<>();
+        images.put(3, PNG_IMAGE);
+        images.put(5, PNG_IMAGE);
+        images.put(8, "not an image".getBytes());
+        when(userDao.findLegacyAvatars(0)).thenReturn(images);
+        when(userDao.find(3)).thenReturn(user);
+        when(userDao.find(5)).thenReturn(migrated);
+        when(userDao.find(8)).thenReturn(invalid);
+        when(userDao.findLegacyAvatars(8)).thenReturn(new TreeMap<>());
+        
+        assertEquals(1, avatarService.migrateLegacyAvatars());
+        assertEquals(64, user.getAvatarHash().length());
+        assertNull(invalid.getAvatarHash());
+        verify(avatarDao).persist(any(UserAvatar.class));
+        verify(transactionManager).commit(any());
+        
+        // The next run continues after the checked users
+        assertEquals(0, avatarService.migrateLegacyAvatars());
+        verify(userDao).findLegacyAvatars(0);
+        verify(userDao).findLegacyAvatars(8);
+    }
+}
@@ -43,6 +43,7 @@ import tk.serjmusic.models.User;
 import tk.serjmusic.services.exceptions.AlreadyExistsException;
 import tk.serjmusic.services.exceptions.CanNotFindException;
 import tk.serjmusic.services.exceptions.PersistentLayerProblemsException;
+import tk.serjmusic.services.exceptions.StaleVersionException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -244,10 +245,18 @@ public class UserServiceImplTest {
     @Test
     public final void testCreate() {
         
-        // should be OK
-        when(userDao.merge(user1)).thenReturn(user1);
-        userService.create(user1);
-        verify(userDao, times(1)).merge(user1);
+        // should be OK: a new entity is persisted without a merge
+        doNothing().when(userDao).persist(user1);
+        assertEquals(user1, userService.create(user1));
+        verify(userDao, times(1)).persist(user1);
+        verify(userDao, times(0)).merge(user1);
+        
+        // an entity with ID is merged
+        User detached = new User(USERNAME_1);
+        detached.setId(1);
+        when(userDao.merge(detached)).thenReturn(detached);
+        assertEquals(detached, userService.create(detached));
+        verify(userDao, times(1)).merge(detached);
 
         // Bad input
         boolean illegalArgumentException = false;
@@ -260,7 +269,7 @@ public class UserServiceImplTest {
         
         // Problems with persistent layer
         boolean persistentLayerProblemsException = false;
-        doThrow(new PersistenceException()).when(userDao).merge(user1);
+        doThrow(new PersistenceException()).when(userDao).persist(user1);
         try {
             userService.create(user1);
         } catch (PersistentLayerProblemsException ex) {
@@ -270,7 +279,7 @@ public class UserServiceImplTest {
         
         // Entity already exist
         boolean alreadyExistsException = false;
-        doThrow(new EntityExistsException()).when(userDao).merge(user1);
+        doThrow(new EntityExistsException()).when(userDao).persist(user1);
         try {
             userService.create(user1);
         } catch (AlreadyExistsException ex) {
@@ -353,6 +362,63 @@ public class UserServiceImplTest {
         assertTrue(persistentLayerProblemsException);
     }
 
+    /**
+     * Test method for
+     * {@link tk.serjmusic.services.impl.AbstractGenericServiceImpl
+     * #patch(int, int, java.util.function.Consumer)}
+     * .
+     */
+    @Test
+    public final void testPatch() {
+        
+        // should be OK
+        user1.setVersion(3);
+        when(userDao.find(1)).thenReturn(user1);
+        assertEquals(user1, userService.patch(1, 3, user -> user.setEmail("new@mail")));
+        assertEquals("new@mail", user1.getEmail());
+        userService.patch(1, -1, user -> user.setEmail("any@mail"));
+        assertEquals("any@mail", user1.getEmail());
+        
+        // The entity is changed since the expected version
+        boolean staleVersionException = false;
+        try {
+            userService.patch(1, 2, user -> user.setEmail("old@mail"));
+        } catch (StaleVersionException ex) {
+            staleVersionException = true;
+        }
+        assertTrue(staleVersionException);
+        assertEquals("any@mail", user1.getEmail());
+        
+        // Bad input
+        boolean illegalArgumentException = false;
+        try {
+            userService.patch(1, 3, null);
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentException = true;
+        }
+        assertTrue(illegalArgumentException);
+        
+        // Can not find
+        boolean canNotFindException = false;
+        when(userDao.find(2)).thenReturn(null);
+        try {
+            userService.patch(2, 3, user -> user.setEmail("new@mail"));
+        } catch (CanNotFindException ex) {
+            canNotFindException = true;
+        }
+        assertTrue(canNotFindException);
+        
+        // Problems with persistent layer
+        boolean persistentLayerProblemsException = false;
+        doThrow(new PersistenceException()).when(userDao).find(1);
+        try {
+            userService.patch(1, 3, user -> user.setEmail("new@mail"));
+        } catch (PersistentLayerProblemsException ex) {
+            persistentLayerProblemsException = true;
+        }
+        assertTrue(persistentLayerProblemsException);
+    }
+
     /**
      * Test method for
      * {@link tk.serjmusic.services.impl.AbstractGenericServiceImpl
@@ -387,6 +453,110 @@ public class UserServiceImplTest {
         assertTrue(persistentLayerProblemsException);
     }
 
+    /**
+     * Test method for {@link tk.serjmusic.services.impl.AbstractGenericServiceImpl
+     * #deleteById(int)}.
+     */
+    @Test
+    public final void testDeleteById() {
+        
+        // should be OK
+        when(userDao.removeById(1)).thenReturn(true);
+        userService.deleteById(1);
+        verify(userDao, times(1)).removeById(1);
+        verify(userDao, times(0)).find(1);
+        
+        // Nothing to delete
+        boolean canNotFindException = false;
+        try {
+            userService.deleteById(2);
+        } catch (CanNotFindException ex) {
+            canNotFindException = true;
+        }
+        assertTrue(canNotFindException);
+        
+        // Bad input
+        boolean illegalArgumentException = false;
+        try {
+            userService.deleteById(-1);
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentException = true;
+        }
+        assertTrue(illegalArgumentException);
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.services.impl.AbstractGenericServiceImpl
+     * #createAll(java.util.Collection)} and {@link tk.serjmusic.services.impl
+     * .AbstractGenericServiceImpl#updateAll(java.util.Collection)}.
+     */
+    @Test
+    public final void testCreateAllAndUpdateAll() {
+        // should be OK
+        userService.createAll(users);
+        verify(userDao, times(1)).persistAll(users);
+        when(userDao.mergeAll(users)).thenReturn(users);
+        assertEquals(users, userService.updateAll(users));
+        
+        // Bad input
+        int illegalArgumentExceptions = 0;
+        try {
+            userService.createAll(Arrays.asList(user1, null));
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentExceptions++;
+        }
+        try {
+            userService.updateAll(null);
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentExceptions++;
+        }
+        assertEquals(2, illegalArgumentExceptions);
+        
+        // Entity already exist
+        boolean alreadyExistsException = false;
+        doThrow(new EntityExistsException()).when(userDao).persistAll(users);
+        try {
+            userService.createAll(users);
+        } catch (AlreadyExistsException ex) {
+            alreadyExistsException = true;
+        }
+        assertTrue(alreadyExistsException);
+    }
+
+    /**
+     * Test method for {@link tk.serjmusic.services.impl.AbstractGenericServiceImpl
+     * #deleteAllById(java.util.Collection)}.
+     */
+    @Test
+    public final void testDeleteAllById() {
+        List<Integer> ids = Arrays.asList(1, 2);
+        
+        // should be OK
+        when(userDao.removeAllById(ids)).thenReturn(2);
+        assertEquals(2, userService.deleteAllById(ids));
+        assertEquals(0, userService.deleteAllById(new ArrayList<Integer>()));
+        verify(userDao, times(1)).removeAllById(ids);
+        
+        // Bad input
+        boolean illegalArgumentException = false;
+        try {
+            userService.deleteAllById(Arrays.asList(1, -1));
+        } catch (IllegalArgumentException ex) {
+            illegalArgumentException = true;
+        }
+        assertTrue(illegalArgumentException);
+        
+        // Problems with persistent layer
+        boolean persistentLayerProblemsException = false;
+        doThrow(new PersistenceException()).when(userDao).removeAllById(ids);
+        try {
+            userService.deleteAllById(ids);
+        } catch (PersistentLayerProblemsException ex) {
+            persistentLayerProblemsException = true;
+        }
+        assertTrue(persistentLayerProblemsException);
+    }
+
     /**
      * Test method for {@link tk.serjmusic.services.impl.AbstractGenericServiceImpl#getAll()}.
      */
@@ -0,0 +1,68 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import tk.serjmusic.models.ContentFormat;
+
+/**
+ * Test case for {@link ContentRenderer}.
+ *
+ * @author Roman Kondakov
+ */
+public class ContentRendererTest {
+
+    /**
+     * Test method for {@link ContentRenderer#render(String, ContentFormat)} of HTML.
+     */
+    @Test
+    public final void testRenderHtml() {
+        assertNull(ContentRenderer.render(null, ContentFormat.HTML));
+        assertEquals("<p>Some <b>bold</b> text</p>", ContentRenderer.render(
+                "<p onclick=\"steal()\">Some <b>bold</b> text</p><script>steal()</script>", null));
+        assertEquals("<a href=\"https://serjmusic.tk\" rel=\"nofollow\">link</a> bad link", 
+                ContentRenderer.render("<a href=\"https://serjmusic.tk\">link</a> "
+                        + "<a href=\"javascript:steal()\">bad link</a>", ContentFormat.HTML));
+        
+        // frames are allowed for YouTube players only
+        String player = "<iframe src=\"https://www.youtube.com/embed/dQw4w9WgXcQ\" "
+                + "width=\"560\" height=\"315\"></iframe>";
+        assertEquals(player, ContentRenderer.render(player, ContentFormat.HTML));
+        assertEquals("<iframe></iframe>", ContentRenderer.render(
+                "<iframe src=\"https://evil.example.com/\"></iframe>", ContentFormat.HTML));
+    }
+
+    /**
+     * Test method for {@link ContentRenderer#render(String, ContentFormat)} of Markdown.
+     */
+    @Test
+    public final void testRenderMarkdown() {
+        assertEquals("<h1>Title</h1>\n<p>Some <strong>bold</strong> text</p>\n", 
+                ContentRenderer.render("# Title\n\nSome **bold** text<script>steal()</script>", 
+                        ContentFormat.MARKDOWN));
+    }
+}
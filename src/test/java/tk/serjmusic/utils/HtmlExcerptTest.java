@@ -0,0 +1,65 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.utils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import tk.serjmusic.models.ContentFormat;
+
+/**
+ * Test case for {@link HtmlExcerpt}.
+ *
+ * @author Roman Kondakov
+ */
+public class HtmlExcerptTest {
+
+    /**
+     * Test method for {@link HtmlExcerpt#of(String, int)}.
+     */
+    @Test
+    public final void testOf() {
+        assertNull(HtmlExcerpt.of(null, 10));
+        assertEquals("Some bold text", HtmlExcerpt.of("<p>Some <b>bold</b>\n text</p>", 100));
+        assertEquals("Some bold…", HtmlExcerpt.of("<p>Some <b>bold</b> text</p>", 12));
+        
+        // entities are decoded once
+        assertEquals("<a> & \"b\" 'c' &amp; &#64;", HtmlExcerpt.of(
+                "&lt;a&gt;&nbsp;&amp; &quot;b&quot; &#39;c&#39; &amp;amp; &#38;#64;", 100));
+        assertEquals("€ € &#1114112;", HtmlExcerpt.of("&#8364; &#x20AC; &#1114112;", 100));
+    }
+
+    /**
+     * Test of excerpts of the rendered HTML, the sanitizer escapes some characters as numeric 
+     * character references.
+     */
+    @Test
+    public final void testOfRenderedHtml() {
+        String text = "Write to me@mail.ru about C++, a = b and `code`";
+        assertEquals(text, HtmlExcerpt.of(ContentRenderer.render(
+                "<p>" + text + "</p>", ContentFormat.HTML), 100));
+        assertEquals("Write to me@mail.ru about C++, a = b", HtmlExcerpt.of(ContentRenderer.render(
+                "Write to me@mail.ru about C++, a = b", ContentFormat.MARKDOWN), 100));
+    }
+}
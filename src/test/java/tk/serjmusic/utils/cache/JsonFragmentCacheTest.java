@@ -0,0 +1,147 @@
+/**
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or distribute this software, either
+ * in source code form or as a compiled binary, for any purpose, commercial or non-commercial, and
+ * by any means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors of this software dedicate
+ * any and all copyright interest in the software to the public domain. We make this dedication for
+ * the benefit of the public at large and to the detriment of our heirs and successors. We intend
+ * this dedication to be an overt act of relinquishment in perpetuity of all present and future
+ * rights to this software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+
+package tk.serjmusic.utils.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tk.serjmusic.models.BlogEntry;
+import tk.serjmusic.models.PhotoEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Test case for {@link JsonFragmentCache}.
+ *
+ * @author Roman Kondakov
+ */
+public class JsonFragmentCacheTest {
+
+    private static final String BASE_URI = "http://localhost";
+
+    private CacheManager cacheManager;
+    private JsonFragmentCache fragmentCache;
+    private int serialized;
+
+    /**
+     * Set up method.
+     */
+    @Before
+    public void setUp() {
+        cacheManager = new CacheManager(new Configuration().name("jsonFragmentCacheTest")
+                .cache(new CacheConfiguration("fragments", 1000)));
+        fragmentCache = new JsonFragmentCache(cacheManager.getEhcache("fragments"));
+        serialized = 0;
+    }
+
+    /**
+     * Tear down method.
+     */
+    @After
+    public void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    /**
+     * Test of fragments kept per entity and version.
+     */
+    @Test
+    public final void testFragmentIsCachedPerVersion() {
+        assertEquals("{\"v\":1}", get(BlogEntry.class, 1, 1));
+        assertEquals("{\"v\":1}", get(BlogEntry.class, 1, 1));
+        assertEquals(1, serialized);
+        
+        // Other entity type or ID
+        get(PhotoEntry.class, 1, 1);
+        get(BlogEntry.class, 2, 1);
+        assertEquals(3, serialized);
+        
+        // Changed version replaces the fragment
+        assertEquals("{\"v\":4}", get(BlogEntry.class, 1, 2));
+        assertEquals("{\"v\":5}", get(BlogEntry.class, 1, 1));
+        assertEquals(5, serialized);
+        
+        // Links of other base URI
+        fragmentCache.get(BlogEntry.class, 1, 1, "http://other", 
+                () -> bytes("{\"v\":" + (++serialized) + "}"));
+        assertEquals("{\"v\":7}", get(BlogEntry.class, 1, 1));
+        assertEquals(7, serialized);
+    }
+
+    /**
+     * Test of evicted fragments.
+     */
+    @Test
+    public final void testEvict() {
+        get(BlogEntry.class, 1, 1);
+        get(PhotoEntry.class, 1, 1);
+        fragmentCache.evict(BlogEntry.class, 1);
+        get(BlogEntry.class, 1, 1);
+        get(PhotoEntry.class, 1, 1);
+        assertEquals(3, serialized);
+    }
+
+    /**
+     * Test of the cache without region.
+     */
+    @Test
+    public final void testWithoutRegion() {
+        fragmentCache = new JsonFragmentCache();
+        get(BlogEntry.class, 1, 1);
+        get(BlogEntry.class, 1, 1);
+        fragmentCache.evict(BlogEntry.class, 1);
+        assertEquals(2, serialized);
+    }
+
+    /**
+     * Test method for {@link JsonFragmentCache#toJsonArray(java.util.List)}.
+     */
+    @Test
+    public final void testToJsonArray() {
+        assertArrayEquals(bytes("[]"), JsonFragmentCache.toJsonArray(Collections.emptyList()));
+        assertArrayEquals(bytes("[{}]"), 
+                JsonFragmentCache.toJsonArray(Collections.singletonList(bytes("{}"))));
+        assertArrayEquals(bytes("[{\"a\":1},{},\"b\"]"), JsonFragmentCache.toJsonArray(
+                Arrays.asList(bytes("{\"a\":1}"), bytes("{}"), bytes("\"b\""))));
+    }
+
+    private String get(Class<?> type, int id, long version) {
+        byte[] json = fragmentCache.get(type, id, version, BASE_URI, 
+                () -> bytes("{\"v\":" + (++serialized) + "}"));
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}